@@ -28,6 +28,7 @@ public class LibraryDemo {
         
         // Generate final report
         library.generateInventoryReport();
+        library.flushNotifications();
         
         Logger.logInfo("Library Management System Demo completed");
     }
@@ -1,54 +1,417 @@
 package com.library;
 
+import com.library.analytics.AlsoBorrowedIndex;
+import com.library.analytics.CirculationAnalytics;
+import com.library.analytics.Recommendation;
+import com.library.cdc.ChangeStream;
+import com.library.metrics.LibraryMetrics;
+import com.library.metrics.MetricsSnapshot;
 import com.library.models.*;
+import com.library.notifications.LoggingMailTransport;
+import com.library.notifications.NotificationBatcher;
 import com.library.services.*;
 import com.library.patterns.EmailNotificationObserver;
+import com.library.patterns.PatronNotificationRouter;
+import com.library.patterns.Subject;
+import com.library.persistence.Journal;
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationSink;
+import com.library.persistence.Replayable;
+import com.library.persistence.SnapshotStore;
+import com.library.persistence.SnapshotVisitor;
+import com.library.replication.ReplicationLag;
+import com.library.replication.ReplicationServer;
+import com.library.replication.StandbyReplicator;
+import com.library.repository.*;
+import com.library.sharding.ShardCluster;
+import com.library.transactions.TransactionManager;
 import com.library.utils.Logger;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main Library Management System class that coordinates all services.
  * Demonstrates the Facade pattern by providing a simplified interface to the complex subsystem.
+ *
+ * <p>Circulation changes run as {@linkplain TransactionManager transactions} over
+ * the book and patron they concern. A return and the hold it fulfils are journaled
+ * together, and no borrow of the book can slip in between them.
+ *
+ * <p>With a data directory, every journaled change can also be published on a
+ * {@linkplain #startChangeStream() change stream} for downstream systems.
  */
-public class LibraryManagementSystem {
+public class LibraryManagementSystem implements AutoCloseable {
     private final BookService bookService;
     private final PatronService patronService;
     private final LendingService lendingService;
     private final ReservationService reservationService;
+    private final NotificationBatcher notificationBatcher;
+    private final Journal journal;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService snapshotExecutor;
+    private volatile ChangeStream changeStream;
+    private final LibraryMetrics metrics;
+    private final CirculationAnalytics circulationAnalytics = new CirculationAnalytics();
+    private final AlsoBorrowedIndex alsoBorrowed = new AlsoBorrowedIndex();
+    private final TransactionManager transactions = new TransactionManager();
+    private ReplicationServer replicationServer;
+    private StandbyReplicator standbyReplicator;
+    private static final Duration NOTIFICATION_WINDOW = Duration.ofSeconds(30);
+    private static final int NOTIFICATION_BATCH_SIZE = 20;
+    private static final int CHANGE_RING_CAPACITY = 16384;
 
     public LibraryManagementSystem() {
-        this.bookService = new BookServiceImpl();
-        this.patronService = new PatronServiceImpl();
-        this.lendingService = new LendingServiceImpl(bookService, patronService);
-        this.reservationService = new ReservationServiceImpl(bookService, patronService);
+        this((Path) null);
+    }
+
+    /**
+     * Creates a library whose mutations are journaled under {@code dataDirectory}
+     * and recovered from it on startup: the latest snapshot is loaded and only the
+     * journal tail after it is replayed. Passing null keeps all state in memory.
+     */
+    public LibraryManagementSystem(Path dataDirectory) {
+        this(new VersionedBookRepository(), new InMemoryPatronRepository(), new InMemoryLoanRepository(),
+                new InMemoryReservationRepository(), dataDirectory);
+    }
+
+    /**
+     * Creates a library on top of the given repositories, e.g. the JDBC ones in
+     * {@link com.library.repository.jdbc}, which persist state on their own. Wrap
+     * persistent book and patron repositories in the {@link com.library.repository.cache}
+     * decorators to serve hot lookups from memory.
+     */
+    public LibraryManagementSystem(BookRepository bookRepository, PatronRepository patronRepository,
+                                   LoanRepository loanRepository, ReservationRepository reservationRepository) {
+        this(bookRepository, patronRepository, loanRepository, reservationRepository, null);
+    }
+
+    /**
+     * Creates a library whose catalog, loans and reservations are partitioned by
+     * ISBN across the shards of {@code cluster}. State is kept in memory only.
+     */
+    public LibraryManagementSystem(ShardCluster cluster) {
+        this(cluster.getBookService(), cluster.getPatronService(), cluster.getLendingService(),
+                cluster.getReservationService(), cluster.getMetrics(), null);
+        cluster.setMutationSink(transactions);
+    }
+
+    /**
+     * Creates a library on top of the given repositories whose mutations are
+     * journaled under {@code dataDirectory} and recovered from it on startup, for
+     * repositories that do not persist on their own, e.g. an
+     * {@link OffHeapLoanRepository} holding a very large loan history.
+     */
+    public LibraryManagementSystem(BookRepository bookRepository, PatronRepository patronRepository,
+                                   LoanRepository loanRepository, ReservationRepository reservationRepository,
+                                   Path dataDirectory) {
+        this(new BookServiceImpl(bookRepository), new PatronServiceImpl(patronRepository), loanRepository,
+                reservationRepository, dataDirectory);
+    }
+
+    private LibraryManagementSystem(BookService bookService, PatronService patronService,
+                                    LoanRepository loanRepository, ReservationRepository reservationRepository,
+                                    Path dataDirectory) {
+        this(bookService, patronService, new LendingServiceImpl(bookService, patronService, loanRepository),
+                new ReservationServiceImpl(bookService, patronService, reservationRepository), new LibraryMetrics(),
+                dataDirectory);
+    }
+
+    private LibraryManagementSystem(BookService bookService, PatronService patronService,
+                                    LendingService lendingService, ReservationService reservationService,
+                                    LibraryMetrics metrics, Path dataDirectory) {
+        this.notificationBatcher = new NotificationBatcher(new LoggingMailTransport(),
+                NOTIFICATION_WINDOW, NOTIFICATION_BATCH_SIZE);
+        this.bookService = bookService;
+        this.patronService = patronService;
+        this.lendingService = lendingService;
+        this.reservationService = reservationService;
+        this.metrics = metrics;
         
+        if (patronService instanceof PatronServiceImpl patrons) {
+            patrons.setBorrowingHistorySource(lendingService::getBorrowingHistory);
+        }
+
         // Set up observer pattern for notifications
         setupNotifications();
+        attachMetrics();
+        setMutationSink(transactions);
+        
+        if (dataDirectory == null) {
+            this.snapshotStore = null;
+            this.journal = null;
+            this.snapshotExecutor = null;
+        } else {
+            this.snapshotStore = new SnapshotStore(dataDirectory.resolve("snapshots"));
+            this.journal = recover(dataDirectory);
+            this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "library-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        alsoBorrowed.seed(lendingService.getAllBorrowRecords());
+    }
+
+    /**
+     * Creates a read-only standby that follows the primary listening at
+     * {@code primary} (see {@link #startReplicationServer(int)}). It serves searches
+     * and availability queries from its own in-memory copy and rejects every
+     * change made through this facade.
+     */
+    public static LibraryManagementSystem standby(InetSocketAddress primary) {
+        LibraryManagementSystem standby = new LibraryManagementSystem((Path) null);
+        standby.standbyReplicator = new StandbyReplicator(primary, standby.restoringVisitor(), standby::applyMutation);
+        standby.standbyReplicator.start();
+        return standby;
+    }
+
+    private Journal recover(Path dataDirectory) {
+        OptionalLong snapshotLsn = snapshotStore.loadLatest(restoringVisitor());
+        Journal opened = new Journal(dataDirectory.resolve("journal"));
+        opened.replay(snapshotLsn.orElse(0), this::applyMutation);
+        Logger.logInfo("Recovered library state up to journal LSN " + opened.getLastLsn());
+        transactions.setMutationSink(opened);
+        return opened;
+    }
+
+    private SnapshotVisitor restoringVisitor() {
+        return new SnapshotVisitor() {
+            @Override
+            public void book(Book book) {
+                ((BookServiceImpl) bookService).restore(book);
+            }
+
+            @Override
+            public void patron(Patron patron) {
+                ((PatronServiceImpl) patronService).restore(patron);
+            }
+
+            @Override
+            public void borrowRecord(BorrowRecord record) {
+                ((LendingServiceImpl) lendingService).restore(record);
+            }
+
+            @Override
+            public void reservation(Reservation reservation) {
+                ((ReservationServiceImpl) reservationService).restore(reservation);
+            }
+
+            @Override
+            public void clear() {
+                ((ReservationServiceImpl) reservationService).clear();
+                ((LendingServiceImpl) lendingService).clear();
+                ((PatronServiceImpl) patronService).clear();
+                ((BookServiceImpl) bookService).clear();
+            }
+        };
+    }
+
+    /**
+     * Starts shipping this library's journal to standbys connecting on the loopback
+     * interface at {@code port} (0 picks a free one; see {@link ReplicationServer#getPort()}).
+     */
+    public synchronized ReplicationServer startReplicationServer(int port) {
+        if (journal == null) {
+            throw new IllegalStateException("Replication requires a data directory");
+        }
+        if (replicationServer == null) {
+            replicationServer = new ReplicationServer(journal, snapshotStore, port);
+        }
+        return replicationServer;
+    }
+
+    public boolean isStandby() {
+        return standbyReplicator != null;
+    }
+
+    /**
+     * Reports how far this standby trails its primary.
+     */
+    public ReplicationLag getReplicationLag() {
+        if (standbyReplicator == null) {
+            throw new IllegalStateException("Not a standby");
+        }
+        return standbyReplicator.getLag();
+    }
+
+    /**
+     * Waits until this standby has applied the primary's journal up to {@code lsn}.
+     */
+    public boolean awaitReplication(long lsn, Duration timeout) throws InterruptedException {
+        if (standbyReplicator == null) {
+            throw new IllegalStateException("Not a standby");
+        }
+        return standbyReplicator.awaitLsn(lsn, timeout);
+    }
+
+    /**
+     * Returns the last durable journal LSN, e.g. to wait for a standby to catch up to it.
+     */
+    public long getLastJournalLsn() {
+        if (journal == null) {
+            throw new IllegalStateException("No journal without a data directory");
+        }
+        return journal.getLastLsn();
+    }
+
+    /**
+     * Starts publishing every change made to this library on a stream kept beside the
+     * journal, addressed by journal LSN, for downstream systems to subscribe to
+     * instead of polling the catalog. Returns the running stream if already started.
+     * A stream kept from an earlier run resumes where it left off.
+     */
+    public synchronized ChangeStream startChangeStream() {
+        if (journal == null) {
+            throw new IllegalStateException("Change data capture requires a data directory");
+        }
+        if (changeStream == null) {
+            ChangeStream stream = new ChangeStream(journal.getDirectory().resolveSibling("changes"),
+                    CHANGE_RING_CAPACITY);
+            stream.attach(journal);
+            changeStream = stream;
+        }
+        return changeStream;
+    }
+
+    /**
+     * Returns the stream started by {@link #startChangeStream()}.
+     */
+    public ChangeStream getChangeStream() {
+        ChangeStream stream = changeStream;
+        if (stream == null) {
+            throw new IllegalStateException("Change data capture has not been started");
+        }
+        return stream;
+    }
+
+    private void ensureWritable() {
+        if (standbyReplicator != null) {
+            throw new IllegalStateException("Standby is read-only; send changes to the primary");
+        }
+    }
+
+    /**
+     * Writes a snapshot in the background while services keep accepting changes.
+     * The journal is rolled first, so the snapshot covers every mutation up to the
+     * returned LSN; journal segments it covers are deleted once it is written and
+     * the change stream holds their changes on disk.
+     */
+    public CompletableFuture<Path> createSnapshot() {
+        if (journal == null) {
+            throw new IllegalStateException("Snapshots require a data directory");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            long lsn = journal.rollSegment();
+            Path snapshot = snapshotStore.write(lsn, bookService.getAllBooks(), patronService.getAllPatrons(),
+                    lendingService.getAllBorrowRecords(), reservationService.getAllReservations());
+            ChangeStream stream = changeStream;
+            if (stream != null) {
+                stream.sync();
+            }
+            journal.deleteSegmentsUpTo(lsn);
+            Logger.logInfo("Snapshot written at journal LSN " + lsn + ": " + snapshot.getFileName());
+            return snapshot;
+        }, snapshotExecutor);
+    }
+
+    public void scheduleSnapshots(Duration interval) {
+        if (snapshotExecutor == null) {
+            throw new IllegalStateException("Snapshots require a data directory");
+        }
+        snapshotExecutor.scheduleAtFixedRate(this::createSnapshot, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void applyMutation(Mutation mutation) {
+        for (Object service : List.of(bookService, patronService, lendingService, reservationService)) {
+            if (service instanceof Replayable replayable) {
+                replayable.apply(mutation);
+            }
+        }
+    }
+
+    /**
+     * Counts whatever the repositories already hold, then lets the services keep the counters current.
+     */
+    private void attachMetrics() {
+        metrics.rebuild(bookService.getAllBooks(), lendingService.getAllBorrowRecords(),
+                reservationService.getAllReservations(),
+                patronId -> patronService.findPatronById(patronId).map(Patron::getPatronType).orElse(null));
+        if (bookService instanceof BookServiceImpl bookImpl) {
+            bookImpl.setMetrics(metrics);
+        }
+        if (lendingService instanceof LendingServiceImpl lendingImpl) {
+            lendingImpl.setMetrics(metrics);
+        }
+        if (reservationService instanceof ReservationServiceImpl reservationImpl) {
+            reservationImpl.setMetrics(metrics);
+        }
+    }
+
+    private void setMutationSink(MutationSink sink) {
+        if (bookService instanceof BookServiceImpl bookImpl) {
+            bookImpl.setMutationSink(sink);
+        }
+        if (patronService instanceof PatronServiceImpl patronImpl) {
+            patronImpl.setMutationSink(sink);
+        }
+        if (lendingService instanceof LendingServiceImpl lendingImpl) {
+            lendingImpl.setMutationSink(sink);
+        }
+        if (reservationService instanceof ReservationServiceImpl reservationImpl) {
+            reservationImpl.setMutationSink(sink);
+        }
     }
 
     private void setupNotifications() {
         // Add email notification observers
-        if (lendingService instanceof LendingServiceImpl) {
-            LendingServiceImpl lendingImpl = (LendingServiceImpl) lendingService;
-            lendingImpl.addObserver(new EmailNotificationObserver("librarian@library.com"));
+        if (lendingService instanceof Subject) {
+            Subject lendingSubject = (Subject) lendingService;
+            lendingSubject.addObserver(new EmailNotificationObserver("librarian@library.com", notificationBatcher));
+            lendingSubject.addObserver(new PatronNotificationRouter(patronService, notificationBatcher));
+            lendingSubject.addObserver(circulationAnalytics);
+            lendingSubject.addObserver(alsoBorrowed);
         }
         
-        if (reservationService instanceof ReservationServiceImpl) {
-            ReservationServiceImpl reservationImpl = (ReservationServiceImpl) reservationService;
-            reservationImpl.addObserver(new EmailNotificationObserver("librarian@library.com"));
+        if (reservationService instanceof Subject) {
+            Subject reservationSubject = (Subject) reservationService;
+            reservationSubject.addObserver(new EmailNotificationObserver("librarian@library.com", notificationBatcher));
+            reservationSubject.addObserver(new PatronNotificationRouter(patronService, notificationBatcher));
         }
     }
 
     // Book Management Methods
     public void addBook(String isbn, String title, String author, int publicationYear) {
+        ensureWritable();
         Book book = new Book(isbn, title, author, publicationYear);
         bookService.addBook(book);
         Logger.logInfo("Book added to library system: " + title);
     }
 
     public void removeBook(String isbn) {
-        bookService.removeBook(isbn);
+        ensureWritable();
+        transactions.run(List.of(TransactionManager.bookKey(isbn)), () -> bookService.removeBook(isbn));
+    }
+
+    /**
+     * Changes a book's details if nobody has changed the book since {@code expectedVersion}
+     * was read from it; otherwise throws {@link VersionConflictException}.
+     */
+    public Optional<Book> updateBook(String isbn, String title, String author, int publicationYear,
+                                     long expectedVersion) {
+        ensureWritable();
+        return transactions.execute(List.of(TransactionManager.bookKey(isbn)),
+                () -> bookService.updateBook(isbn, new Book(isbn, title, author, publicationYear), expectedVersion));
     }
 
     public List<Book> searchBooks(String searchType, String searchTerm) {
@@ -75,22 +438,59 @@ public class LibraryManagementSystem {
     // Patron Management Methods
     public void addPatron(String patronId, String name, String email, String phoneNumber, 
                          String address, PatronType patronType) {
+        ensureWritable();
         Patron patron = new Patron(patronId, name, email, phoneNumber, address, patronType);
         patronService.addPatron(patron);
-        
-        // Add email notification observer for this patron
-        if (lendingService instanceof LendingServiceImpl) {
-            LendingServiceImpl lendingImpl = (LendingServiceImpl) lendingService;
-            lendingImpl.addObserver(new EmailNotificationObserver(email));
-        }
-        
         Logger.logInfo("Patron added to library system: " + name);
     }
 
     public void removePatron(String patronId) {
+        ensureWritable();
         patronService.removePatron(patronId);
     }
 
+    /**
+     * Changes a patron's details if nobody has changed the patron since
+     * {@code expectedVersion} was read; otherwise throws {@link VersionConflictException}.
+     */
+    public Optional<Patron> updatePatron(String patronId, String name, String email, String phoneNumber,
+                                         String address, PatronType patronType, long expectedVersion) {
+        ensureWritable();
+        return patronService.updatePatron(patronId,
+                new Patron(patronId, name, email, phoneNumber, address, patronType), expectedVersion);
+    }
+
+    /**
+     * Brings the patrons of {@code patronType} in line with a roster file; see
+     * {@link PatronService#syncPatrons(Path, PatronType)}.
+     */
+    public PatronSyncSummary syncPatrons(Path rosterFile, PatronType patronType) {
+        ensureWritable();
+        return patronService.syncPatrons(rosterFile, patronType);
+    }
+
+    /**
+     * Suspends, blocks or reinstates a patron; see
+     * {@link PatronService#setPatronStatus(String, PatronStatus, LocalDate)}.
+     */
+    public void setPatronStatus(String patronId, PatronStatus status, LocalDate until) {
+        ensureWritable();
+        patronService.setPatronStatus(patronId, status, until);
+    }
+
+    public LocalDate renewMembership(String patronId) {
+        ensureWritable();
+        return patronService.renewMembership(patronId);
+    }
+
+    public int countPatronsByStatus(PatronStatus status) {
+        return patronService.countPatronsByStatus(status);
+    }
+
+    public List<Patron> getPatronsByStatus(PatronStatus status) {
+        return patronService.getPatronsByStatus(status);
+    }
+
     public Optional<Patron> findPatron(String patronId) {
         return patronService.findPatronById(patronId);
     }
@@ -103,10 +503,28 @@ public class LibraryManagementSystem {
         return patronService.searchPatronsByName(name);
     }
 
+    public List<Patron> searchPatronsByName(String name, int limit) {
+        return patronService.searchPatronsByName(name, limit);
+    }
+
+    public List<Patron> findPatronsByEmail(String email) {
+        return patronService.findPatronsByEmail(email);
+    }
+
+    public List<Patron> findPatronsByPhone(String phoneNumber) {
+        return patronService.findPatronsByPhone(phoneNumber);
+    }
+
     // Lending Methods
     public BorrowRecord borrowBook(String patronId, String isbn) {
+        ensureWritable();
         try {
-            BorrowRecord record = lendingService.borrowBook(patronId, isbn);
+            BorrowRecord record = transactions.execute(circulationKeys(patronId, isbn), () -> {
+                BorrowRecord borrowed = lendingService.borrowBook(patronId, isbn);
+                // Collecting a held book completes the reservation it was held for
+                reservationService.completeReservation(patronId, isbn);
+                return borrowed;
+            });
             Logger.logInfo("Book successfully borrowed");
             return record;
         } catch (Exception e) {
@@ -116,28 +534,54 @@ public class LibraryManagementSystem {
     }
 
     public boolean returnBook(String patronId, String isbn) {
+        ensureWritable();
         try {
-            boolean success = lendingService.returnBook(patronId, isbn);
-            if (success) {
-                Logger.logInfo("Book successfully returned");
-                
-                // Notify next patron in reservation queue if any
-                if (reservationService instanceof ReservationServiceImpl) {
-                    ReservationServiceImpl reservationImpl = (ReservationServiceImpl) reservationService;
-                    reservationImpl.notifyBookAvailable(isbn);
+            return transactions.execute(circulationKeys(patronId, isbn), () -> {
+                boolean success = lendingService.returnBook(patronId, isbn);
+                if (success) {
+                    Logger.logInfo("Book successfully returned");
+
+                    // Hold the book for the next patron in the reservation queue, if any
+                    reservationService.notifyBookAvailable(isbn);
                 }
-            }
-            return success;
+                return success;
+            });
         } catch (Exception e) {
             Logger.logError("Failed to return book: " + e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Extends a loan by a full loan period from today, unless other patrons are
+     * waiting for the book or the loan is overdue.
+     */
+    public BorrowRecord renewBook(String patronId, String isbn) {
+        ensureWritable();
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        return transactions.execute(circulationKeys(patronId, isbn), () -> {
+            boolean othersWaiting = reservationService.getReservationsByBook(isbn).stream()
+                    .anyMatch(reservation -> !reservation.getPatronId().equals(patronId));
+            if (othersWaiting) {
+                throw new IllegalStateException("Cannot renew " + isbn + ": other patrons have reserved it");
+            }
+            return lendingService.renewBook(patronId, isbn);
+        });
+    }
+
     public List<BorrowRecord> getPatronBorrowingHistory(String patronId) {
         return lendingService.getBorrowingHistory(patronId);
     }
 
+    /**
+     * One page of a patron's loans, newest first; pass the returned page's cursor to get the next.
+     */
+    public BorrowingHistory.Page getPatronBorrowingHistory(String patronId, BorrowingHistory.Cursor after, int limit) {
+        return new BorrowingHistory(patronId, lendingService::getBorrowingHistory).page(after, limit);
+    }
+
     public List<BorrowRecord> getOverdueBooks() {
         return lendingService.getOverdueBooks();
     }
@@ -148,8 +592,10 @@ public class LibraryManagementSystem {
 
     // Reservation Methods
     public Reservation reserveBook(String patronId, String isbn) {
+        ensureWritable();
         try {
-            Reservation reservation = reservationService.reserveBook(patronId, isbn);
+            Reservation reservation = transactions.execute(circulationKeys(patronId, isbn),
+                    () -> reservationService.reserveBook(patronId, isbn));
             Logger.logInfo("Book successfully reserved");
             return reservation;
         } catch (Exception e) {
@@ -159,7 +605,35 @@ public class LibraryManagementSystem {
     }
 
     public boolean cancelReservation(String reservationId) {
-        return reservationService.cancelReservation(reservationId);
+        ensureWritable();
+        return transactions.execute(reservationKeys(reservationId),
+                () -> reservationService.cancelReservation(reservationId));
+    }
+
+    /**
+     * Cancels a reservation if it is still at {@code expectedVersion}; otherwise throws
+     * {@link VersionConflictException}.
+     */
+    public boolean cancelReservation(String reservationId, long expectedVersion) {
+        ensureWritable();
+        return transactions.execute(reservationKeys(reservationId),
+                () -> reservationService.cancelReservation(reservationId, expectedVersion));
+    }
+
+    private static Collection<String> circulationKeys(String patronId, String isbn) {
+        return List.of(TransactionManager.patronKey(patronId), TransactionManager.bookKey(isbn));
+    }
+
+    /**
+     * Cancelling a fulfilled reservation may pass its hold on, so the book is locked.
+     */
+    private Collection<String> reservationKeys(String reservationId) {
+        if (reservationId == null) {
+            return List.of();
+        }
+        return reservationService.findReservationById(reservationId)
+                .map(reservation -> List.of(TransactionManager.bookKey(reservation.getIsbn())))
+                .orElse(List.of());
     }
 
     public List<Reservation> getPatronReservations(String patronId) {
@@ -171,24 +645,106 @@ public class LibraryManagementSystem {
     }
 
     // Utility Methods
+
+    /**
+     * Expires reservations one at a time, each holding its book's lock like the
+     * other circulation methods.
+     */
     public void processExpiredReservations() {
-        reservationService.processExpiredReservations();
+        ensureWritable();
+        for (Reservation reservation : reservationService.getExpiredReservations()) {
+            transactions.execute(List.of(TransactionManager.bookKey(reservation.getIsbn())),
+                    () -> reservationService.expireReservation(reservation.getReservationId()));
+        }
+    }
+
+    /**
+     * Expires lapsed memberships and lifts suspensions and blocks that have run
+     * their course. Returns how many patrons changed status.
+     */
+    public int processPatronStatusChanges() {
+        ensureWritable();
+        return patronService.processStatusChanges(LocalDate.now());
+    }
+
+    /**
+     * Opens a point-in-time view of the catalog that stays consistent while lending continues.
+     */
+    public CatalogSnapshot openCatalogSnapshot() {
+        return bookService.openCatalogSnapshot();
+    }
+
+    /**
+     * Current inventory and circulation figures, read from counters the services
+     * maintain as they go rather than by scanning the catalog.
+     */
+    public MetricsSnapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Rolling rankings of the most borrowed titles and authors and the most active patrons.
+     */
+    public CirculationAnalytics getCirculationAnalytics() {
+        return circulationAnalytics;
+    }
+
+    /**
+     * Titles most often borrowed by the patrons who borrowed {@code isbn}.
+     */
+    public List<Recommendation> getAlsoBorrowed(String isbn, int limit) {
+        return alsoBorrowed.recommend(isbn, limit);
     }
 
     public void generateInventoryReport() {
-        List<Book> allBooks = bookService.getAllBooks();
-        List<Book> availableBooks = bookService.getAvailableBooks();
-        List<Book> borrowedBooks = bookService.getBorrowedBooks();
-        List<BorrowRecord> overdueBooks = lendingService.getOverdueBooks();
+        MetricsSnapshot report = metrics.snapshot();
 
         Logger.logInfo("=== LIBRARY INVENTORY REPORT ===");
-        Logger.logInfo("Total Books: " + allBooks.size());
-        Logger.logInfo("Available Books: " + availableBooks.size());
-        Logger.logInfo("Borrowed Books: " + borrowedBooks.size());
-        Logger.logInfo("Overdue Books: " + overdueBooks.size());
+        Logger.logInfo("Total Books: " + report.totalBooks());
+        Logger.logInfo("Available Books: " + report.booksWithStatus(BookStatus.AVAILABLE));
+        Logger.logInfo("Borrowed Books: " + report.booksWithStatus(BookStatus.BORROWED));
+        Logger.logInfo("Overdue Books: " + report.overdueLoans());
+        Logger.logInfo("Open Loans: " + report.openLoans());
+        Logger.logInfo("Active Reservations: " + report.activeReservations());
         Logger.logInfo("==============================");
     }
 
+    /**
+     * Sends any notification digests that are still waiting for their batching window.
+     */
+    public void flushNotifications() {
+        notificationBatcher.flush();
+    }
+
+    /**
+     * Flushes pending notifications, stops replication and closes the journal, if any.
+     */
+    @Override
+    public void close() {
+        flushNotifications();
+        if (standbyReplicator != null) {
+            standbyReplicator.close();
+        }
+        if (replicationServer != null) {
+            replicationServer.close();
+        }
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+            try {
+                snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ChangeStream stream = changeStream;
+        if (stream != null) {
+            stream.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
     // Getters for services (useful for testing or advanced operations)
     public BookService getBookService() {
         return bookService;
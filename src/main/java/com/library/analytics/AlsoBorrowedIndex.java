@@ -0,0 +1,156 @@
+package com.library.analytics;
+
+import com.library.events.BookBorrowed;
+import com.library.events.LibraryEvent;
+import com.library.models.BorrowRecord;
+import com.library.patterns.Observer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "Patrons who borrowed this also borrowed" index, maintained from the lending
+ * service's {@link BookBorrowed} events.
+ *
+ * <p>ISBNs are interned to {@code int} ids and each title keeps a sparse row of
+ * co-borrow counts in an {@link IntCountMap}. A borrow pairs the title with the
+ * patron's last few distinct borrows, so each event costs O(history). Rows
+ * that grow past twice the retained width are trimmed to their strongest
+ * entries. Memory is therefore bounded by titles, patrons and those two widths,
+ * not by how many loans have been made.
+ */
+public class AlsoBorrowedIndex implements Observer {
+    public static final int DEFAULT_NEIGHBOURS = 32;
+    public static final int DEFAULT_HISTORY = 20;
+
+    private final int neighbours;
+    private final int historyLength;
+    private final Map<String, Integer> isbnIds = new HashMap<>();
+    private final List<String> isbns = new ArrayList<>();
+    private final List<IntCountMap> rows = new ArrayList<>();
+    private final Map<String, RecentBorrows> recentByPatron = new HashMap<>();
+
+    public AlsoBorrowedIndex() {
+        this(DEFAULT_NEIGHBOURS, DEFAULT_HISTORY);
+    }
+
+    /**
+     * @param neighbours     how many co-borrowed titles each title retains
+     * @param historyLength  how many of a patron's recent titles a new borrow is paired with
+     */
+    public AlsoBorrowedIndex(int neighbours, int historyLength) {
+        if (neighbours < 1 || historyLength < 1) {
+            throw new IllegalArgumentException("Neighbour and history limits must be at least 1");
+        }
+        this.neighbours = neighbours;
+        this.historyLength = historyLength;
+    }
+
+    @Override
+    public boolean isInterestedIn(Class<? extends LibraryEvent> eventType) {
+        return eventType == BookBorrowed.class;
+    }
+
+    @Override
+    public void update(LibraryEvent event) {
+        if (event instanceof BookBorrowed borrowed) {
+            recordBorrow(borrowed.patronId(), borrowed.isbn());
+        }
+    }
+
+    /**
+     * Loads past loans, oldest first, e.g. after the library has been recovered from disk.
+     */
+    public void seed(List<BorrowRecord> records) {
+        List<BorrowRecord> ordered = new ArrayList<>(records);
+        ordered.sort(Comparator.comparing(BorrowRecord::getBorrowDate));
+        for (BorrowRecord record : ordered) {
+            recordBorrow(record.getPatronId(), record.getIsbn());
+        }
+    }
+
+    public synchronized void recordBorrow(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            return;
+        }
+        int item = idFor(isbn);
+        RecentBorrows recent = recentByPatron.computeIfAbsent(patronId, id -> new RecentBorrows(historyLength));
+        if (recent.contains(item)) {
+            return;
+        }
+        for (int i = 0; i < recent.size; i++) {
+            int other = recent.items[i];
+            increment(item, other);
+            increment(other, item);
+        }
+        recent.add(item);
+    }
+
+    /**
+     * Titles most often borrowed by the same patrons as {@code isbn}, strongest first.
+     */
+    public synchronized List<Recommendation> recommend(String isbn, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        Integer item = isbnIds.get(isbn);
+        if (item == null) {
+            return List.of();
+        }
+        int[] top = rows.get(item).top(Math.min(limit, neighbours));
+        List<Recommendation> recommendations = new ArrayList<>(top.length / 2);
+        for (int i = 0; i < top.length; i += 2) {
+            recommendations.add(new Recommendation(isbns.get(top[i]), top[i + 1]));
+        }
+        return recommendations;
+    }
+
+    private void increment(int item, int other) {
+        IntCountMap row = rows.get(item);
+        row.increment(other);
+        if (row.size() > neighbours * 2) {
+            row.retainTop(neighbours);
+        }
+    }
+
+    private int idFor(String isbn) {
+        Integer id = isbnIds.get(isbn);
+        if (id == null) {
+            id = isbns.size();
+            isbnIds.put(isbn, id);
+            isbns.add(isbn);
+            rows.add(new IntCountMap(neighbours));
+        }
+        return id;
+    }
+
+    /**
+     * A patron's last few distinct titles, oldest overwritten first.
+     */
+    private static final class RecentBorrows {
+        private final int[] items;
+        private int size;
+        private int next;
+
+        private RecentBorrows(int capacity) {
+            this.items = new int[capacity];
+        }
+
+        private boolean contains(int item) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == item) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(int item) {
+            items[next] = item;
+            next = (next + 1) % items.length;
+            size = Math.min(size + 1, items.length);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.library.analytics;
+
+import com.library.events.BookBorrowed;
+import com.library.events.BookReturned;
+import com.library.events.LibraryEvent;
+import com.library.patterns.Observer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streaming circulation rankings, fed by the lending service's events.
+ * Keeps approximate top-k counts of the most borrowed titles (by ISBN) and
+ * authors and of the most active patrons (borrows plus returns) over a
+ * sliding window, so the rankings cost the same however much history exists.
+ */
+public class CirculationAnalytics implements Observer {
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final Duration DEFAULT_WINDOW = Duration.ofDays(30);
+    public static final Duration DEFAULT_BUCKET = Duration.ofDays(1);
+
+    private final TopKTracker titles;
+    private final TopKTracker authors;
+    private final TopKTracker patrons;
+
+    public CirculationAnalytics() {
+        this(DEFAULT_CAPACITY, DEFAULT_WINDOW, DEFAULT_BUCKET, Clock.systemUTC());
+    }
+
+    public CirculationAnalytics(int capacity, Duration window, Duration bucketLength, Clock clock) {
+        this.titles = new TopKTracker(capacity, window, bucketLength, clock);
+        this.authors = new TopKTracker(capacity, window, bucketLength, clock);
+        this.patrons = new TopKTracker(capacity, window, bucketLength, clock);
+    }
+
+    @Override
+    public boolean isInterestedIn(Class<? extends LibraryEvent> eventType) {
+        return eventType == BookBorrowed.class || eventType == BookReturned.class;
+    }
+
+    @Override
+    public void update(LibraryEvent event) {
+        if (event instanceof BookBorrowed borrowed) {
+            titles.record(borrowed.isbn());
+            authors.record(borrowed.author());
+            patrons.record(borrowed.patronId());
+        } else if (event instanceof BookReturned returned) {
+            patrons.record(returned.patronId());
+        }
+    }
+
+    /**
+     * Most borrowed ISBNs in the window, most borrowed first.
+     */
+    public List<HeavyHitter> topTitles(int k) {
+        return titles.topK(k);
+    }
+
+    public List<HeavyHitter> topAuthors(int k) {
+        return authors.topK(k);
+    }
+
+    /**
+     * Patrons with the most borrows and returns in the window.
+     */
+    public List<HeavyHitter> topPatrons(int k) {
+        return patrons.topK(k);
+    }
+
+    public long estimateBorrows(String isbn) {
+        return titles.estimate(isbn);
+    }
+}
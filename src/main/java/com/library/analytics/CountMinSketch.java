@@ -0,0 +1,64 @@
+package com.library.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch of {@code int} counters over four hash rows. Estimates never
+ * undercount; they overcount by at most a small fraction of the total added,
+ * shrinking as the width grows. Sketches of the same width can be added to and
+ * subtracted from each other, which is how a sliding window drops an expired bucket.
+ */
+final class CountMinSketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final int[] table;
+    private final int rowMask;
+    private final int rowShift;
+
+    CountMinSketch(int width) {
+        int rowLength = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.table = new int[rowLength * SEEDS.length];
+        this.rowMask = rowLength - 1;
+        this.rowShift = Integer.numberOfTrailingZeros(rowLength);
+    }
+
+    void add(String key, int count) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < SEEDS.length; row++) {
+            table[index(hash, row)] += count;
+        }
+    }
+
+    long estimate(String key) {
+        int hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            estimate = Math.min(estimate, table[index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    void subtract(CountMinSketch other) {
+        for (int i = 0; i < table.length; i++) {
+            table[i] -= other.table[i];
+        }
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    private int index(int hash, int row) {
+        long slot = (hash + SEEDS[row]) * SEEDS[row];
+        slot += slot >>> 32;
+        return (row << rowShift) | ((int) slot & rowMask);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,8 @@
+package com.library.analytics;
+
+/**
+ * A key that ranks among the most frequent in a window, with its estimated
+ * occurrence count. The estimate may overcount slightly but never undercounts.
+ */
+public record HeavyHitter(String key, long count) {
+}
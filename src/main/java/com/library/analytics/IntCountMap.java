@@ -0,0 +1,145 @@
+package com.library.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative {@code int} keys to {@code int} counts,
+ * with no boxing. Supports trimming down to its highest counts, which is how
+ * co-occurrence rows stay bounded. Not thread-safe.
+ */
+final class IntCountMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    IntCountMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    void increment(int key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                counts[index]++;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        counts[index] = 1;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Keeps only the {@code limit} entries with the highest counts.
+     */
+    void retainTop(int limit) {
+        if (size <= limit) {
+            return;
+        }
+        int[] sorted = new int[size];
+        int filled = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                sorted[filled++] = counts[i];
+            }
+        }
+        Arrays.sort(sorted);
+        int threshold = sorted[size - limit];
+        int atThreshold = 0;
+        for (int i = size - limit; i < size && sorted[i] == threshold; i++) {
+            atThreshold++;
+        }
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(keys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY || oldCounts[i] < threshold) {
+                continue;
+            }
+            if (oldCounts[i] == threshold) {
+                if (atThreshold == 0) {
+                    continue;
+                }
+                atThreshold--;
+            }
+            put(oldKeys[i], oldCounts[i]);
+        }
+    }
+
+    /**
+     * Returns the keys of the {@code limit} highest counts, highest first, as
+     * {@code [key, count]} pairs packed into one array.
+     */
+    int[] top(int limit) {
+        int n = Math.min(limit, size);
+        int[] result = new int[n * 2];
+        int filled = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY) {
+                continue;
+            }
+            // Insertion into a short sorted prefix; n is small
+            int position = filled;
+            while (position > 0 && counts[i] > result[(position - 1) * 2 + 1]) {
+                position--;
+            }
+            if (position >= n) {
+                continue;
+            }
+            int moved = Math.min(filled, n - 1) - position;
+            System.arraycopy(result, position * 2, result, (position + 1) * 2, moved * 2);
+            result[position * 2] = keys[i];
+            result[position * 2 + 1] = counts[i];
+            filled = Math.min(filled + 1, n);
+        }
+        return result;
+    }
+
+    private void put(int key, int count) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        counts[index] = count;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,8 @@
+package com.library.analytics;
+
+/**
+ * A title suggested alongside another, scored by how many times the two were
+ * borrowed by the same patron close together.
+ */
+public record Recommendation(String isbn, int score) {
+}
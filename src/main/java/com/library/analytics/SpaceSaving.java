@@ -0,0 +1,63 @@
+package com.library.analytics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving summary: tracks at most {@code capacity} keys, and when a new key
+ * arrives while full it takes over the counter of the least frequent one. Any key
+ * occurring more than {@code total / capacity} times is guaranteed to be tracked.
+ * Not thread-safe; {@link TopKTracker} guards it.
+ */
+final class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final TreeSet<Counter> byCount = new TreeSet<>((a, b) -> {
+        int order = Long.compare(a.count, b.count);
+        return order != 0 ? order : a.key.compareTo(b.key);
+    });
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key, 0);
+            } else {
+                Counter evicted = byCount.pollFirst();
+                counters.remove(evicted.key);
+                counter = new Counter(key, evicted.count);
+            }
+            counters.put(key, counter);
+        } else {
+            byCount.remove(counter);
+        }
+        counter.count++;
+        byCount.add(counter);
+    }
+
+    Collection<String> keys() {
+        return counters.keySet();
+    }
+
+    void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+
+    private static final class Counter {
+        private final String key;
+        private long count;
+
+        private Counter(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
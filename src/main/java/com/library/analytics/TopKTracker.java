@@ -0,0 +1,160 @@
+package com.library.analytics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Approximate top-k over a sliding time window, in memory bounded by the window
+ * shape rather than by how many events have been seen.
+ *
+ * <p>The window is a ring of fixed-length buckets. Each bucket keeps a
+ * {@link SpaceSaving} summary naming its candidate heavy hitters and a
+ * {@link CountMinSketch} of its counts; a window-wide sketch holds the sum of the
+ * live buckets, so estimating a key costs four array reads. The current top
+ * {@code capacity} keys are kept ranked as events arrive, so recording is
+ * O(log capacity) and reading the ranking copies at most {@code k} entries.
+ * When a bucket falls out of the window its sketch is subtracted from the sum,
+ * it is reused, and the ranking is rebuilt from the live buckets' candidates.
+ */
+public class TopKTracker {
+    private final int capacity;
+    private final long bucketMillis;
+    private final Clock clock;
+    private final Bucket[] buckets;
+    private final CountMinSketch windowSketch;
+    private final Map<String, HeavyHitter> leaders = new HashMap<>();
+    private final TreeSet<HeavyHitter> ranking = new TreeSet<>(
+            Comparator.comparingLong(HeavyHitter::count).reversed().thenComparing(HeavyHitter::key));
+    private long currentBucket = Long.MIN_VALUE;
+
+    /**
+     * @param capacity      the largest {@code k} that can be asked for; each bucket tracks this many candidates
+     * @param window        how far back the counts reach
+     * @param bucketLength  granularity at which old events leave the window
+     */
+    public TopKTracker(int capacity, Duration window, Duration bucketLength, Clock clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        if (window == null || bucketLength == null || bucketLength.isNegative() || bucketLength.isZero()
+                || window.compareTo(bucketLength) < 0) {
+            throw new IllegalArgumentException("Window must span at least one positive bucket length");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.capacity = capacity;
+        this.bucketMillis = bucketLength.toMillis();
+        this.clock = clock;
+        int sketchWidth = capacity * 8;
+        this.buckets = new Bucket[(int) ((window.toMillis() + bucketMillis - 1) / bucketMillis)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket(capacity, sketchWidth);
+        }
+        this.windowSketch = new CountMinSketch(sketchWidth);
+    }
+
+    public synchronized void record(String key) {
+        if (key == null) {
+            return;
+        }
+        Bucket bucket = advance();
+        bucket.summary.add(key);
+        bucket.sketch.add(key, 1);
+        windowSketch.add(key, 1);
+        offer(key, windowSketch.estimate(key));
+    }
+
+    /**
+     * Estimated number of times {@code key} was recorded within the window.
+     */
+    public synchronized long estimate(String key) {
+        advance();
+        return windowSketch.estimate(key);
+    }
+
+    /**
+     * The {@code k} most frequent keys in the window, most frequent first.
+     */
+    public synchronized List<HeavyHitter> topK(int k) {
+        if (k < 1 || k > capacity) {
+            throw new IllegalArgumentException("k must be between 1 and " + capacity);
+        }
+        advance();
+        return ranking.stream().limit(k).toList();
+    }
+
+    private void offer(String key, long count) {
+        HeavyHitter previous = leaders.get(key);
+        if (previous != null) {
+            ranking.remove(previous);
+        } else if (leaders.size() == capacity) {
+            if (count <= ranking.last().count()) {
+                return;
+            }
+            leaders.remove(ranking.pollLast().key());
+        }
+        HeavyHitter hitter = new HeavyHitter(key, count);
+        leaders.put(key, hitter);
+        ranking.add(hitter);
+    }
+
+    private void rerank() {
+        leaders.clear();
+        ranking.clear();
+        for (Bucket bucket : buckets) {
+            for (String key : bucket.summary.keys()) {
+                if (!leaders.containsKey(key)) {
+                    offer(key, windowSketch.estimate(key));
+                }
+            }
+        }
+    }
+
+    /**
+     * Expires buckets that have left the window and returns the one covering now.
+     */
+    private Bucket advance() {
+        // Never step backwards if the clock does
+        long now = Math.max(currentBucket, Math.floorDiv(clock.millis(), bucketMillis));
+        if (now != currentBucket) {
+            boolean expired = false;
+            long expireFrom = Math.max(currentBucket + 1, now - buckets.length + 1);
+            for (long index = expireFrom; index <= now; index++) {
+                Bucket bucket = buckets[(int) Math.floorMod(index, (long) buckets.length)];
+                if (bucket.index != index) {
+                    expired |= bucket.index != Long.MIN_VALUE;
+                    windowSketch.subtract(bucket.sketch);
+                    bucket.reset(index);
+                }
+            }
+            currentBucket = now;
+            if (expired) {
+                rerank();
+            }
+        }
+        return buckets[(int) Math.floorMod(now, (long) buckets.length)];
+    }
+
+    private static final class Bucket {
+        private final SpaceSaving summary;
+        private final CountMinSketch sketch;
+        private long index = Long.MIN_VALUE;
+
+        private Bucket(int capacity, int sketchWidth) {
+            this.summary = new SpaceSaving(capacity);
+            this.sketch = new CountMinSketch(sketchWidth);
+        }
+
+        private void reset(long index) {
+            summary.clear();
+            sketch.clear();
+            this.index = index;
+        }
+    }
+}
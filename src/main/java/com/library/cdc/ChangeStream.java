@@ -0,0 +1,575 @@
+package com.library.cdc;
+
+import com.library.persistence.Journal;
+import com.library.persistence.JournalListener;
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationCodec;
+import com.library.utils.Logger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Every change made to the library as an ordered stream that downstream systems
+ * read incrementally instead of polling and diffing the catalog.
+ *
+ * <p>A change is a journaled {@link Mutation}, published once it is durable; its
+ * offset is its journal LSN. Grouped changes, e.g. a return and the hold it
+ * fulfils, are preceded by a {@link com.library.persistence.MutationType#TRANSACTION}
+ * record counting them. The newest changes are kept in a fixed-size ring, which
+ * serves readers that keep up. Every change is also appended to spill segments on
+ * disk, from which readers that fall behind the ring are served.
+ *
+ * <p>Readers either {@linkplain #read(long, int) read from an offset} or
+ * {@linkplain #subscribe(String) subscribe} under a consumer ID, whose committed
+ * position survives restarts. A spill segment is deleted once every consumer has
+ * committed past it; until a consumer commits, only the newest segments up to a
+ * retained size are kept.
+ *
+ * <p>Spill writes are not forced one by one. After a crash the stream refills its
+ * tail from the journal, which is why {@link #sync()} must run before journal
+ * segments are deleted. A spill write that fails stops the stream rather than
+ * leave a gap: changes published before it stay readable, reads past them and
+ * {@link #sync()} throw, and reopening the stream refills the rest from the journal.
+ */
+public class ChangeStream implements JournalListener, AutoCloseable {
+    private static final String SEGMENT_PREFIX = "changes-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OFFSET_SUFFIX = ".offset";
+    private static final Pattern CONSUMER_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final int INDEX_INTERVAL = 1024;
+    private static final long DEFAULT_RETAINED_BYTES = 16 * SEGMENT_BYTES;
+
+    private final Path directory;
+    private final Path consumerDirectory;
+    private final long retainedBytes;
+    private final Mutation[] ring;
+    private final int ringMask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<String, Long> committedPositions = new ConcurrentHashMap<>();
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private FileChannel channel;
+    private long ringFirstOffset = 1;
+    private long lastOffset;
+    private boolean closed;
+    private IOException failure;
+    private volatile Journal journal;
+
+    /**
+     * One spill file, with the file position of every {@value #INDEX_INTERVAL}th change.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final long firstOffset;
+        private final NavigableMap<Long, Long> index = new TreeMap<>();
+        private long length;
+        private int frames;
+
+        private Segment(Path path, long firstOffset) {
+            this.path = path;
+            this.firstOffset = firstOffset;
+        }
+    }
+
+    /**
+     * Opens the stream kept under {@code directory}, holding the newest
+     * {@code ringCapacity} changes in memory (rounded up to a power of two).
+     */
+    public ChangeStream(Path directory, int ringCapacity) {
+        this(directory, ringCapacity, DEFAULT_RETAINED_BYTES);
+    }
+
+    /**
+     * Like {@link #ChangeStream(Path, int)}, keeping about {@code retainedBytes} of
+     * spilled changes while no consumer has committed a position.
+     */
+    public ChangeStream(Path directory, int ringCapacity, long retainedBytes) {
+        if (ringCapacity < 1 || ringCapacity > 1 << 24) {
+            throw new IllegalArgumentException("Ring capacity must be between 1 and " + (1 << 24));
+        }
+        if (retainedBytes < 1) {
+            throw new IllegalArgumentException("Retained bytes must be positive");
+        }
+        this.retainedBytes = retainedBytes;
+        int capacity = ringCapacity == 1 ? 1 : Integer.highestOneBit(ringCapacity - 1) << 1;
+        this.ring = new Mutation[capacity];
+        this.ringMask = capacity - 1;
+        this.directory = directory;
+        this.consumerDirectory = directory.resolve("consumers");
+        try {
+            Files.createDirectories(consumerDirectory);
+            recoverSegments();
+            loadCommittedPositions();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open change stream in " + directory, e);
+        }
+        ringFirstOffset = lastOffset + 1;
+        deleteConsumedSegments();
+    }
+
+    /**
+     * Publishes whatever the journal holds beyond this stream's last offset, then
+     * follows the journal's durable writes. The journal may be taking appends
+     * meanwhile: changes are published in offset order without gaps either way.
+     */
+    public void attach(Journal journal) {
+        long firstAvailable = journal.getFirstAvailableLsn();
+        lock.lock();
+        try {
+            if (firstAvailable > lastOffset + 1) {
+                if (lastOffset > 0) {
+                    Logger.logWarning("Change stream is missing offsets " + (lastOffset + 1) + " to "
+                            + (firstAvailable - 1) + "; the journal no longer holds them");
+                }
+                // Carry on from the oldest change the journal still holds
+                lastOffset = firstAvailable - 1;
+                ringFirstOffset = Math.max(ringFirstOffset, firstAvailable);
+            }
+        } finally {
+            lock.unlock();
+        }
+        this.journal = journal;
+        journal.addListener(this);
+        journal.replay(lastOffset(), this::publish);
+    }
+
+    @Override
+    public void onDurable(ByteBuffer frames, long lastLsn) {
+        Mutation mutation = MutationCodec.readFrame(frames);
+        if (mutation != null && mutation.lsn() > lastOffset() + 1) {
+            // Attached while this batch was in flight: catch up from the journal first
+            try {
+                journal.replay(lastOffset(), this::publish);
+            } catch (UncheckedIOException e) {
+                fail(e.getCause(), mutation.lsn());
+            }
+        }
+        for (; mutation != null; mutation = MutationCodec.readFrame(frames)) {
+            publish(mutation);
+        }
+    }
+
+    private void publish(Mutation mutation) {
+        lock.lock();
+        try {
+            if (closed || failure != null || mutation.lsn() <= lastOffset) {
+                return;
+            }
+            if (mutation.lsn() != lastOffset + 1) {
+                fail(new IOException("Expected offset " + (lastOffset + 1) + " but the journal delivered "
+                        + mutation.lsn()), mutation.lsn());
+                return;
+            }
+            spill(mutation);
+            ring[(int) (mutation.lsn() & ringMask)] = mutation;
+            lastOffset = mutation.lsn();
+            ringFirstOffset = Math.max(ringFirstOffset, lastOffset - ringMask);
+            published.signalAll();
+        } catch (IOException e) {
+            fail(e, mutation.lsn());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops publishing, since publishing later changes would leave a gap readers cannot see.
+     */
+    private void fail(IOException cause, long offset) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = cause;
+                published.signalAll();
+                Logger.logError("Change stream stopped at offset " + lastOffset + ": failed to publish change "
+                        + offset + ": " + cause.getMessage());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The oldest offset still readable.
+     */
+    public long firstOffset() {
+        lock.lock();
+        try {
+            return segments.isEmpty() ? ringFirstOffset : segments.firstKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The newest offset published, or 0 if there is none.
+     */
+    public long lastOffset() {
+        lock.lock();
+        try {
+            return lastOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Up to {@code maxChanges} changes in offset order, starting at {@code position}.
+     * Returns an empty list if nothing has been published there yet.
+     */
+    public List<Mutation> read(long position, int maxChanges) {
+        if (maxChanges < 1) {
+            throw new IllegalArgumentException("Max changes must be at least 1");
+        }
+        List<SpillRange> ranges;
+        lock.lock();
+        try {
+            if (position > lastOffset) {
+                checkNotFailed();
+                return List.of();
+            }
+            long first = segments.isEmpty() ? ringFirstOffset : segments.firstKey();
+            if (position < first) {
+                throw new IllegalStateException("Changes before offset " + first + " are no longer retained");
+            }
+            if (position >= ringFirstOffset) {
+                List<Mutation> changes = new ArrayList<>(Math.min(maxChanges, 1024));
+                for (long offset = position; offset <= lastOffset && changes.size() < maxChanges; offset++) {
+                    Mutation change = ring[(int) (offset & ringMask)];
+                    if (change != null && change.lsn() == offset) {
+                        changes.add(change);
+                    }
+                }
+                return changes;
+            }
+            // Behind the ring: read from disk, outside the lock so publishing carries on
+            flushWriteBuffer();
+            ranges = spillRanges(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush change spill", e);
+        } finally {
+            lock.unlock();
+        }
+        return readSpilled(ranges, position, maxChanges);
+    }
+
+    /**
+     * Subscribes as {@code consumerId}, resuming from its committed position or,
+     * for a new consumer, starting with the oldest change retained.
+     */
+    public ChangeSubscription subscribe(String consumerId) {
+        validateConsumerId(consumerId);
+        Long committed = committedPositions.get(consumerId);
+        return new ChangeSubscription(this, consumerId, committed != null ? committed : firstOffset());
+    }
+
+    /**
+     * Subscribes as {@code consumerId} starting at {@code position}, whatever it committed before.
+     */
+    public ChangeSubscription subscribe(String consumerId, long position) {
+        validateConsumerId(consumerId);
+        if (position < 1) {
+            throw new IllegalArgumentException("Position must be at least 1");
+        }
+        return new ChangeSubscription(this, consumerId, position);
+    }
+
+    /**
+     * Forgets a consumer, so spill segments are no longer kept for it.
+     */
+    public void removeConsumer(String consumerId) {
+        validateConsumerId(consumerId);
+        try {
+            Files.deleteIfExists(consumerDirectory.resolve(consumerId + OFFSET_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot remove consumer " + consumerId, e);
+        }
+        committedPositions.remove(consumerId);
+        deleteConsumedSegments();
+    }
+
+    /**
+     * Committed positions by consumer ID.
+     */
+    public Map<String, Long> getCommittedPositions() {
+        return Collections.unmodifiableMap(new TreeMap<>(committedPositions));
+    }
+
+    /**
+     * Forces everything published so far to disk.
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            checkNotFailed();
+            flushWriteBuffer();
+            if (channel != null) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync change spill", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (failure == null) {
+                flushWriteBuffer();
+                if (channel != null) {
+                    channel.force(false);
+                }
+            }
+            if (channel != null) {
+                // After a failure the spill may end in a torn frame, which reopening truncates
+                channel.close();
+            }
+            closed = true;
+            published.signalAll();
+        } catch (IOException e) {
+            Logger.logError("Failed to close change stream: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a change at or after {@code position} is published, the stream
+     * closes or the timeout passes.
+     */
+    void awaitChanges(long position, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (lastOffset < position && !closed && failure == null && remaining > 0) {
+                remaining = published.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void commit(String consumerId, long position) {
+        Path file = consumerDirectory.resolve(consumerId + OFFSET_SUFFIX);
+        Path temporary = consumerDirectory.resolve(consumerId + OFFSET_SUFFIX + ".tmp");
+        try {
+            Files.writeString(temporary, Long.toString(position), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot commit position of consumer " + consumerId, e);
+        }
+        committedPositions.put(consumerId, position);
+        deleteConsumedSegments();
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Change stream stopped after offset " + lastOffset
+                    + "; reopen it to refill the rest from the journal", failure);
+        }
+    }
+
+    private void spill(Mutation mutation) throws IOException {
+        byte[] payload = MutationCodec.encodePayload(mutation);
+        int frameSize = MutationCodec.frameSize(payload);
+        Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (segment == null || segment.length + frameSize > SEGMENT_BYTES && segment.frames > 0) {
+            segment = openSegment(mutation.lsn());
+        }
+        if (segment.frames % INDEX_INTERVAL == 0) {
+            segment.index.put(mutation.lsn(), segment.length);
+        }
+        if (writeBuffer.remaining() < frameSize) {
+            flushWriteBuffer();
+            if (writeBuffer.capacity() < frameSize) {
+                writeBuffer = ByteBuffer.allocate(frameSize);
+            }
+        }
+        MutationCodec.writeFrame(payload, writeBuffer);
+        segment.length += frameSize;
+        segment.frames++;
+    }
+
+    private Segment openSegment(long firstOffset) throws IOException {
+        flushWriteBuffer();
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstOffset, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        Segment segment = new Segment(path, firstOffset);
+        segments.put(firstOffset, segment);
+        deleteConsumedSegments();
+        return segment;
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        if (writeBuffer.position() == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private record SpillRange(Path path, long start, long end) {
+    }
+
+    /**
+     * The written extent of each segment from the one holding {@code position} onwards.
+     */
+    private List<SpillRange> spillRanges(long position) {
+        List<SpillRange> ranges = new ArrayList<>();
+        Map.Entry<Long, Segment> first = segments.floorEntry(position);
+        for (Segment segment : segments.tailMap(first.getKey(), true).values()) {
+            long start = 0;
+            if (segment == first.getValue()) {
+                Map.Entry<Long, Long> indexed = segment.index.floorEntry(position);
+                start = indexed == null ? 0 : indexed.getValue();
+            }
+            ranges.add(new SpillRange(segment.path, start, segment.length));
+        }
+        return ranges;
+    }
+
+    private List<Mutation> readSpilled(List<SpillRange> ranges, long position, int maxChanges) {
+        List<Mutation> changes = new ArrayList<>(Math.min(maxChanges, 1024));
+        for (SpillRange range : ranges) {
+            try (FileChannel file = FileChannel.open(range.path(), StandardOpenOption.READ)) {
+                MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, range.start(),
+                        range.end() - range.start());
+                Mutation change;
+                while ((change = MutationCodec.readFrame(data)) != null) {
+                    if (change.lsn() >= position) {
+                        changes.add(change);
+                        if (changes.size() == maxChanges) {
+                            return changes;
+                        }
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                throw new IllegalStateException("Changes from offset " + position + " are no longer retained", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read change spill " + range.path(), e);
+            }
+        }
+        return changes;
+    }
+
+    private void deleteConsumedSegments() {
+        lock.lock();
+        try {
+            if (committedPositions.isEmpty()) {
+                // Nobody to keep changes for: keep the newest segments up to the retained size
+                long total = 0;
+                for (Segment segment : segments.values()) {
+                    total += segment.length;
+                }
+                while (segments.size() > 1 && total > retainedBytes) {
+                    Segment oldest = segments.pollFirstEntry().getValue();
+                    total -= oldest.length;
+                    Files.deleteIfExists(oldest.path);
+                }
+                return;
+            }
+            long oldestPosition = Collections.min(committedPositions.values());
+            // A segment can go once the one after it starts at or below every consumer's position
+            while (segments.size() > 1 && segments.higherKey(segments.firstKey()) <= oldestPosition) {
+                Files.deleteIfExists(segments.pollFirstEntry().getValue().path);
+            }
+        } catch (IOException e) {
+            Logger.logWarning("Failed to delete consumed change segments: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recoverSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> listing = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            listing.forEach(files::add);
+        }
+        files.sort(null);
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            Segment segment = new Segment(path,
+                    Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (file.size() > 0) {
+                    MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                    int start = 0;
+                    Mutation change;
+                    while ((change = MutationCodec.readFrame(data)) != null) {
+                        if (segment.frames++ % INDEX_INTERVAL == 0) {
+                            segment.index.put(change.lsn(), (long) start);
+                        }
+                        lastOffset = change.lsn();
+                        start = data.position();
+                    }
+                    segment.length = start;
+                    if (file.size() > start) {
+                        // A spill write cut short by a crash; the journal still holds the change
+                        file.truncate(start);
+                    }
+                }
+            }
+            if (segment.frames == 0) {
+                Files.delete(path);
+            } else {
+                segments.put(segment.firstOffset, segment);
+            }
+        }
+        if (!segments.isEmpty()) {
+            channel = FileChannel.open(segments.lastEntry().getValue().path, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+
+    private void loadCommittedPositions() throws IOException {
+        try (DirectoryStream<Path> listing = Files.newDirectoryStream(consumerDirectory, "*" + OFFSET_SUFFIX)) {
+            for (Path file : listing) {
+                String name = file.getFileName().toString();
+                committedPositions.put(name.substring(0, name.length() - OFFSET_SUFFIX.length()),
+                        Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim()));
+            }
+        }
+    }
+
+    private static void validateConsumerId(String consumerId) {
+        if (consumerId == null || !CONSUMER_ID.matcher(consumerId).matches()) {
+            throw new IllegalArgumentException("Consumer ID must be 1 to 64 letters, digits, '.', '_' or '-'");
+        }
+    }
+}
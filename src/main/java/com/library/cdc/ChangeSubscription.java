@@ -0,0 +1,75 @@
+package com.library.cdc;
+
+import com.library.persistence.Mutation;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * One consumer's cursor over a {@link ChangeStream}.
+ *
+ * <p>{@link #poll(int, Duration)} returns the next batch and moves past it;
+ * {@link #commit()} records the position so that after a restart the consumer
+ * resumes from there. Changes polled but not committed are delivered again
+ * after a restart, so consumers should apply them idempotently, e.g. by offset.
+ * A subscription is meant for one thread.
+ */
+public class ChangeSubscription {
+    private final ChangeStream stream;
+    private final String consumerId;
+    private long position;
+
+    ChangeSubscription(ChangeStream stream, String consumerId, long position) {
+        this.stream = stream;
+        this.consumerId = consumerId;
+        this.position = position;
+    }
+
+    /**
+     * Returns up to {@code maxChanges} changes from the current position, waiting up
+     * to {@code timeout} for the first one. Returns an empty list on timeout, and
+     * throws {@link java.io.UncheckedIOException} once the stream has stopped on a
+     * failed spill write and everything it published has been polled.
+     */
+    public List<Mutation> poll(int maxChanges, Duration timeout) throws InterruptedException {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout cannot be null or negative");
+        }
+        List<Mutation> changes = stream.read(position, maxChanges);
+        if (changes.isEmpty() && !timeout.isZero()) {
+            stream.awaitChanges(position, timeout);
+            changes = stream.read(position, maxChanges);
+        }
+        if (!changes.isEmpty()) {
+            position = changes.get(changes.size() - 1).lsn() + 1;
+        }
+        return changes;
+    }
+
+    /**
+     * Records the current position as this consumer's resume point.
+     */
+    public void commit() {
+        stream.commit(consumerId, position);
+    }
+
+    /**
+     * Moves to {@code position}; the next poll starts there.
+     */
+    public void seek(long position) {
+        if (position < 1) {
+            throw new IllegalArgumentException("Position must be at least 1");
+        }
+        this.position = position;
+    }
+
+    /**
+     * The offset of the next change to be polled.
+     */
+    public long position() {
+        return position;
+    }
+
+    public String getConsumerId() {
+        return consumerId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.events;
+
+import java.time.LocalDate;
+
+/**
+ * Published when a patron checks out a book.
+ */
+public record BookBorrowed(String recordId, String patronId, String isbn, String title,
+                           String author, String patronName, LocalDate dueDate) implements LibraryEvent {
+
+    @Override
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String getPatronId() {
+        return patronId;
+    }
+
+    @Override
+    public String describe() {
+        return "Book '" + title + "' has been borrowed by " + patronName;
+    }
+}
@@ -0,0 +1,23 @@
+package com.library.events;
+
+/**
+ * Published when a patron returns a book.
+ */
+public record BookReturned(String recordId, String patronId, String isbn, String title,
+                           String patronName, double fineAmount) implements LibraryEvent {
+
+    @Override
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String getPatronId() {
+        return patronId;
+    }
+
+    @Override
+    public String describe() {
+        return "Book '" + title + "' has been returned by " + patronName;
+    }
+}
@@ -0,0 +1,23 @@
+package com.library.events;
+
+/**
+ * Published when a reserved book becomes available for the next patron in the queue.
+ */
+public record HoldAvailable(String reservationId, String patronId, String isbn, String title,
+                            String patronName) implements LibraryEvent {
+
+    @Override
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String getPatronId() {
+        return patronId;
+    }
+
+    @Override
+    public String describe() {
+        return "Reserved book '" + title + "' is now available for pickup by " + patronName;
+    }
+}
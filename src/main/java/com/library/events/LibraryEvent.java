@@ -0,0 +1,16 @@
+package com.library.events;
+
+/**
+ * Base type for the typed domain events published through the Observer pattern.
+ * Events carry IDs and references to existing values only; the human-readable text
+ * is rendered lazily by {@link #describe()} when an observer actually needs it.
+ */
+public sealed interface LibraryEvent
+        permits BookBorrowed, BookReturned, ReservationCreated, HoldAvailable, ReservationExpired {
+
+    String getIsbn();
+
+    String getPatronId();
+
+    String describe();
+}
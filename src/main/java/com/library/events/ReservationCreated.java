@@ -0,0 +1,23 @@
+package com.library.events;
+
+/**
+ * Published when a patron places a reservation on a checked-out book.
+ */
+public record ReservationCreated(String reservationId, String patronId, String isbn, String title,
+                                 String patronName) implements LibraryEvent {
+
+    @Override
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String getPatronId() {
+        return patronId;
+    }
+
+    @Override
+    public String describe() {
+        return "Reservation created for '" + title + "' by " + patronName;
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.events;
+
+/**
+ * Published when an active reservation passes its expiry date.
+ */
+public record ReservationExpired(String reservationId, String patronId, String isbn) implements LibraryEvent {
+
+    @Override
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String getPatronId() {
+        return patronId;
+    }
+
+    @Override
+    public String describe() {
+        return "Reservation " + reservationId + " for ISBN " + isbn + " has expired";
+    }
+}
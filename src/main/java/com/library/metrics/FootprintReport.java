@@ -0,0 +1,157 @@
+package com.library.metrics;
+
+import com.library.models.Book;
+import com.library.models.BorrowRecord;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the heap retained per book and per borrow record by building many of
+ * them the way a loader does, from freshly read strings and dates, and comparing
+ * used heap before and after. ISBNs and patron IDs that the objects share with
+ * the catalog and patron list exist before measuring starts, so only what each
+ * object adds is counted.
+ *
+ * <p>Each figure is the median of several runs after warm-up runs are discarded,
+ * since a collection can leave objects from an earlier run behind. Run with
+ * {@code java -XX:+UseSerialGC com.library.metrics.FootprintReport [count]}; the
+ * serial collector gives the steadiest readings.
+ */
+public final class FootprintReport {
+    private static final int DEFAULT_COUNT = 200_000;
+    private static final int AUTHORS = 1_000;
+    private static final int PATRONS = 10_000;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 3;
+
+    private final int count;
+    private final List<Entry> entries;
+
+    private FootprintReport(int count, List<Entry> entries) {
+        this.count = count;
+        this.entries = entries;
+    }
+
+    public static FootprintReport measure(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be at least 1");
+        }
+        String[] isbns = new String[count];
+        String[] patronIds = new String[PATRONS];
+        for (int i = 0; i < count; i++) {
+            isbns[i] = isbn(i).intern();
+        }
+        for (int i = 0; i < PATRONS; i++) {
+            patronIds[i] = patronId(i).intern();
+        }
+        LocalDate today = LocalDate.now();
+        List<Entry> entries = new ArrayList<>();
+        entries.add(new Entry("Book, available", bytesPerObject(count, i ->
+                new Book(isbn(i), "Title " + i, author(i), 1900 + i % 120))));
+        entries.add(new Entry("Book, borrowed", bytesPerObject(count, i -> {
+            Book book = new Book(isbn(i), "Title " + i, author(i), 1900 + i % 120);
+            book.borrowBook(patronId(i % PATRONS), day(today, -i % 14), day(today, 14 - i % 14));
+            return book;
+        })));
+        entries.add(new Entry("BorrowRecord, open", bytesPerObject(count, i ->
+                new BorrowRecord("RECORD-" + i, patronId(i % PATRONS), isbn(i), day(today, -i % 14),
+                        day(today, 14 - i % 14)))));
+        entries.add(new Entry("BorrowRecord, returned", bytesPerObject(count, i -> {
+            BorrowRecord record = new BorrowRecord("RECORD-" + i, patronId(i % PATRONS), isbn(i),
+                    day(today, -30 - i % 14), day(today, -16 - i % 14));
+            record.setReturnDate(day(today, -i % 20));
+            record.setFineAmount(i % 5);
+            return record;
+        })));
+        // The shared strings must stay reachable until every measurement is done
+        Reference.reachabilityFence(isbns);
+        Reference.reachabilityFence(patronIds);
+        return new FootprintReport(count, List.copyOf(entries));
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Average bytes of heap retained by each of {@code count} objects built by {@code factory}.
+     */
+    public static double bytesPerObject(int count, IntFunction<Object> factory) {
+        double[] samples = new double[MEASURED_RUNS];
+        for (int run = -WARMUP_RUNS; run < MEASURED_RUNS; run++) {
+            double sample = sample(count, factory);
+            if (run >= 0) {
+                samples[run] = sample;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_RUNS / 2];
+    }
+
+    private static double sample(int count, IntFunction<Object> factory) {
+        Object[] retained = new Object[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            retained[i] = factory.apply(i);
+        }
+        long after = usedHeap();
+        if (retained[count - 1] == null) {
+            throw new IllegalStateException("Factory returned null");
+        }
+        return (double) (after - before) / count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Collect until the figure settles; a single request may leave garbage behind
+        for (int attempt = 0; attempt < 10; attempt++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    // Each helper builds a new string or date, as reading one from disk or a result set would
+
+    private static String isbn(int i) {
+        return "978-" + (1_000_000_000 + i);
+    }
+
+    private static String patronId(int i) {
+        return "PATRON-" + i;
+    }
+
+    private static String author(int i) {
+        return "Author " + i % AUTHORS;
+    }
+
+    private static LocalDate day(LocalDate today, int offset) {
+        return LocalDate.ofEpochDay(today.toEpochDay() + offset);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Heap per object, averaged over " + count + " objects\n");
+        for (Entry entry : entries) {
+            report.append(String.format("  %-24s %8.1f bytes%n", entry.label(), entry.bytesPerObject()));
+        }
+        return report.toString();
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_COUNT;
+        System.out.print(measure(count));
+    }
+
+    public record Entry(String label, double bytesPerObject) {
+    }
+}
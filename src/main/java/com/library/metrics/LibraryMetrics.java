@@ -0,0 +1,208 @@
+package com.library.metrics;
+
+import com.library.models.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Live inventory and circulation counters, updated by the services on every change
+ * so dashboards read them in constant time instead of scanning the catalog.
+ *
+ * <p>Counters are {@link LongAdder}s, which stripe contended updates across cells.
+ * Open loans and active reservations are also tracked by ID, which makes the loan
+ * and reservation callbacks idempotent, so journal replay and snapshot loading can
+ * report the same change twice without skewing the counts.
+ *
+ * <p>Overdue loans change with the calendar rather than with mutations. Open loans
+ * not yet overdue are counted in buckets by due day; when the date moves on, the
+ * buckets that fell due are folded into the overdue counter once.
+ */
+public class LibraryMetrics {
+    private final LongAdder totalBooks = new LongAdder();
+    private final Map<BookStatus, LongAdder> booksByStatus = new EnumMap<>(BookStatus.class);
+    private final LongAdder openLoans = new LongAdder();
+    private final LongAdder overdueLoans = new LongAdder();
+    private final Map<PatronType, LongAdder> openLoansByPatronType = new EnumMap<>(PatronType.class);
+    private final LongAdder activeReservations = new LongAdder();
+    private final Map<String, OpenLoan> openLoansById = new ConcurrentHashMap<>();
+    private final Set<String> activeReservationIds = ConcurrentHashMap.newKeySet();
+    private final Map<Long, LongAdder> loansDueOn = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock dueDayLock = new ReentrantReadWriteLock();
+    private volatile long lastOverdueDay = LocalDate.now().toEpochDay() - 1;
+
+    private record OpenLoan(PatronType patronType, long dueDay) {
+    }
+
+    public LibraryMetrics() {
+        for (BookStatus status : BookStatus.values()) {
+            booksByStatus.put(status, new LongAdder());
+        }
+        for (PatronType type : PatronType.values()) {
+            openLoansByPatronType.put(type, new LongAdder());
+        }
+    }
+
+    public void bookAdded(BookStatus status) {
+        totalBooks.increment();
+        booksByStatus.get(status).increment();
+    }
+
+    public void bookRemoved(BookStatus status) {
+        totalBooks.decrement();
+        booksByStatus.get(status).decrement();
+    }
+
+    public void bookStatusChanged(BookStatus from, BookStatus to) {
+        if (from != to) {
+            booksByStatus.get(from).decrement();
+            booksByStatus.get(to).increment();
+        }
+    }
+
+    /**
+     * Counts a new open loan. The patron type may be null if the patron is unknown.
+     */
+    public void loanOpened(String recordId, PatronType patronType, LocalDate dueDate) {
+        OpenLoan loan = new OpenLoan(patronType, dueDate.toEpochDay());
+        if (openLoansById.putIfAbsent(recordId, loan) != null) {
+            return;
+        }
+        openLoans.increment();
+        if (patronType != null) {
+            openLoansByPatronType.get(patronType).increment();
+        }
+        adjustDue(loan.dueDay(), 1);
+    }
+
+    public void loanClosed(String recordId) {
+        OpenLoan loan = openLoansById.remove(recordId);
+        if (loan == null) {
+            return;
+        }
+        openLoans.decrement();
+        if (loan.patronType() != null) {
+            openLoansByPatronType.get(loan.patronType()).decrement();
+        }
+        adjustDue(loan.dueDay(), -1);
+    }
+
+    public void reservationActivated(String reservationId) {
+        if (activeReservationIds.add(reservationId)) {
+            activeReservations.increment();
+        }
+    }
+
+    public void reservationDeactivated(String reservationId) {
+        if (activeReservationIds.remove(reservationId)) {
+            activeReservations.decrement();
+        }
+    }
+
+    public long getTotalBooks() {
+        return totalBooks.sum();
+    }
+
+    public long getBooksWithStatus(BookStatus status) {
+        return booksByStatus.get(status).sum();
+    }
+
+    public long getOpenLoans() {
+        return openLoans.sum();
+    }
+
+    public long getOverdueLoans() {
+        foldDueDays();
+        return overdueLoans.sum();
+    }
+
+    public long getActiveReservations() {
+        return activeReservations.sum();
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<BookStatus, Long> statuses = new EnumMap<>(BookStatus.class);
+        booksByStatus.forEach((status, count) -> statuses.put(status, count.sum()));
+        Map<PatronType, Long> loansByType = new EnumMap<>(PatronType.class);
+        openLoansByPatronType.forEach((type, count) -> loansByType.put(type, count.sum()));
+        return new MetricsSnapshot(Instant.now(), totalBooks.sum(), statuses, openLoans.sum(), getOverdueLoans(),
+                loansByType, activeReservations.sum());
+    }
+
+    /**
+     * Recounts everything from the given state, e.g. when starting on a database that already holds data.
+     */
+    public void rebuild(Iterable<Book> books, Iterable<BorrowRecord> records, Iterable<Reservation> reservations,
+                        Function<String, PatronType> patronTypes) {
+        dueDayLock.writeLock().lock();
+        try {
+            totalBooks.reset();
+            booksByStatus.values().forEach(LongAdder::reset);
+            openLoans.reset();
+            overdueLoans.reset();
+            openLoansByPatronType.values().forEach(LongAdder::reset);
+            activeReservations.reset();
+            openLoansById.clear();
+            activeReservationIds.clear();
+            loansDueOn.clear();
+            lastOverdueDay = LocalDate.now().toEpochDay() - 1;
+        } finally {
+            dueDayLock.writeLock().unlock();
+        }
+        for (Book book : books) {
+            bookAdded(book.getStatus());
+        }
+        for (BorrowRecord record : records) {
+            if (!record.isReturned()) {
+                loanOpened(record.getRecordId(), patronTypes.apply(record.getPatronId()), record.getDueDate());
+            }
+        }
+        for (Reservation reservation : reservations) {
+            if (reservation.getStatus() == ReservationStatus.ACTIVE) {
+                reservationActivated(reservation.getReservationId());
+            }
+        }
+    }
+
+    private void adjustDue(long dueDay, int delta) {
+        foldDueDays();
+        dueDayLock.readLock().lock();
+        try {
+            if (dueDay <= lastOverdueDay) {
+                overdueLoans.add(delta);
+            } else {
+                loansDueOn.computeIfAbsent(dueDay, day -> new LongAdder()).add(delta);
+            }
+        } finally {
+            dueDayLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the loans due on days that have now passed into the overdue counter.
+     */
+    private void foldDueDays() {
+        long yesterday = LocalDate.now().toEpochDay() - 1;
+        if (lastOverdueDay >= yesterday) {
+            return;
+        }
+        dueDayLock.writeLock().lock();
+        try {
+            while (lastOverdueDay < yesterday) {
+                LongAdder due = loansDueOn.remove(lastOverdueDay + 1);
+                if (due != null) {
+                    overdueLoans.add(due.sum());
+                }
+                lastOverdueDay++;
+            }
+        } finally {
+            dueDayLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.metrics;
+
+import com.library.models.BookStatus;
+import com.library.models.PatronType;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Counter values read from {@link LibraryMetrics} at one instant. Each counter is
+ * exact on its own; counters read while a checkout is in flight may differ by that
+ * one checkout.
+ */
+public record MetricsSnapshot(Instant takenAt, long totalBooks, Map<BookStatus, Long> booksByStatus,
+                              long openLoans, long overdueLoans, Map<PatronType, Long> openLoansByPatronType,
+                              long activeReservations) {
+
+    public long booksWithStatus(BookStatus status) {
+        return booksByStatus.getOrDefault(status, 0L);
+    }
+
+    public long openLoansFor(PatronType patronType) {
+        return openLoansByPatronType.getOrDefault(patronType, 0L);
+    }
+}
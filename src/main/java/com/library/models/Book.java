@@ -6,24 +6,48 @@ import java.util.Objects;
 /**
  * Represents a book in the library management system.
  * Demonstrates encapsulation by keeping fields private and providing controlled access through methods.
+ *
+ * <p>Catalogs hold millions of books, so the fields are stored compactly behind
+ * the getters: dates as epoch days, the status as its ordinal, and the ISBN,
+ * author and borrower ID as shared {@linkplain CompactFields#share canonical}
+ * strings. A book takes 48 bytes of heap besides its strings.
+ *
+ * <p>The {@linkplain #getVersion() version} is stamped by the repository on every
+ * write, so an update can be made conditional on nobody having written in between.
  */
 public class Book {
+    private static final BookStatus[] STATUSES = BookStatus.values();
+
     private String isbn;
     private String title;
     private String author;
-    private int publicationYear;
-    private BookStatus status;
     private String borrowerId;
-    private LocalDate borrowDate;
-    private LocalDate dueDate;
+    private int borrowDay = CompactFields.NO_DAY;
+    private int dueDay = CompactFields.NO_DAY;
+    private short publicationYear;
+    private byte status;
+    private long version;
 
     // Constructor
     public Book(String isbn, String title, String author, int publicationYear) {
-        this.isbn = isbn;
+        this.isbn = CompactFields.share(isbn);
         this.title = title;
-        this.author = author;
-        this.publicationYear = publicationYear;
-        this.status = BookStatus.AVAILABLE;
+        this.author = CompactFields.share(author);
+        this.publicationYear = CompactFields.toYear(publicationYear);
+        this.status = (byte) BookStatus.AVAILABLE.ordinal();
+    }
+
+    // Copy constructor
+    public Book(Book other) {
+        this.isbn = other.isbn;
+        this.title = other.title;
+        this.author = other.author;
+        this.publicationYear = other.publicationYear;
+        this.status = other.status;
+        this.borrowerId = other.borrowerId;
+        this.borrowDay = other.borrowDay;
+        this.dueDay = other.dueDay;
+        this.version = other.version;
     }
 
     // Getters
@@ -44,19 +68,29 @@ public class Book {
     }
 
     public BookStatus getStatus() {
-        return status;
+        return STATUSES[status];
     }
 
+    /**
+     * The patron who has the book, or for a held book the patron it is held for.
+     */
     public String getBorrowerId() {
         return borrowerId;
     }
 
     public LocalDate getBorrowDate() {
-        return borrowDate;
+        return CompactFields.toDate(borrowDay);
     }
 
     public LocalDate getDueDate() {
-        return dueDate;
+        return CompactFields.toDate(dueDay);
+    }
+
+    /**
+     * How many times the stored book has been written; 0 for a book never stored.
+     */
+    public long getVersion() {
+        return version;
     }
 
     // Setters
@@ -65,53 +99,83 @@ public class Book {
     }
 
     public void setAuthor(String author) {
-        this.author = author;
+        this.author = CompactFields.share(author);
     }
 
     public void setPublicationYear(int publicationYear) {
-        this.publicationYear = publicationYear;
+        this.publicationYear = CompactFields.toYear(publicationYear);
     }
 
     public void setStatus(BookStatus status) {
-        this.status = status;
+        this.status = (byte) status.ordinal();
     }
 
     public void setBorrowerId(String borrowerId) {
-        this.borrowerId = borrowerId;
+        this.borrowerId = CompactFields.share(borrowerId);
     }
 
     public void setBorrowDate(LocalDate borrowDate) {
-        this.borrowDate = borrowDate;
+        this.borrowDay = CompactFields.toDay(borrowDate);
     }
 
     public void setDueDate(LocalDate dueDate) {
-        this.dueDate = dueDate;
+        this.dueDay = CompactFields.toDay(dueDate);
+    }
+
+    /**
+     * Set by repositories when they write the book; callers should not need it.
+     */
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     // Business methods
     public boolean isAvailable() {
-        return status == BookStatus.AVAILABLE;
+        return status == BookStatus.AVAILABLE.ordinal();
+    }
+
+    /**
+     * Whether {@code patronId} may borrow the book: it is on the shelf or held for them.
+     */
+    public boolean isAvailableTo(String patronId) {
+        return isAvailable() || isHeldFor(patronId);
+    }
+
+    public boolean isHeldFor(String patronId) {
+        return status == BookStatus.RESERVED.ordinal() && patronId != null && patronId.equals(borrowerId);
     }
 
     public void borrowBook(String patronId, LocalDate borrowDate, LocalDate dueDate) {
-        if (!isAvailable()) {
+        if (!isAvailableTo(patronId)) {
             throw new IllegalStateException("Book is not available for borrowing");
         }
-        this.borrowerId = patronId;
-        this.borrowDate = borrowDate;
-        this.dueDate = dueDate;
-        this.status = BookStatus.BORROWED;
+        setBorrowerId(patronId);
+        setBorrowDate(borrowDate);
+        setDueDate(dueDate);
+        this.status = (byte) BookStatus.BORROWED.ordinal();
+    }
+
+    /**
+     * Sets the book aside for a patron whose reservation came up.
+     */
+    public void holdFor(String patronId) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Only a book on the shelf can be held");
+        }
+        this.borrowerId = CompactFields.share(patronId);
+        this.status = (byte) BookStatus.RESERVED.ordinal();
     }
 
     public void returnBook() {
         this.borrowerId = null;
-        this.borrowDate = null;
-        this.dueDate = null;
-        this.status = BookStatus.AVAILABLE;
+        this.borrowDay = CompactFields.NO_DAY;
+        this.dueDay = CompactFields.NO_DAY;
+        this.status = (byte) BookStatus.AVAILABLE.ordinal();
     }
 
     public boolean isOverdue() {
-        return status == BookStatus.BORROWED && dueDate != null && LocalDate.now().isAfter(dueDate);
+        return status == BookStatus.BORROWED.ordinal() && dueDay != CompactFields.NO_DAY
+                && LocalDate.now().toEpochDay() > dueDay;
     }
 
     @Override
@@ -134,7 +198,7 @@ public class Book {
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
                 ", publicationYear=" + publicationYear +
-                ", status=" + status +
+                ", status=" + getStatus() +
                 '}';
     }
 }
@@ -5,23 +5,27 @@ import java.util.Objects;
 
 /**
  * Represents a borrowing record for tracking book loans.
+ *
+ * <p>Loan history grows without bound, so records are stored compactly: dates as
+ * epoch days, the fine in cents, and the patron ID and ISBN as the canonical
+ * strings shared with the patron and book. A record takes 40 bytes of heap
+ * besides its record ID.
  */
 public class BorrowRecord {
     private String recordId;
     private String patronId;
     private String isbn;
-    private LocalDate borrowDate;
-    private LocalDate dueDate;
-    private LocalDate returnDate;
-    private double fineAmount;
+    private int borrowDay;
+    private int dueDay;
+    private int returnDay = CompactFields.NO_DAY;
+    private int fineCents;
 
     public BorrowRecord(String recordId, String patronId, String isbn, LocalDate borrowDate, LocalDate dueDate) {
         this.recordId = recordId;
-        this.patronId = patronId;
-        this.isbn = isbn;
-        this.borrowDate = borrowDate;
-        this.dueDate = dueDate;
-        this.fineAmount = 0.0;
+        this.patronId = CompactFields.share(patronId);
+        this.isbn = CompactFields.share(isbn);
+        this.borrowDay = CompactFields.toDay(borrowDate);
+        this.dueDay = CompactFields.toDay(dueDate);
     }
 
     // Getters
@@ -38,44 +42,51 @@ public class BorrowRecord {
     }
 
     public LocalDate getBorrowDate() {
-        return borrowDate;
+        return CompactFields.toDate(borrowDay);
     }
 
     public LocalDate getDueDate() {
-        return dueDate;
+        return CompactFields.toDate(dueDay);
     }
 
     public LocalDate getReturnDate() {
-        return returnDate;
+        return CompactFields.toDate(returnDay);
     }
 
     public double getFineAmount() {
-        return fineAmount;
+        return fineCents / 100.0;
     }
 
     // Setters
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDay = CompactFields.toDay(dueDate);
+    }
+
     public void setReturnDate(LocalDate returnDate) {
-        this.returnDate = returnDate;
+        this.returnDay = CompactFields.toDay(returnDate);
     }
 
+    /**
+     * Fines are kept to the cent.
+     */
     public void setFineAmount(double fineAmount) {
-        this.fineAmount = fineAmount;
+        this.fineCents = CompactFields.toCents(fineAmount);
     }
 
     // Business methods
     public boolean isOverdue() {
-        return returnDate == null && LocalDate.now().isAfter(dueDate);
+        return returnDay == CompactFields.NO_DAY && LocalDate.now().toEpochDay() > dueDay;
     }
 
     public long getDaysOverdue() {
         if (!isOverdue()) {
             return 0;
         }
-        return LocalDate.now().toEpochDay() - dueDate.toEpochDay();
+        return LocalDate.now().toEpochDay() - dueDay;
     }
 
     public boolean isReturned() {
-        return returnDate != null;
+        return returnDay != CompactFields.NO_DAY;
     }
 
     @Override
@@ -97,10 +108,10 @@ public class BorrowRecord {
                 "recordId='" + recordId + '\'' +
                 ", patronId='" + patronId + '\'' +
                 ", isbn='" + isbn + '\'' +
-                ", borrowDate=" + borrowDate +
-                ", dueDate=" + dueDate +
-                ", returnDate=" + returnDate +
-                ", fineAmount=" + fineAmount +
+                ", borrowDate=" + getBorrowDate() +
+                ", dueDate=" + getDueDate() +
+                ", returnDate=" + getReturnDate() +
+                ", fineAmount=" + getFineAmount() +
                 '}';
     }
 }
@@ -0,0 +1,141 @@
+package com.library.models;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only view of one patron's loans, newest first, read a page at a time from
+ * wherever the loans are stored. The view holds no records itself, so a patron
+ * costs the same however long their history is until someone reads it.
+ *
+ * <p>Loans are ordered by borrow date, latest first, with ties broken by record
+ * ID in descending order. A {@link Cursor} marks the last loan of a page; the next
+ * page starts after it even if newer loans were made in between.
+ */
+public final class BorrowingHistory implements Iterable<BorrowRecord> {
+    public static final Comparator<BorrowRecord> NEWEST_FIRST = Comparator
+            .comparing(BorrowRecord::getBorrowDate)
+            .thenComparing(BorrowRecord::getRecordId)
+            .reversed();
+    private static final int ITERATOR_PAGE_SIZE = 100;
+
+    private final String patronId;
+    private final Source source;
+
+    /**
+     * @param source where the loans are read from, or null for a patron with no loans on record
+     */
+    public BorrowingHistory(String patronId, Source source) {
+        this.patronId = patronId;
+        this.source = source;
+    }
+
+    public String getPatronId() {
+        return patronId;
+    }
+
+    /**
+     * The newest {@code limit} loans.
+     */
+    public Page page(int limit) {
+        return page(null, limit);
+    }
+
+    /**
+     * Up to {@code limit} loans following {@code after}, or the newest if it is null.
+     */
+    public Page page(Cursor after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        if (source == null) {
+            return new Page(List.of(), null);
+        }
+        // Ask for one more than the page holds to learn whether another page follows
+        List<BorrowRecord> records = source.findPage(patronId, after, limit == Integer.MAX_VALUE ? limit : limit + 1);
+        if (records.size() <= limit) {
+            return new Page(List.copyOf(records), null);
+        }
+        List<BorrowRecord> shown = List.copyOf(records.subList(0, limit));
+        return new Page(shown, Cursor.after(shown.get(limit - 1)));
+    }
+
+    /**
+     * Walks the whole history, newest first, fetching it a page at a time.
+     */
+    @Override
+    public Iterator<BorrowRecord> iterator() {
+        return new Iterator<>() {
+            private Page page = page(ITERATOR_PAGE_SIZE);
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                if (position == page.records().size() && page.next() != null) {
+                    page = page(page.next(), ITERATOR_PAGE_SIZE);
+                    position = 0;
+                }
+                return position < page.records().size();
+            }
+
+            @Override
+            public BorrowRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.records().get(position++);
+            }
+        };
+    }
+
+    /**
+     * Where a history reads its loans from, e.g. a loan repository.
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * Up to {@code limit} of the patron's loans in {@link #NEWEST_FIRST} order,
+         * starting after {@code after}, or with the newest if it is null.
+         */
+        List<BorrowRecord> findPage(String patronId, Cursor after, int limit);
+    }
+
+    /**
+     * Position in a history: the borrow date and record ID of the last loan seen.
+     */
+    public record Cursor(LocalDate borrowDate, String recordId) {
+        public Cursor {
+            if (borrowDate == null || recordId == null) {
+                throw new IllegalArgumentException("Cursor needs a borrow date and record ID");
+            }
+        }
+
+        public static Cursor after(BorrowRecord record) {
+            return new Cursor(record.getBorrowDate(), record.getRecordId());
+        }
+
+        /**
+         * Whether {@code record} comes after this position, newest first.
+         */
+        public boolean precedes(BorrowRecord record) {
+            return precedes(record.getBorrowDate(), record.getRecordId());
+        }
+
+        public boolean precedes(LocalDate borrowDate, String recordId) {
+            int byDate = borrowDate.compareTo(this.borrowDate);
+            return byDate < 0 || byDate == 0 && recordId.compareTo(this.recordId) < 0;
+        }
+    }
+
+    /**
+     * One page of loans, and the cursor to pass for the next page or null if this is the last.
+     */
+    public record Page(List<BorrowRecord> records, Cursor next) {
+        public boolean hasMore() {
+            return next != null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.models;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Field encodings shared by the compact model classes, which keep their public
+ * getters but store dates as epoch days, amounts as cents and repeated strings once.
+ */
+final class CompactFields {
+    static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final int DICTIONARY_STRIPES = 16;
+    private static final List<Map<String, WeakReference<String>>> DICTIONARY =
+            Stream.<Map<String, WeakReference<String>>>generate(WeakHashMap::new).limit(DICTIONARY_STRIPES).toList();
+
+    private CompactFields() {
+    }
+
+    /**
+     * Returns the canonical instance of {@code value}, so an ISBN, author or patron
+     * ID referred to by many objects is held once. The dictionary holds its entries
+     * weakly: once no book, loan or patron refers to a value, it is dropped.
+     */
+    static String share(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        Map<String, WeakReference<String>> stripe = DICTIONARY.get((hash ^ hash >>> 16) & (DICTIONARY_STRIPES - 1));
+        synchronized (stripe) {
+            WeakReference<String> entry = stripe.get(value);
+            String shared = entry == null ? null : entry.get();
+            if (shared == null) {
+                stripe.put(value, new WeakReference<>(value));
+                shared = value;
+            }
+            return shared;
+        }
+    }
+
+    static int toDay(LocalDate date) {
+        if (date == null) {
+            return NO_DAY;
+        }
+        long epochDay = date.toEpochDay();
+        if (epochDay <= NO_DAY || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Date out of range: " + date);
+        }
+        return (int) epochDay;
+    }
+
+    static LocalDate toDate(int day) {
+        return day == NO_DAY ? null : LocalDate.ofEpochDay(day);
+    }
+
+    static short toYear(int year) {
+        if (year < Short.MIN_VALUE || year > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Publication year out of range: " + year);
+        }
+        return (short) year;
+    }
+
+    static int toCents(double amount) {
+        long cents = Math.round(amount * 100);
+        if (cents < Integer.MIN_VALUE || cents > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        return (int) cents;
+    }
+}
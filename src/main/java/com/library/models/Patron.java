@@ -1,13 +1,12 @@
 package com.library.models;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 /**
  * Represents a library patron (member).
- * Demonstrates encapsulation and maintains patron information and borrowing history.
+ * Demonstrates encapsulation and maintains patron information. Borrowing history
+ * is not held here but read on demand through {@link #getBorrowingHistory()}.
  */
 public class Patron {
     private String patronId;
@@ -17,23 +16,50 @@ public class Patron {
     private String address;
     private PatronType patronType;
     private LocalDate membershipDate;
+    private LocalDate membershipExpiryDate;
     private PatronStatus status;
-    private List<BorrowRecord> borrowingHistory;
+    private LocalDate statusUntil;
+    private BorrowingHistory.Source borrowingHistorySource;
     private int maxBooksAllowed;
+    private long version;
 
     public Patron(String patronId, String name, String email, String phoneNumber, String address, PatronType patronType) {
+        this(patronId, name, email, phoneNumber, address, patronType, LocalDate.now());
+    }
+
+    public Patron(String patronId, String name, String email, String phoneNumber, String address,
+                  PatronType patronType, LocalDate membershipDate) {
         this.patronId = patronId;
         this.name = name;
         this.email = email;
         this.phoneNumber = phoneNumber;
         this.address = address;
         this.patronType = patronType;
-        this.membershipDate = LocalDate.now();
+        this.membershipDate = membershipDate;
+        this.membershipExpiryDate = membershipDate == null ? null : membershipDate.plus(patronType.getMembershipTerm());
         this.status = PatronStatus.ACTIVE;
-        this.borrowingHistory = new ArrayList<>();
         this.maxBooksAllowed = patronType.getMaxBooksAllowed();
     }
 
+    /**
+     * Copies every field, so a change can be prepared on the copy and swapped in whole.
+     */
+    public Patron(Patron other) {
+        this.patronId = other.patronId;
+        this.name = other.name;
+        this.email = other.email;
+        this.phoneNumber = other.phoneNumber;
+        this.address = other.address;
+        this.patronType = other.patronType;
+        this.membershipDate = other.membershipDate;
+        this.membershipExpiryDate = other.membershipExpiryDate;
+        this.status = other.status;
+        this.statusUntil = other.statusUntil;
+        this.borrowingHistorySource = other.borrowingHistorySource;
+        this.maxBooksAllowed = other.maxBooksAllowed;
+        this.version = other.version;
+    }
+
     // Getters
     public String getPatronId() {
         return patronId;
@@ -63,18 +89,51 @@ public class Patron {
         return membershipDate;
     }
 
+    public LocalDate getMembershipExpiryDate() {
+        return membershipExpiryDate;
+    }
+
     public PatronStatus getStatus() {
         return status;
     }
 
-    public List<BorrowRecord> getBorrowingHistory() {
-        return new ArrayList<>(borrowingHistory);
+    /**
+     * When a suspension or block lifts on its own, or null if it lasts until lifted by hand.
+     */
+    public LocalDate getStatusUntil() {
+        return statusUntil;
+    }
+
+    /**
+     * The date this patron's status next changes without anyone acting: membership
+     * expiry while active, the end of a suspension or block, otherwise null.
+     */
+    public LocalDate getNextStatusChangeDate() {
+        return switch (status) {
+            case ACTIVE -> membershipExpiryDate;
+            case SUSPENDED, BLOCKED -> statusUntil;
+            case EXPIRED -> null;
+        };
+    }
+
+    /**
+     * This patron's loans, newest first. Nothing is read until a page is asked for.
+     */
+    public BorrowingHistory getBorrowingHistory() {
+        return new BorrowingHistory(patronId, borrowingHistorySource);
     }
 
     public int getMaxBooksAllowed() {
         return maxBooksAllowed;
     }
 
+    /**
+     * How many times the stored patron has been written; 0 for a patron never stored.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     // Setters
     public void setName(String name) {
         this.name = name;
@@ -96,36 +155,31 @@ public class Patron {
         this.status = status;
     }
 
-    public void setPatronType(PatronType patronType) {
-        this.patronType = patronType;
-        this.maxBooksAllowed = patronType.getMaxBooksAllowed();
-    }
-
-    // Business methods
-    public boolean canBorrowBook() {
-        return status == PatronStatus.ACTIVE && getCurrentBorrowedBooksCount() < maxBooksAllowed;
+    public void setStatusUntil(LocalDate statusUntil) {
+        this.statusUntil = statusUntil;
     }
 
-    public int getCurrentBorrowedBooksCount() {
-        return (int) borrowingHistory.stream()
-                .filter(record -> record.getReturnDate() == null)
-                .count();
+    public void setMembershipExpiryDate(LocalDate membershipExpiryDate) {
+        this.membershipExpiryDate = membershipExpiryDate;
     }
 
-    public void addBorrowRecord(BorrowRecord record) {
-        borrowingHistory.add(record);
+    /**
+     * Set by repositories when they write the patron; callers should not need it.
+     */
+    public void setVersion(long version) {
+        this.version = version;
     }
 
-    public List<BorrowRecord> getCurrentBorrowedBooks() {
-        return borrowingHistory.stream()
-                .filter(record -> record.getReturnDate() == null)
-                .toList();
+    public void setPatronType(PatronType patronType) {
+        this.patronType = patronType;
+        this.maxBooksAllowed = patronType.getMaxBooksAllowed();
     }
 
-    public List<BorrowRecord> getOverdueBooks() {
-        return borrowingHistory.stream()
-                .filter(record -> record.getReturnDate() == null && record.isOverdue())
-                .toList();
+    /**
+     * Sets where {@link #getBorrowingHistory()} reads loans from; one source is shared by every patron.
+     */
+    public void setBorrowingHistorySource(BorrowingHistory.Source borrowingHistorySource) {
+        this.borrowingHistorySource = borrowingHistorySource;
     }
 
     @Override
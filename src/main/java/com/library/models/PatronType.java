@@ -1,21 +1,30 @@
 package com.library.models;
 
+import java.time.Period;
+
 /**
- * Enum representing different types of library patrons with their privileges.
+ * Enum representing different types of library patrons with their privileges
+ * and how long a membership lasts before it must be renewed.
  */
 public enum PatronType {
-    STUDENT(3),
-    FACULTY(10),
-    STAFF(5),
-    GENERAL(2);
+    STUDENT(3, Period.ofYears(1)),
+    FACULTY(10, Period.ofYears(3)),
+    STAFF(5, Period.ofYears(2)),
+    GENERAL(2, Period.ofYears(1));
 
     private final int maxBooksAllowed;
+    private final Period membershipTerm;
 
-    PatronType(int maxBooksAllowed) {
+    PatronType(int maxBooksAllowed, Period membershipTerm) {
         this.maxBooksAllowed = maxBooksAllowed;
+        this.membershipTerm = membershipTerm;
     }
 
     public int getMaxBooksAllowed() {
         return maxBooksAllowed;
     }
+
+    public Period getMembershipTerm() {
+        return membershipTerm;
+    }
 }
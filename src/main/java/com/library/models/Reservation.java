@@ -13,6 +13,7 @@ public class Reservation {
     private LocalDate reservationDate;
     private LocalDate expiryDate;
     private ReservationStatus status;
+    private long version;
 
     public Reservation(String reservationId, String patronId, String isbn) {
         this.reservationId = reservationId;
@@ -23,6 +24,29 @@ public class Reservation {
         this.status = ReservationStatus.ACTIVE;
     }
 
+    public Reservation(String reservationId, String patronId, String isbn,
+                       LocalDate reservationDate, LocalDate expiryDate) {
+        this.reservationId = reservationId;
+        this.patronId = patronId;
+        this.isbn = isbn;
+        this.reservationDate = reservationDate;
+        this.expiryDate = expiryDate;
+        this.status = ReservationStatus.ACTIVE;
+    }
+
+    /**
+     * Copies every field, so a change can be prepared on the copy and swapped in whole.
+     */
+    public Reservation(Reservation other) {
+        this.reservationId = other.reservationId;
+        this.patronId = other.patronId;
+        this.isbn = other.isbn;
+        this.reservationDate = other.reservationDate;
+        this.expiryDate = other.expiryDate;
+        this.status = other.status;
+        this.version = other.version;
+    }
+
     // Getters
     public String getReservationId() {
         return reservationId;
@@ -48,6 +72,13 @@ public class Reservation {
         return status;
     }
 
+    /**
+     * How many times the stored reservation has been written; 0 for one never stored.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     // Setters
     public void setStatus(ReservationStatus status) {
         this.status = status;
@@ -57,6 +88,13 @@ public class Reservation {
         this.expiryDate = expiryDate;
     }
 
+    /**
+     * Set by repositories when they write the reservation; callers should not need it.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // Business methods
     public boolean isExpired() {
         return LocalDate.now().isAfter(expiryDate);
@@ -7,5 +7,6 @@ public enum ReservationStatus {
     ACTIVE,
     FULFILLED,
     CANCELLED,
-    EXPIRED
+    EXPIRED,
+    COMPLETED
 }
@@ -0,0 +1,13 @@
+package com.library.notifications;
+
+import java.util.List;
+
+/**
+ * An outbound email, typically a digest of several notifications for one recipient.
+ */
+public record EmailMessage(String recipient, String subject, List<String> lines) {
+
+    public String getBody() {
+        return String.join(System.lineSeparator(), lines);
+    }
+}
@@ -0,0 +1,32 @@
+package com.library.notifications;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Transport that keeps sent messages in memory.
+ * Stands in for a local SMTP server when verifying notification behaviour.
+ */
+public class InMemoryMailTransport implements MailTransport {
+    private final List<EmailMessage> sentMessages = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(EmailMessage message) {
+        sentMessages.add(message);
+    }
+
+    public List<EmailMessage> getSentMessages() {
+        return new ArrayList<>(sentMessages);
+    }
+
+    public List<EmailMessage> getSentMessages(String recipient) {
+        return sentMessages.stream()
+                .filter(message -> message.recipient().equals(recipient))
+                .toList();
+    }
+
+    public void clear() {
+        sentMessages.clear();
+    }
+}
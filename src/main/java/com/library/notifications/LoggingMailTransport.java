@@ -0,0 +1,22 @@
+package com.library.notifications;
+
+import com.library.utils.Logger;
+
+/**
+ * Transport that writes messages to the log instead of delivering them.
+ * In a real deployment this would be replaced by an SMTP transport.
+ */
+public class LoggingMailTransport implements MailTransport {
+
+    @Override
+    public void send(EmailMessage message) {
+        if (message.lines().size() == 1) {
+            Logger.log("Sending email to " + message.recipient() + ": " + message.lines().get(0));
+            return;
+        }
+        Logger.log("Sending email to " + message.recipient() + ": " + message.subject());
+        for (String line : message.lines()) {
+            Logger.log("  - " + line);
+        }
+    }
+}
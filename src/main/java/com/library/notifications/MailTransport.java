@@ -0,0 +1,8 @@
+package com.library.notifications;
+
+/**
+ * Pluggable delivery mechanism for outbound email.
+ */
+public interface MailTransport {
+    void send(EmailMessage message);
+}
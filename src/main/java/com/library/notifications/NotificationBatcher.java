@@ -0,0 +1,127 @@
+package com.library.notifications;
+
+import com.library.events.LibraryEvent;
+import com.library.utils.Logger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces notifications per recipient and sends them as a single digest.
+ * A digest is sent when a recipient reaches the size threshold or when the
+ * batching window elapses, whichever comes first.
+ */
+public class NotificationBatcher implements AutoCloseable {
+    private final MailTransport transport;
+    private final int maxBatchSize;
+    private final Map<String, PendingDigest> pending;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong eventsReceived = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    public NotificationBatcher(MailTransport transport, Duration window, int maxBatchSize) {
+        if (transport == null || window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Transport and a positive batching window are required");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.transport = transport;
+        this.maxBatchSize = maxBatchSize;
+        this.pending = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = window.toMillis();
+        scheduler.scheduleAtFixedRate(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void enqueue(String recipient, LibraryEvent event) {
+        eventsReceived.incrementAndGet();
+        while (true) {
+            PendingDigest digest = pending.computeIfAbsent(recipient, r -> new PendingDigest());
+            List<LibraryEvent> ready;
+            synchronized (digest) {
+                if (digest.retired) {
+                    continue;
+                }
+                digest.events.add(event);
+                if (digest.events.size() < maxBatchSize) {
+                    return;
+                }
+                ready = digest.drain();
+            }
+            send(recipient, ready);
+            return;
+        }
+    }
+
+    /**
+     * Sends every pending digest immediately.
+     */
+    public void flush() {
+        for (Map.Entry<String, PendingDigest> entry : pending.entrySet()) {
+            PendingDigest digest = entry.getValue();
+            List<LibraryEvent> ready;
+            synchronized (digest) {
+                if (digest.events.isEmpty()) {
+                    // Idle recipients are dropped so the map only holds active digests
+                    digest.retired = true;
+                    pending.remove(entry.getKey(), digest);
+                    continue;
+                }
+                ready = digest.drain();
+            }
+            send(entry.getKey(), ready);
+        }
+    }
+
+    private void send(String recipient, List<LibraryEvent> events) {
+        List<String> lines = new ArrayList<>(events.size());
+        for (LibraryEvent event : events) {
+            lines.add(event.describe());
+        }
+        String subject = events.size() == 1
+                ? "Library notification"
+                : "Library notifications (" + events.size() + ")";
+        try {
+            transport.send(new EmailMessage(recipient, subject, lines));
+            messagesSent.incrementAndGet();
+        } catch (RuntimeException e) {
+            Logger.logError("Failed to send notification digest to " + recipient + ": " + e.getMessage());
+        }
+    }
+
+    public long getEventsReceived() {
+        return eventsReceived.get();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    private static final class PendingDigest {
+        private List<LibraryEvent> events = new ArrayList<>();
+        private boolean retired;
+
+        private List<LibraryEvent> drain() {
+            List<LibraryEvent> drained = events;
+            events = new ArrayList<>();
+            return drained;
+        }
+    }
+}
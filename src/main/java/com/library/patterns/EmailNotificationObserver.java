@@ -1,20 +1,34 @@
 package com.library.patterns;
 
+import com.library.events.LibraryEvent;
+import com.library.notifications.NotificationBatcher;
 import com.library.utils.Logger;
 
 /**
  * Concrete observer implementation for email notifications.
+ * When a {@link NotificationBatcher} is supplied, events are coalesced into digests
+ * instead of being sent one at a time.
  */
 public class EmailNotificationObserver implements Observer {
     private String email;
+    private final NotificationBatcher batcher;
 
     public EmailNotificationObserver(String email) {
+        this(email, null);
+    }
+
+    public EmailNotificationObserver(String email, NotificationBatcher batcher) {
         this.email = email;
+        this.batcher = batcher;
     }
 
     @Override
-    public void update(String message) {
-        Logger.log("Sending email to " + email + ": " + message);
+    public void update(LibraryEvent event) {
+        if (batcher != null) {
+            batcher.enqueue(email, event);
+            return;
+        }
+        Logger.log("Sending email to " + email + ": " + event.describe());
         // In a real implementation, this would send an actual email
     }
 
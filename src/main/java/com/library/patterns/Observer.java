@@ -1,8 +1,16 @@
 package com.library.patterns;
 
+import com.library.events.LibraryEvent;
+
 /**
  * Observer pattern interface for notification system.
+ * Observers receive typed events and may declare which event types they care about,
+ * so subjects can skip building events nobody listens to.
  */
 public interface Observer {
-    void update(String message);
+    void update(LibraryEvent event);
+
+    default boolean isInterestedIn(Class<? extends LibraryEvent> eventType) {
+        return true;
+    }
 }
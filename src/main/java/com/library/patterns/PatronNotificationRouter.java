@@ -0,0 +1,39 @@
+package com.library.patterns;
+
+import com.library.events.LibraryEvent;
+import com.library.models.Patron;
+import com.library.notifications.NotificationBatcher;
+import com.library.services.PatronService;
+import com.library.utils.Logger;
+
+/**
+ * Single observer that emails each event to the patron it concerns, such as a
+ * loan, a return or a reserved book waiting for pickup. The address is looked up
+ * when the event arrives, so each subject holds one registration however many
+ * patrons there are, and adding, updating or removing patrons needs no observer
+ * bookkeeping.
+ */
+public class PatronNotificationRouter implements Observer {
+    private final PatronService patronService;
+    private final NotificationBatcher batcher;
+
+    public PatronNotificationRouter(PatronService patronService, NotificationBatcher batcher) {
+        this.patronService = patronService;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public void update(LibraryEvent event) {
+        String email = patronService.findPatronById(event.getPatronId())
+                .map(Patron::getEmail)
+                .orElse(null);
+        if (email == null || email.isBlank()) {
+            return;
+        }
+        if (batcher != null) {
+            batcher.enqueue(email, event);
+            return;
+        }
+        Logger.log("Sending email to " + email + ": " + event.describe());
+    }
+}
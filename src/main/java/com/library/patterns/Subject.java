@@ -1,26 +1,135 @@
 package com.library.patterns;
 
+import com.library.events.LibraryEvent;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Subject class for Observer pattern.
  * Maintains a list of observers and notifies them of changes.
+ *
+ * <p>Registrations are kept in a copy-on-write array: notification iterates a
+ * volatile snapshot without locking, while the rare add/remove calls copy the array
+ * under a lock. Observers may be registered on behalf of an owner object; such
+ * registrations expire automatically once the owner is no longer reachable.
  */
 public abstract class Subject {
-    private List<Observer> observers = new ArrayList<>();
+    private static final Registration[] NO_REGISTRATIONS = new Registration[0];
+
+    private final Object registrationLock = new Object();
+    private volatile Registration[] registrations = NO_REGISTRATIONS;
 
     public void addObserver(Observer observer) {
-        observers.add(observer);
+        register(new Registration(observer, null));
+    }
+
+    /**
+     * Registers an observer that stays active only while {@code owner} is reachable.
+     * The observer itself must not hold a strong reference to the owner.
+     */
+    public void addObserver(Observer observer, Object owner) {
+        if (owner == null) {
+            throw new IllegalArgumentException("Owner cannot be null");
+        }
+        register(new Registration(observer, new WeakReference<>(owner)));
     }
 
     public void removeObserver(Observer observer) {
-        observers.remove(observer);
+        removeIf(registration -> registration.observer == observer);
+    }
+
+    /**
+     * Removes every observer that was registered on behalf of {@code owner}.
+     */
+    public void removeObserversOwnedBy(Object owner) {
+        removeIf(registration -> registration.owner != null && registration.owner.get() == owner);
+    }
+
+    public int getObserverCount() {
+        int count = 0;
+        for (Registration registration : registrations) {
+            if (!registration.isExpired()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if any registered observer wants events of the given type.
+     * Callers check this before constructing an event so unobserved events allocate nothing.
+     */
+    protected boolean hasObservers(Class<? extends LibraryEvent> eventType) {
+        for (Registration registration : registrations) {
+            if (!registration.isExpired() && registration.observer.isInterestedIn(eventType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected void notifyObservers(LibraryEvent event) {
+        Class<? extends LibraryEvent> eventType = event.getClass();
+        boolean sawExpired = false;
+        for (Registration registration : registrations) {
+            if (registration.isExpired()) {
+                sawExpired = true;
+                continue;
+            }
+            if (registration.observer.isInterestedIn(eventType)) {
+                registration.observer.update(event);
+            }
+        }
+        if (sawExpired) {
+            removeIf(Registration::isExpired);
+        }
+    }
+
+    private void register(Registration registration) {
+        if (registration.observer == null) {
+            throw new IllegalArgumentException("Observer cannot be null");
+        }
+        synchronized (registrationLock) {
+            Registration[] current = registrations;
+            List<Registration> updated = new ArrayList<>(current.length + 1);
+            for (Registration existing : current) {
+                if (!existing.isExpired()) {
+                    updated.add(existing);
+                }
+            }
+            updated.add(registration);
+            registrations = updated.toArray(NO_REGISTRATIONS);
+        }
     }
 
-    protected void notifyObservers(String message) {
-        for (Observer observer : observers) {
-            observer.update(message);
+    private void removeIf(Predicate<Registration> condition) {
+        synchronized (registrationLock) {
+            Registration[] current = registrations;
+            List<Registration> updated = new ArrayList<>(current.length);
+            for (Registration existing : current) {
+                if (!condition.test(existing) && !existing.isExpired()) {
+                    updated.add(existing);
+                }
+            }
+            if (updated.size() != current.length) {
+                registrations = updated.toArray(NO_REGISTRATIONS);
+            }
+        }
+    }
+
+    private static final class Registration {
+        private final Observer observer;
+        private final WeakReference<Object> owner;
+
+        private Registration(Observer observer, WeakReference<Object> owner) {
+            this.observer = observer;
+            this.owner = owner;
+        }
+
+        private boolean isExpired() {
+            return owner != null && owner.get() == null;
         }
     }
 }
@@ -0,0 +1,395 @@
+package com.library.persistence;
+
+import com.library.utils.Logger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only write-ahead journal of service mutations.
+ *
+ * <p>Appends use group commit: each caller encodes its mutation into a shared
+ * pending buffer and waits until it is durable. Whichever caller finds no flush in
+ * progress becomes the leader, writes everything pending through the
+ * {@link FileChannel} and issues a single {@code force}, covering all callers that
+ * queued up meanwhile. Under concurrent load many checkouts share one fsync.
+ *
+ * <p>The journal lives in segment files named after the first LSN they may contain.
+ * A torn frame at the end of the last segment, left by a crash mid-write, is
+ * truncated when the journal is opened.
+ *
+ * <p>A group appended with {@link #appendGroup(List)} is preceded by a
+ * {@link MutationType#TRANSACTION} frame counting its members. Reading stops before
+ * a group whose members are not all intact, so a crash mid-write loses the whole
+ * group rather than part of it.
+ *
+ * <p>{@link JournalListener}s see each flushed group of frames right after it is
+ * forced, which is what log shipping to a standby builds on.
+ */
+public class Journal implements MutationSink, AutoCloseable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final List<JournalListener> listeners = new CopyOnWriteArrayList<>();
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long lastAssignedLsn;
+    private long durableLsn;
+    private boolean flushing;
+    private IOException failure;
+    private boolean closed;
+
+    public Journal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments();
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                lastAssignedLsn = Math.max(recover(last), segmentStartLsn(last) - 1);
+                channel = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            durableLsn = lastAssignedLsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a mutation and returns once it, and everything before it, is on disk.
+     */
+    @Override
+    public void append(Mutation mutation) {
+        // Encode outside the lock; only the LSN and timestamp are patched in while holding it
+        byte[] payload = MutationCodec.encodePayload(mutation);
+        lock.lock();
+        try {
+            ensureUsable();
+            long lsn = ++lastAssignedLsn;
+            MutationCodec.stampPayload(payload, lsn, System.currentTimeMillis());
+            ensurePendingCapacity(MutationCodec.frameSize(payload));
+            MutationCodec.writeFrame(payload, pending);
+            awaitDurable(lsn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the mutations in order and returns once all of them are on disk,
+     * waiting for a single flush rather than one per mutation.
+     */
+    @Override
+    public void appendAll(List<Mutation> mutations) {
+        if (mutations.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(mutations.size());
+        for (Mutation mutation : mutations) {
+            payloads.add(MutationCodec.encodePayload(mutation));
+        }
+        lock.lock();
+        try {
+            ensureUsable();
+            long timestamp = System.currentTimeMillis();
+            for (byte[] payload : payloads) {
+                MutationCodec.stampPayload(payload, ++lastAssignedLsn, timestamp);
+                ensurePendingCapacity(MutationCodec.frameSize(payload));
+                MutationCodec.writeFrame(payload, pending);
+            }
+            awaitDurable(lastAssignedLsn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the mutations as one group, with a single flush, that recovery
+     * replays either whole or not at all.
+     */
+    @Override
+    public void appendGroup(List<Mutation> mutations) {
+        if (mutations.size() < 2) {
+            appendAll(mutations);
+            return;
+        }
+        List<Mutation> group = new ArrayList<>(mutations.size() + 1);
+        group.add(Mutation.of(MutationType.TRANSACTION, mutations.size()));
+        group.addAll(mutations);
+        appendAll(group);
+    }
+
+    /**
+     * Feeds every journaled mutation with an LSN greater than {@code afterLsn} to the consumer, in order.
+     */
+    public void replay(long afterLsn, Consumer<Mutation> consumer) {
+        try {
+            List<Path> segments = listSegments();
+            for (int i = 0; i < segments.size(); i++) {
+                boolean hasLaterSegment = i + 1 < segments.size();
+                if (hasLaterSegment && segmentStartLsn(segments.get(i + 1)) <= afterLsn + 1) {
+                    continue;
+                }
+                readSegment(segments.get(i), mutation -> {
+                    if (mutation.lsn() > afterLsn) {
+                        consumer.accept(mutation);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay journal in " + directory, e);
+        }
+    }
+
+    public void addListener(JournalListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(JournalListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Waits for pending appends to become durable, then starts a new segment.
+     * Returns the last LSN written to the previous segments.
+     */
+    public long rollSegment() {
+        lock.lock();
+        try {
+            while (flushing || pending.position() > 0) {
+                ensureUsable();
+                flushed.awaitUninterruptibly();
+            }
+            ensureUsable();
+            channel.close();
+            openSegment(lastAssignedLsn + 1);
+            return lastAssignedLsn;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Failed to roll journal segment", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes segments whose mutations are all at or below {@code lsn}, e.g. once a snapshot covers them.
+     */
+    public void deleteSegmentsUpTo(long lsn) {
+        try {
+            List<Path> segments = listSegments();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (segmentStartLsn(segments.get(i + 1)) <= lsn + 1) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+        } catch (IOException e) {
+            Logger.logWarning("Failed to delete old journal segments: " + e.getMessage());
+        }
+    }
+
+    public long getLastLsn() {
+        lock.lock();
+        try {
+            return durableLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the lowest LSN still available for replay; older mutations are only covered by snapshots.
+     */
+    public long getFirstAvailableLsn() {
+        try {
+            List<Path> segments = listSegments();
+            return segments.isEmpty() ? getLastLsn() + 1 : segmentStartLsn(segments.get(0));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list journal segments in " + directory, e);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            closed = true;
+            channel.close();
+        } catch (IOException e) {
+            Logger.logError("Failed to close journal: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held; releases it while this thread leads a flush.
+    private void awaitDurable(long lsn) {
+        while (durableLsn < lsn) {
+            ensureUsable();
+            if (flushing) {
+                flushed.awaitUninterruptibly();
+                continue;
+            }
+            flushing = true;
+            ByteBuffer batch = pending;
+            long batchEndLsn = lastAssignedLsn;
+            pending = spare;
+            lock.unlock();
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                lock.lock();
+            }
+            if (error == null) {
+                // Durable before listeners hear of it: one registering meanwhile reads
+                // getLastLsn() and picks this batch up from disk instead
+                durableLsn = batchEndLsn;
+                lock.unlock();
+                try {
+                    notifyListeners(batch, batchEndLsn);
+                } finally {
+                    lock.lock();
+                }
+            } else {
+                failure = error;
+            }
+            batch.clear();
+            spare = batch;
+            flushing = false;
+            flushed.signalAll();
+        }
+    }
+
+    private void notifyListeners(ByteBuffer batch, long lastLsn) {
+        batch.rewind();
+        for (JournalListener listener : listeners) {
+            try {
+                listener.onDurable(batch.asReadOnlyBuffer(), lastLsn);
+            } catch (RuntimeException e) {
+                Logger.logError("Journal listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void ensureUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed; refusing further appends", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private void ensurePendingCapacity(int bytes) {
+        if (pending.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+        pending.flip();
+        larger.put(pending);
+        pending = larger;
+    }
+
+    private long recover(Path segment) throws IOException {
+        long[] lastLsn = {0};
+        long validLength = readSegment(segment, mutation -> lastLsn[0] = mutation.lsn());
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            if (file.size() > validLength) {
+                Logger.logWarning("Truncating torn journal tail in " + segment.getFileName());
+                file.truncate(validLength);
+                file.force(true);
+            }
+        }
+        return lastLsn[0];
+    }
+
+    /**
+     * Reads all intact frames of a segment, up to the last complete group, and
+     * returns the byte length they cover.
+     */
+    private static long readSegment(Path segment, Consumer<Mutation> consumer) throws IOException {
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (file.size() == 0) {
+                return 0;
+            }
+            MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            List<Mutation> group = new ArrayList<>();
+            int groupRemaining = 0;
+            long complete = 0;
+            Mutation mutation;
+            while ((mutation = MutationCodec.readFrame(data)) != null) {
+                if (groupRemaining == 0 && mutation.type() == MutationType.TRANSACTION) {
+                    groupRemaining = mutation.intField(0);
+                    group.add(mutation);
+                    continue;
+                }
+                if (groupRemaining > 0) {
+                    group.add(mutation);
+                    if (--groupRemaining > 0) {
+                        continue;
+                    }
+                    group.forEach(consumer);
+                    group.clear();
+                } else {
+                    consumer.accept(mutation);
+                }
+                complete = data.position();
+            }
+            return complete;
+        }
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long segmentStartLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Notified each time a group of journal frames becomes durable, e.g. to ship them
+ * to a standby. Calls are made in LSN order from the thread that flushed the group.
+ */
+public interface JournalListener {
+    /**
+     * Receives the raw frames just forced to disk, ending at {@code lastLsn}.
+     * The buffer is reused once this returns, so implementations must copy what they keep.
+     */
+    void onDurable(ByteBuffer frames, long lastLsn);
+}
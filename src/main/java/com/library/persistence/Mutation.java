@@ -0,0 +1,60 @@
+package com.library.persistence;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single state change made by one of the library services.
+ * Fields are stored as strings in a fixed order per {@link MutationType}; dates are
+ * encoded as epoch days. The log sequence number (LSN) and timestamp are assigned
+ * when the mutation is appended to a {@link Journal}.
+ */
+public record Mutation(long lsn, long timestampMillis, MutationType type, List<String> fields) {
+
+    public static Mutation of(MutationType type, Object... fields) {
+        String[] values = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Object field = fields[i];
+            if (field instanceof LocalDate date) {
+                values[i] = Long.toString(date.toEpochDay());
+            } else {
+                values[i] = field == null ? null : field.toString();
+            }
+        }
+        return new Mutation(0, 0, type, Collections.unmodifiableList(Arrays.asList(values)));
+    }
+
+    public Mutation sequenced(long newLsn, long newTimestampMillis) {
+        return new Mutation(newLsn, newTimestampMillis, type, fields);
+    }
+
+    /**
+     * Records journaled before a field was appended to their type do not have it.
+     */
+    public boolean hasField(int index) {
+        return index < fields.size();
+    }
+
+    public String field(int index) {
+        return fields.get(index);
+    }
+
+    public int intField(int index) {
+        return Integer.parseInt(fields.get(index));
+    }
+
+    public double doubleField(int index) {
+        return Double.parseDouble(fields.get(index));
+    }
+
+    public LocalDate dateField(int index) {
+        String value = fields.get(index);
+        return value == null ? null : LocalDate.ofEpochDay(Long.parseLong(value));
+    }
+
+    public <E extends Enum<E>> E enumField(int index, Class<E> enumType) {
+        return Enum.valueOf(enumType, fields.get(index));
+    }
+}
@@ -0,0 +1,119 @@
+package com.library.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary framing for mutations. Each frame is:
+ * <pre>
+ *   int   payload length
+ *   int   CRC32 of the payload
+ *   long  LSN
+ *   long  timestamp millis
+ *   byte  mutation type ordinal
+ *   short field count
+ *   field* (int byte length, -1 for null, then UTF-8 bytes)
+ * </pre>
+ */
+public final class MutationCodec {
+    public static final int FRAME_HEADER_BYTES = 8;
+    private static final MutationType[] TYPES = MutationType.values();
+
+    private MutationCodec() {
+    }
+
+    public static byte[] encodePayload(Mutation mutation) {
+        List<byte[]> encodedFields = new ArrayList<>(mutation.fields().size());
+        int size = Long.BYTES * 2 + 1 + Short.BYTES;
+        for (String field : mutation.fields()) {
+            byte[] bytes = field == null ? null : field.getBytes(StandardCharsets.UTF_8);
+            encodedFields.add(bytes);
+            size += Integer.BYTES + (bytes == null ? 0 : bytes.length);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.putLong(mutation.lsn());
+        payload.putLong(mutation.timestampMillis());
+        payload.put((byte) mutation.type().ordinal());
+        payload.putShort((short) encodedFields.size());
+        for (byte[] bytes : encodedFields) {
+            if (bytes == null) {
+                payload.putInt(-1);
+            } else {
+                payload.putInt(bytes.length);
+                payload.put(bytes);
+            }
+        }
+        return payload.array();
+    }
+
+    /**
+     * Overwrites the LSN and timestamp of an encoded payload in place.
+     */
+    public static void stampPayload(byte[] payload, long lsn, long timestampMillis) {
+        ByteBuffer header = ByteBuffer.wrap(payload);
+        header.putLong(0, lsn);
+        header.putLong(Long.BYTES, timestampMillis);
+    }
+
+    public static int frameSize(byte[] payload) {
+        return FRAME_HEADER_BYTES + payload.length;
+    }
+
+    public static void writeFrame(byte[] payload, ByteBuffer target) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        target.putInt(payload.length);
+        target.putInt((int) crc.getValue());
+        target.put(payload);
+    }
+
+    /**
+     * Reads the frame at the buffer's position, advancing past it.
+     * Returns null, leaving the position unchanged, if the remaining bytes do not
+     * hold a complete frame with a valid checksum (e.g. a torn write at the tail).
+     */
+    public static Mutation readFrame(ByteBuffer source) {
+        int start = source.position();
+        if (source.remaining() < FRAME_HEADER_BYTES) {
+            return null;
+        }
+        int length = source.getInt();
+        int checksum = source.getInt();
+        if (length <= 0 || length > source.remaining()) {
+            source.position(start);
+            return null;
+        }
+        byte[] payload = new byte[length];
+        source.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            source.position(start);
+            return null;
+        }
+        return decodePayload(ByteBuffer.wrap(payload));
+    }
+
+    public static Mutation decodePayload(ByteBuffer payload) {
+        long lsn = payload.getLong();
+        long timestamp = payload.getLong();
+        MutationType type = TYPES[payload.get()];
+        int count = payload.getShort();
+        List<String> fields = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = payload.getInt();
+            if (length < 0) {
+                fields.add(null);
+            } else {
+                fields.add(new String(payload.array(), payload.arrayOffset() + payload.position(), length,
+                        StandardCharsets.UTF_8));
+                payload.position(payload.position() + length);
+            }
+        }
+        return new Mutation(lsn, timestamp, type, Collections.unmodifiableList(fields));
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.persistence;
+
+import java.util.List;
+
+/**
+ * Receives the mutations made by the library services, e.g. to journal them.
+ */
+public interface MutationSink {
+    MutationSink NONE = mutation -> { };
+
+    void append(Mutation mutation);
+
+    /**
+     * Appends a mutation along with how to undo the in-memory change it records.
+     * A sink that holds mutations back until a transaction commits runs the undo if
+     * the transaction fails instead; others just append.
+     */
+    default void append(Mutation mutation, Runnable undo) {
+        append(mutation);
+    }
+
+    /**
+     * Appends mutations in order. Sinks may make the whole group durable at once
+     * instead of one mutation at a time.
+     */
+    default void appendAll(List<Mutation> mutations) {
+        mutations.forEach(this::append);
+    }
+
+    /**
+     * Appends mutations that belong together, e.g. a return and the hold it
+     * fulfils. Sinks that survive crashes must keep either all of them or none.
+     */
+    default void appendGroup(List<Mutation> mutations) {
+        appendAll(mutations);
+    }
+}
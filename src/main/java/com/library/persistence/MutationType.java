@@ -0,0 +1,25 @@
+package com.library.persistence;
+
+/**
+ * Enum representing the kinds of state changes recorded in the journal.
+ */
+public enum MutationType {
+    BOOK_ADDED,
+    BOOK_UPDATED,
+    BOOK_REMOVED,
+    PATRON_ADDED,
+    PATRON_UPDATED,
+    PATRON_REMOVED,
+    BOOK_BORROWED,
+    BOOK_RETURNED,
+    RESERVATION_CREATED,
+    RESERVATION_STATUS_CHANGED,
+    PATRON_STATUS_CHANGED,
+    BOOK_RENEWED,
+    BOOK_HOLD_CHANGED,
+    /**
+     * Opens a group of mutations that recovery applies all together or not at all;
+     * its one field is how many mutations follow in the group.
+     */
+    TRANSACTION
+}
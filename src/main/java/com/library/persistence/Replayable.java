@@ -0,0 +1,10 @@
+package com.library.persistence;
+
+/**
+ * Implemented by services that can rebuild their state from journaled mutations.
+ * Implementations ignore mutation types they do not own, and applying a mutation
+ * must not emit new mutations, notifications or log lines.
+ */
+public interface Replayable {
+    void apply(Mutation mutation);
+}
@@ -0,0 +1,354 @@
+package com.library.persistence;
+
+import com.library.models.*;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Point-in-time snapshots of the library state in a compact binary format.
+ *
+ * <p>A snapshot file starts with a magic number, a format version and the journal
+ * LSN it covers, followed by four sections (books, patrons, borrow records,
+ * reservations). Each record is preceded by a 1 byte and each section ends with a 0
+ * byte, so snapshots can be streamed from live collections without counting first.
+ * Strings are an int byte length (-1 for null) and UTF-8 bytes; dates are epoch days,
+ * with {@link Long#MIN_VALUE} for null. Version 2 added each patron's membership
+ * expiry and status end dates; version 1 files still load, with those dates derived
+ * or left empty. Version 3 added the version stamp of each book, patron and
+ * reservation, read back before the restoring write stamps it again, so stamps
+ * carry on upwards across a restart and a version read before it can only conflict.
+ *
+ * <p>Snapshots are loaded through memory-mapped windows of the file, so even very
+ * large snapshots are decoded straight from the page cache.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x4C4D5353; // "LMSS"
+    private static final int VERSION = 3;
+    private static final int FIRST_READABLE_VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final int SNAPSHOTS_TO_KEEP = 2;
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create snapshot directory " + directory, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot covering the journal up to {@code lsn} and returns its path.
+     * The file is written under a temporary name and atomically renamed when complete.
+     */
+    public Path write(long lsn, Iterable<Book> books, Iterable<Patron> patrons,
+                      Iterable<BorrowRecord> borrowRecords, Iterable<Reservation> reservations) {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, lsn, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            for (Book book : books) {
+                out.writeByte(1);
+                writeString(out, book.getIsbn());
+                writeString(out, book.getTitle());
+                writeString(out, book.getAuthor());
+                out.writeInt(book.getPublicationYear());
+                out.writeByte(book.getStatus().ordinal());
+                writeString(out, book.getBorrowerId());
+                writeDate(out, book.getBorrowDate());
+                writeDate(out, book.getDueDate());
+                out.writeLong(book.getVersion());
+            }
+            out.writeByte(0);
+            for (Patron patron : patrons) {
+                out.writeByte(1);
+                writeString(out, patron.getPatronId());
+                writeString(out, patron.getName());
+                writeString(out, patron.getEmail());
+                writeString(out, patron.getPhoneNumber());
+                writeString(out, patron.getAddress());
+                out.writeByte(patron.getPatronType().ordinal());
+                writeDate(out, patron.getMembershipDate());
+                out.writeByte(patron.getStatus().ordinal());
+                writeDate(out, patron.getMembershipExpiryDate());
+                writeDate(out, patron.getStatusUntil());
+                out.writeLong(patron.getVersion());
+            }
+            out.writeByte(0);
+            for (BorrowRecord record : borrowRecords) {
+                out.writeByte(1);
+                writeString(out, record.getRecordId());
+                writeString(out, record.getPatronId());
+                writeString(out, record.getIsbn());
+                writeDate(out, record.getBorrowDate());
+                writeDate(out, record.getDueDate());
+                writeDate(out, record.getReturnDate());
+                out.writeDouble(record.getFineAmount());
+            }
+            out.writeByte(0);
+            for (Reservation reservation : reservations) {
+                out.writeByte(1);
+                writeString(out, reservation.getReservationId());
+                writeString(out, reservation.getPatronId());
+                writeString(out, reservation.getIsbn());
+                writeDate(out, reservation.getReservationDate());
+                writeDate(out, reservation.getExpiryDate());
+                out.writeByte(reservation.getStatus().ordinal());
+                out.writeLong(reservation.getVersion());
+            }
+            out.writeByte(0);
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + target, e);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOlderSnapshots();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to publish snapshot " + target, e);
+        }
+        return target;
+    }
+
+    /**
+     * Loads the newest snapshot, if any, and returns the journal LSN it covers.
+     */
+    public OptionalLong loadLatest(SnapshotVisitor visitor) {
+        try {
+            List<Path> snapshots = listSnapshots();
+            if (snapshots.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(load(snapshots.get(snapshots.size() - 1), visitor));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load snapshot from " + directory, e);
+        }
+    }
+
+    /**
+     * Returns the newest snapshot file, e.g. to copy it to a standby.
+     */
+    public Optional<Path> latestSnapshot() {
+        try {
+            List<Path> snapshots = listSnapshots();
+            return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list snapshots in " + directory, e);
+        }
+    }
+
+    /**
+     * Returns the journal LSN covered by a snapshot file written by this store.
+     */
+    public static long snapshotLsn(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Stores a snapshot file received from elsewhere, e.g. a primary, so it becomes the latest one here.
+     */
+    public Path install(long lsn, InputStream in, long length) {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, lsn, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long copied = channel.transferFrom(Channels.newChannel(in), 0, length);
+            if (copied != length) {
+                throw new IOException("Snapshot stream ended after " + copied + " of " + length + " bytes");
+            }
+            channel.force(true);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOlderSnapshots();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to install snapshot " + target, e);
+        }
+        return target;
+    }
+
+    private long load(Path snapshot, SnapshotVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(channel);
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version < FIRST_READABLE_VERSION || version > VERSION) {
+                throw new IOException("Unsupported snapshot format: " + snapshot);
+            }
+            long lsn = in.readLong();
+            BookStatus[] bookStatuses = BookStatus.values();
+            PatronType[] patronTypes = PatronType.values();
+            PatronStatus[] patronStatuses = PatronStatus.values();
+            ReservationStatus[] reservationStatuses = ReservationStatus.values();
+            while (in.readByte() != 0) {
+                Book book = new Book(in.readString(), in.readString(), in.readString(), in.readInt());
+                book.setStatus(bookStatuses[in.readByte()]);
+                book.setBorrowerId(in.readString());
+                book.setBorrowDate(in.readDate());
+                book.setDueDate(in.readDate());
+                if (version >= 3) {
+                    book.setVersion(in.readLong());
+                }
+                visitor.book(book);
+            }
+            while (in.readByte() != 0) {
+                Patron patron = new Patron(in.readString(), in.readString(), in.readString(), in.readString(),
+                        in.readString(), patronTypes[in.readByte()], in.readDate());
+                patron.setStatus(patronStatuses[in.readByte()]);
+                if (version >= 2) {
+                    patron.setMembershipExpiryDate(in.readDate());
+                    patron.setStatusUntil(in.readDate());
+                }
+                if (version >= 3) {
+                    patron.setVersion(in.readLong());
+                }
+                visitor.patron(patron);
+            }
+            while (in.readByte() != 0) {
+                BorrowRecord record = new BorrowRecord(in.readString(), in.readString(), in.readString(),
+                        in.readDate(), in.readDate());
+                record.setReturnDate(in.readDate());
+                record.setFineAmount(in.readDouble());
+                visitor.borrowRecord(record);
+            }
+            while (in.readByte() != 0) {
+                Reservation reservation = new Reservation(in.readString(), in.readString(), in.readString(),
+                        in.readDate(), in.readDate());
+                reservation.setStatus(reservationStatuses[in.readByte()]);
+                if (version >= 3) {
+                    reservation.setVersion(in.readLong());
+                }
+                visitor.reservation(reservation);
+            }
+            return lsn;
+        }
+    }
+
+    private void deleteOlderSnapshots() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        for (int i = 0; i < snapshots.size() - SNAPSHOTS_TO_KEEP; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            files.forEach(snapshots::add);
+        }
+        snapshots.sort(null);
+        return snapshots;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    /**
+     * Sequential reader over a file mapped in fixed-size windows, remapping as it advances.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private ByteBuffer window;
+        private long windowStart;
+
+        private MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = windowStart + window.position();
+                if (position + bytes > size) {
+                    throw new IOException("Snapshot is truncated");
+                }
+                map(position);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+        }
+
+        private byte readByte() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        private int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        private long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return window.getLong();
+        }
+
+        private double readDouble() throws IOException {
+            ensure(Double.BYTES);
+            return window.getDouble();
+        }
+
+        private LocalDate readDate() throws IOException {
+            long epochDay = readLong();
+            return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+        }
+
+        private String readString() throws IOException {
+            int length = readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            int copied = 0;
+            while (copied < length) {
+                ensure(1);
+                int chunk = Math.min(length - copied, window.remaining());
+                window.get(bytes, copied, chunk);
+                copied += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.library.persistence;
+
+import com.library.models.Book;
+import com.library.models.BorrowRecord;
+import com.library.models.Patron;
+import com.library.models.Reservation;
+
+/**
+ * Receives the entities of a snapshot as it is loaded. Books and patrons are
+ * delivered before the loans and reservations that refer to them.
+ */
+public interface SnapshotVisitor {
+    void book(Book book);
+
+    void patron(Patron patron);
+
+    void borrowRecord(BorrowRecord record);
+
+    void reservation(Reservation reservation);
+
+    /**
+     * Discards the state a snapshot replaces. Called before a snapshot is loaded over
+     * state that may not be empty, e.g. by a standby that fell behind compaction.
+     */
+    default void clear() {
+    }
+}
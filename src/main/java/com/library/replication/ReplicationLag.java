@@ -0,0 +1,25 @@
+package com.library.replication;
+
+import java.time.Duration;
+
+/**
+ * How far a standby trails its primary.
+ *
+ * @param appliedLsn last journal LSN applied on the standby
+ * @param primaryLsn last durable LSN the primary has reported
+ * @param timeBehind age of the last applied mutation by the primary's clock when
+ *                   the standby is behind, zero when caught up
+ * @param connected  whether the standby is currently connected to the primary
+ */
+public record ReplicationLag(long appliedLsn, long primaryLsn, Duration timeBehind, boolean connected) {
+
+    public long lsnsBehind() {
+        return Math.max(0, primaryLsn - appliedLsn);
+    }
+
+    @Override
+    public String toString() {
+        return "applied=" + appliedLsn + " primary=" + primaryLsn + " behind=" + lsnsBehind()
+                + " (" + timeBehind.toMillis() + " ms)" + (connected ? "" : " disconnected");
+    }
+}
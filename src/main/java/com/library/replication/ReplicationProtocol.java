@@ -0,0 +1,24 @@
+package com.library.replication;
+
+/**
+ * Wire format between a {@link ReplicationServer} and a {@link StandbyReplicator}.
+ *
+ * <p>On connecting, the standby sends the last LSN it has applied as a long. The
+ * primary then streams messages, each starting with a one-byte tag:
+ * <pre>
+ *   SNAPSHOT  long lsn, long length, snapshot file bytes
+ *   FRAMES    int length, journal frames exactly as written by the journal
+ *   HEARTBEAT long primary durable LSN, long primary clock millis
+ * </pre>
+ * Journal frames carry their own CRC, so the standby validates them with
+ * {@link com.library.persistence.MutationCodec#readFrame}.
+ */
+final class ReplicationProtocol {
+    static final byte SNAPSHOT = 'S';
+    static final byte FRAMES = 'F';
+    static final byte HEARTBEAT = 'H';
+    static final int HEARTBEAT_INTERVAL_MILLIS = 1000;
+
+    private ReplicationProtocol() {
+    }
+}
@@ -0,0 +1,291 @@
+package com.library.replication;
+
+import com.library.persistence.Journal;
+import com.library.persistence.JournalListener;
+import com.library.persistence.MutationCodec;
+import com.library.persistence.SnapshotStore;
+import com.library.utils.Logger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ships the primary's journal to standbys over TCP.
+ *
+ * <p>Each standby gets its own sender thread. A new connection first catches up
+ * from the journal files on disk (preceded by the latest snapshot if the journal
+ * segments it needs were already compacted away), then follows the live stream of
+ * durable frames handed over by the {@link Journal}. Frames are forwarded as the
+ * journal wrote them, without decoding. A standby that falls more than
+ * {@value #QUEUE_CAPACITY} flushes behind is disconnected and catches up from disk
+ * when it reconnects, so a slow standby never holds memory on the primary.
+ */
+public class ReplicationServer implements JournalListener, AutoCloseable {
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int CATCH_UP_BATCH_BYTES = 64 * 1024;
+
+    private final Journal journal;
+    private final SnapshotStore snapshotStore;
+    private final ServerSocket serverSocket;
+    private final CopyOnWriteArrayList<StandbySession> sessions = new CopyOnWriteArrayList<>();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Listens on the loopback interface; pass port 0 to pick a free port.
+     */
+    public ReplicationServer(Journal journal, SnapshotStore snapshotStore, int port) {
+        this(journal, snapshotStore, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public ReplicationServer(Journal journal, SnapshotStore snapshotStore, InetSocketAddress bindAddress) {
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        try {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for standbys on " + bindAddress, e);
+        }
+        this.acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        journal.addListener(this);
+        acceptor.start();
+        Logger.logInfo(() -> "Replication server listening on " + serverSocket.getLocalSocketAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getStandbyCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the last LSN shipped to each connected standby, keyed by its address.
+     */
+    public Map<String, Long> getShippedLsns() {
+        Map<String, Long> shipped = new LinkedHashMap<>();
+        for (StandbySession session : sessions) {
+            shipped.put(session.name, session.shippedLsn);
+        }
+        return shipped;
+    }
+
+    @Override
+    public void onDurable(ByteBuffer frames, long lastLsn) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        // One copy shared by every standby; the journal reuses its buffer after this returns
+        byte[] chunk = new byte[frames.remaining()];
+        frames.get(chunk);
+        for (StandbySession session : sessions) {
+            if (!session.queue.offer(chunk)) {
+                Logger.logWarning(() -> "Standby " + session.name + " fell too far behind; disconnecting");
+                session.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        journal.removeListener(this);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            Logger.logWarning("Failed to close replication socket: " + e.getMessage());
+        }
+        for (StandbySession session : sessions) {
+            session.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                StandbySession session = new StandbySession(socket);
+                Thread sender = new Thread(session, "replication-sender-" + session.name);
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    Logger.logError("Failed to accept standby connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final class StandbySession implements Runnable {
+        private final Socket socket;
+        private final String name;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile long shippedLsn;
+        private DataOutputStream out;
+
+        private StandbySession(Socket socket) {
+            this.socket = socket;
+            this.name = socket.getRemoteSocketAddress().toString();
+        }
+
+        @Override
+        public void run() {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                long appliedLsn = in.readLong();
+                Logger.logInfo(() -> "Standby " + name + " connected at LSN " + appliedLsn);
+                // Register before reading the files, so nothing flushed meanwhile is missed
+                sessions.add(this);
+                catchUp(appliedLsn);
+                stream();
+            } catch (IOException | UncheckedIOException e) {
+                if (!closed && !socket.isClosed()) {
+                    Logger.logWarning(() -> "Replication to " + name + " stopped: " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void catchUp(long appliedLsn) throws IOException {
+            shippedLsn = appliedLsn;
+            if (appliedLsn + 1 < journal.getFirstAvailableLsn()) {
+                sendSnapshot();
+            }
+            // Only ship what is already durable; later frames arrive through the queue
+            long durableLsn = journal.getLastLsn();
+            ByteBuffer batch = ByteBuffer.allocate(CATCH_UP_BATCH_BYTES);
+            long[] batchEndLsn = {shippedLsn};
+            try {
+                journal.replay(shippedLsn, mutation -> {
+                    if (mutation.lsn() > durableLsn) {
+                        return;
+                    }
+                    byte[] payload = MutationCodec.encodePayload(mutation);
+                    int frameSize = MutationCodec.frameSize(payload);
+                    if (batch.remaining() < frameSize) {
+                        sendBatch(batch, batchEndLsn[0]);
+                    }
+                    if (batch.remaining() < frameSize) {
+                        ByteBuffer single = ByteBuffer.allocate(frameSize);
+                        MutationCodec.writeFrame(payload, single);
+                        sendBatch(single, mutation.lsn());
+                    } else {
+                        MutationCodec.writeFrame(payload, batch);
+                    }
+                    batchEndLsn[0] = mutation.lsn();
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            sendBatch(batch, batchEndLsn[0]);
+        }
+
+        private void sendSnapshot() throws IOException {
+            Optional<Path> snapshot = snapshotStore.latestSnapshot();
+            if (snapshot.isEmpty()) {
+                throw new IOException("journal before LSN " + journal.getFirstAvailableLsn()
+                        + " is gone and no snapshot is available");
+            }
+            long lsn = SnapshotStore.snapshotLsn(snapshot.get());
+            long length = Files.size(snapshot.get());
+            out.writeByte(ReplicationProtocol.SNAPSHOT);
+            out.writeLong(lsn);
+            out.writeLong(length);
+            Files.copy(snapshot.get(), out);
+            out.flush();
+            shippedLsn = lsn;
+            Logger.logInfo(() -> "Shipped snapshot at LSN " + lsn + " to standby " + name);
+        }
+
+        private void sendBatch(ByteBuffer batch, long lastLsn) {
+            if (batch.position() == 0) {
+                return;
+            }
+            try {
+                out.writeByte(ReplicationProtocol.FRAMES);
+                out.writeInt(batch.position());
+                out.write(batch.array(), 0, batch.position());
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            batch.clear();
+            shippedLsn = lastLsn;
+        }
+
+        private void stream() throws IOException, InterruptedException {
+            while (!closed && !socket.isClosed()) {
+                byte[] chunk = queue.poll(ReplicationProtocol.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(journal.getLastLsn());
+                    out.writeLong(System.currentTimeMillis());
+                    out.flush();
+                    continue;
+                }
+                sendNewFrames(chunk);
+            }
+        }
+
+        /**
+         * Sends the frames of a chunk the catch-up has not already covered.
+         */
+        private void sendNewFrames(byte[] chunk) throws IOException {
+            ByteBuffer frames = ByteBuffer.wrap(chunk);
+            int start = -1;
+            long lastLsn = shippedLsn;
+            while (frames.remaining() >= MutationCodec.FRAME_HEADER_BYTES + Long.BYTES) {
+                int position = frames.position();
+                int length = frames.getInt(position);
+                long lsn = frames.getLong(position + MutationCodec.FRAME_HEADER_BYTES);
+                if (lsn > shippedLsn && start < 0) {
+                    start = position;
+                }
+                lastLsn = Math.max(lastLsn, lsn);
+                frames.position(position + MutationCodec.FRAME_HEADER_BYTES + length);
+            }
+            if (start < 0) {
+                return;
+            }
+            out.writeByte(ReplicationProtocol.FRAMES);
+            out.writeInt(chunk.length - start);
+            out.write(chunk, start, chunk.length - start);
+            out.flush();
+            shippedLsn = lastLsn;
+        }
+
+        private void close() {
+            sessions.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already gone
+            }
+        }
+    }
+}
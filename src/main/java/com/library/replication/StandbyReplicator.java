@@ -0,0 +1,207 @@
+package com.library.replication;
+
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationCodec;
+import com.library.persistence.SnapshotStore;
+import com.library.persistence.SnapshotVisitor;
+import com.library.utils.Logger;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Receives the journal stream from a {@link ReplicationServer} and applies it to a
+ * standby's services on a dedicated thread. Reconnects automatically and resumes
+ * from the last applied LSN. A snapshot shipped by the primary is written to a
+ * temporary directory, loaded through the supplied visitor in place of the
+ * standby's state and deleted. Snapshots are only sent to a standby whose position
+ * the primary's journal no longer covers: a fresh one, or one that fell behind
+ * compaction.
+ */
+public class StandbyReplicator implements AutoCloseable {
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final InetSocketAddress primary;
+    private final SnapshotVisitor snapshotLoader;
+    private final Consumer<Mutation> applier;
+    private final Thread receiver;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile Socket socket;
+    private volatile long appliedLsn;
+    private volatile long appliedTimestampMillis;
+    private volatile long primaryLsn;
+    private volatile long primaryClockOffsetMillis;
+
+    public StandbyReplicator(InetSocketAddress primary, SnapshotVisitor snapshotLoader, Consumer<Mutation> applier) {
+        this.primary = primary;
+        this.snapshotLoader = snapshotLoader;
+        this.applier = applier;
+        this.receiver = new Thread(this::receiveLoop, "replication-standby");
+        receiver.setDaemon(true);
+    }
+
+    public void start() {
+        receiver.start();
+    }
+
+    public long getAppliedLsn() {
+        return appliedLsn;
+    }
+
+    public ReplicationLag getLag() {
+        long applied = appliedLsn;
+        long primaryLast = Math.max(primaryLsn, applied);
+        Duration behind = Duration.ZERO;
+        if (applied < primaryLast && appliedTimestampMillis > 0) {
+            long primaryNow = System.currentTimeMillis() + primaryClockOffsetMillis;
+            behind = Duration.ofMillis(Math.max(0, primaryNow - appliedTimestampMillis));
+        }
+        return new ReplicationLag(applied, primaryLast, behind, connected);
+    }
+
+    /**
+     * Waits until the standby has applied {@code lsn}; returns false on timeout.
+     */
+    public boolean awaitLsn(long lsn, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (appliedLsn < lsn) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // Closing only to unblock the receiver
+            }
+        }
+        try {
+            receiver.join(RECONNECT_DELAY_MILLIS * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void receiveLoop() {
+        while (!closed) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(primary);
+                connection.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(connection.getOutputStream());
+                out.writeLong(appliedLsn);
+                out.flush();
+                connected = true;
+                Logger.logInfo(() -> "Standby connected to " + primary + " from LSN " + appliedLsn);
+                receive(new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16)));
+            } catch (IOException e) {
+                if (!closed) {
+                    Logger.logWarning(() -> "Standby lost primary " + primary + ": " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            if (!closed) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(DataInputStream in) throws IOException {
+        while (!closed) {
+            byte tag = in.readByte();
+            switch (tag) {
+                case ReplicationProtocol.FRAMES -> applyFrames(in);
+                case ReplicationProtocol.HEARTBEAT -> {
+                    primaryLsn = in.readLong();
+                    primaryClockOffsetMillis = in.readLong() - System.currentTimeMillis();
+                }
+                case ReplicationProtocol.SNAPSHOT -> loadSnapshot(in);
+                default -> throw new IOException("Unknown replication message " + tag);
+            }
+        }
+    }
+
+    private void applyFrames(DataInputStream in) throws IOException {
+        byte[] chunk = new byte[in.readInt()];
+        in.readFully(chunk);
+        ByteBuffer frames = ByteBuffer.wrap(chunk);
+        while (frames.hasRemaining()) {
+            Mutation mutation = MutationCodec.readFrame(frames);
+            if (mutation == null) {
+                throw new IOException("Corrupt journal frame received at LSN " + appliedLsn);
+            }
+            if (mutation.lsn() <= appliedLsn) {
+                continue;
+            }
+            if (mutation.lsn() != appliedLsn + 1) {
+                // Reconnecting resumes from the last applied LSN and fills the gap
+                throw new IOException("Expected LSN " + (appliedLsn + 1) + " but received " + mutation.lsn());
+            }
+            applier.accept(mutation);
+            appliedTimestampMillis = mutation.timestampMillis();
+            appliedLsn = mutation.lsn();
+            if (appliedLsn > primaryLsn) {
+                primaryLsn = appliedLsn;
+            }
+        }
+    }
+
+    private void loadSnapshot(DataInputStream in) throws IOException {
+        long lsn = in.readLong();
+        long length = in.readLong();
+        // Once loaded the file is of no use: a standby that needs another is sent a fresh one
+        Path directory = Files.createTempDirectory("library-standby");
+        try {
+            SnapshotStore snapshotStore = new SnapshotStore(directory);
+            snapshotStore.install(lsn, in, length);
+            // The snapshot replaces what this standby holds; anything deleted on the primary must go too
+            snapshotLoader.clear();
+            snapshotStore.loadLatest(snapshotLoader);
+        } catch (UncheckedIOException e) {
+            // Reconnecting asks for the snapshot again
+            throw e.getCause();
+        } finally {
+            deleteDirectory(directory);
+        }
+        appliedLsn = lsn;
+        Logger.logInfo(() -> "Standby loaded snapshot at LSN " + lsn);
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            Logger.logWarning(() -> "Cannot delete standby snapshot directory " + directory + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.repository;
+
+import com.library.models.Book;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage abstraction for books.
+ * Books returned by a repository may be detached copies, so changes must be written back with {@link #save(Book)}.
+ *
+ * <p>Every write stamps the stored book with the next {@linkplain Book#getVersion() version}
+ * and sets it on the instance written: 1 on insert, one more than before on save or
+ * replace. {@link #replace} writes only if the version is unchanged, which lets
+ * concurrent writers detect conflicts without locking.
+ */
+public interface BookRepository {
+    /**
+     * Inserts the book unless one with the same ISBN exists; returns false in that case.
+     */
+    boolean insert(Book book);
+    void save(Book book);
+    void saveAll(Collection<Book> books);
+
+    /**
+     * Stores {@code book} in place of the stored book only if that is still at
+     * {@code expectedVersion}. Returns false, writing nothing, if it has moved on or is gone.
+     */
+    boolean replace(Book book, long expectedVersion);
+    Optional<Book> findByIsbn(String isbn);
+    Optional<Book> deleteByIsbn(String isbn);
+    List<Book> findAll();
+    List<Book> findAvailable();
+    List<Book> findUnavailable();
+}
@@ -0,0 +1,40 @@
+package com.library.repository;
+
+import com.library.models.Book;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time view of the catalog. Every read through a snapshot sees the
+ * catalog exactly as it was when the snapshot was opened, however long the
+ * reader takes and whatever writers do meanwhile. Books handed out by a snapshot
+ * are shared and must not be modified. Close the snapshot when done so the
+ * versions it pins can be reclaimed.
+ */
+public interface CatalogSnapshot extends AutoCloseable {
+    Stream<Book> books();
+
+    Optional<Book> findBook(String isbn);
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Wraps an already materialized list, for stores that cannot version their state.
+     */
+    static CatalogSnapshot of(List<Book> books) {
+        return new CatalogSnapshot() {
+            @Override
+            public Stream<Book> books() {
+                return books.stream();
+            }
+
+            @Override
+            public Optional<Book> findBook(String isbn) {
+                return books.stream().filter(book -> book.getIsbn().equals(isbn)).findFirst();
+            }
+        };
+    }
+}
@@ -0,0 +1,85 @@
+package com.library.repository;
+
+import com.library.models.Book;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory book repository backed by a ConcurrentHashMap.
+ * Returns the stored instances themselves, so changes are visible before {@link #save(Book)};
+ * prepare a change on a {@linkplain Book#Book(Book) copy} and {@link #replace} it to keep
+ * readers from seeing it half made. Versions are stamped inside the map's per-key
+ * compute, so a replace cannot interleave with another write to the same book.
+ */
+public class InMemoryBookRepository implements BookRepository {
+    private final Map<String, Book> books = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insert(Book book) {
+        boolean[] inserted = new boolean[1];
+        books.computeIfAbsent(book.getIsbn(), id -> {
+            inserted[0] = true;
+            book.setVersion(1);
+            return book;
+        });
+        return inserted[0];
+    }
+
+    @Override
+    public void save(Book book) {
+        books.compute(book.getIsbn(), (id, stored) -> {
+            book.setVersion((stored == null ? book : stored).getVersion() + 1);
+            return book;
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Book> batch) {
+        for (Book book : batch) {
+            save(book);
+        }
+    }
+
+    @Override
+    public boolean replace(Book book, long expectedVersion) {
+        boolean[] replaced = new boolean[1];
+        books.computeIfPresent(book.getIsbn(), (id, stored) -> {
+            if (stored.getVersion() != expectedVersion) {
+                return stored;
+            }
+            replaced[0] = true;
+            book.setVersion(expectedVersion + 1);
+            return book;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        return Optional.ofNullable(books.get(isbn));
+    }
+
+    @Override
+    public Optional<Book> deleteByIsbn(String isbn) {
+        return Optional.ofNullable(books.remove(isbn));
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return new ArrayList<>(books.values());
+    }
+
+    @Override
+    public List<Book> findAvailable() {
+        return books.values().stream()
+                .filter(Book::isAvailable)
+                .toList();
+    }
+
+    @Override
+    public List<Book> findUnavailable() {
+        return books.values().stream()
+                .filter(book -> !book.isAvailable())
+                .toList();
+    }
+}
@@ -0,0 +1,95 @@
+package com.library.repository;
+
+import com.library.models.BorrowRecord;
+import com.library.models.BorrowingHistory;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory loan repository backed by a ConcurrentHashMap.
+ */
+public class InMemoryLoanRepository implements LoanRepository {
+    private final Map<String, BorrowRecord> borrowRecords = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insert(BorrowRecord record) {
+        return borrowRecords.putIfAbsent(record.getRecordId(), record) == null;
+    }
+
+    @Override
+    public void save(BorrowRecord record) {
+        borrowRecords.put(record.getRecordId(), record);
+    }
+
+    @Override
+    public void saveAll(Collection<BorrowRecord> batch) {
+        for (BorrowRecord record : batch) {
+            save(record);
+        }
+    }
+
+    @Override
+    public Optional<BorrowRecord> findById(String recordId) {
+        return Optional.ofNullable(borrowRecords.get(recordId));
+    }
+
+    @Override
+    public Optional<BorrowRecord> deleteById(String recordId) {
+        return Optional.ofNullable(borrowRecords.remove(recordId));
+    }
+
+    @Override
+    public Optional<BorrowRecord> findActive(String patronId, String isbn) {
+        return borrowRecords.values().stream()
+                .filter(record -> record.getPatronId().equals(patronId) && 
+                                 record.getIsbn().equals(isbn) && 
+                                 record.getReturnDate() == null)
+                .findFirst();
+    }
+
+    @Override
+    public List<BorrowRecord> findByPatron(String patronId) {
+        return borrowRecords.values().stream()
+                .filter(record -> record.getPatronId().equals(patronId))
+                .toList();
+    }
+
+    @Override
+    public List<BorrowRecord> findByPatron(String patronId, BorrowingHistory.Cursor after, int limit) {
+        return borrowRecords.values().stream()
+                .filter(record -> record.getPatronId().equals(patronId) &&
+                                 (after == null || after.precedes(record)))
+                .sorted(BorrowingHistory.NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<BorrowRecord> findActiveByPatron(String patronId) {
+        return borrowRecords.values().stream()
+                .filter(record -> record.getPatronId().equals(patronId) && 
+                                 record.getReturnDate() == null)
+                .toList();
+    }
+
+    @Override
+    public int countActiveByPatron(String patronId) {
+        return (int) borrowRecords.values().stream()
+                .filter(record -> record.getPatronId().equals(patronId) && 
+                                 record.getReturnDate() == null)
+                .count();
+    }
+
+    @Override
+    public List<BorrowRecord> findOverdue(LocalDate today) {
+        return borrowRecords.values().stream()
+                .filter(record -> record.getReturnDate() == null && today.isAfter(record.getDueDate()))
+                .toList();
+    }
+
+    @Override
+    public List<BorrowRecord> findAll() {
+        return new ArrayList<>(borrowRecords.values());
+    }
+}
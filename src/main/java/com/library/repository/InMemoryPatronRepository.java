@@ -0,0 +1,81 @@
+package com.library.repository;
+
+import com.library.models.Patron;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory patron repository backed by a ConcurrentHashMap.
+ * Versions are stamped inside the map's per-key compute, so a replace cannot
+ * interleave with another write to the same patron.
+ */
+public class InMemoryPatronRepository implements PatronRepository {
+    private final Map<String, Patron> patrons = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insert(Patron patron) {
+        boolean[] inserted = new boolean[1];
+        patrons.computeIfAbsent(patron.getPatronId(), id -> {
+            inserted[0] = true;
+            patron.setVersion(1);
+            return patron;
+        });
+        return inserted[0];
+    }
+
+    @Override
+    public void save(Patron patron) {
+        patrons.compute(patron.getPatronId(), (id, stored) -> {
+            patron.setVersion((stored == null ? patron : stored).getVersion() + 1);
+            return patron;
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Patron> batch) {
+        for (Patron patron : batch) {
+            save(patron);
+        }
+    }
+
+    @Override
+    public boolean replace(Patron patron, long expectedVersion) {
+        boolean[] replaced = new boolean[1];
+        patrons.computeIfPresent(patron.getPatronId(), (id, stored) -> {
+            if (stored.getVersion() != expectedVersion) {
+                return stored;
+            }
+            replaced[0] = true;
+            patron.setVersion(expectedVersion + 1);
+            return patron;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public List<Patron> replaceAll(Collection<Patron> batch) {
+        List<Patron> conflicts = new ArrayList<>();
+        for (Patron patron : batch) {
+            boolean written = patron.getVersion() == 0 ? insert(patron) : replace(patron, patron.getVersion());
+            if (!written) {
+                conflicts.add(patron);
+            }
+        }
+        return conflicts;
+    }
+
+    @Override
+    public Optional<Patron> findById(String patronId) {
+        return Optional.ofNullable(patrons.get(patronId));
+    }
+
+    @Override
+    public Optional<Patron> deleteById(String patronId) {
+        return Optional.ofNullable(patrons.remove(patronId));
+    }
+
+    @Override
+    public List<Patron> findAll() {
+        return new ArrayList<>(patrons.values());
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.repository;
+
+import com.library.models.Reservation;
+import com.library.models.ReservationStatus;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory reservation repository backed by a ConcurrentHashMap.
+ * Versions are stamped inside the map's per-key compute, so a replace cannot
+ * interleave with another write to the same reservation.
+ */
+public class InMemoryReservationRepository implements ReservationRepository {
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean insert(Reservation reservation) {
+        boolean[] inserted = new boolean[1];
+        reservations.computeIfAbsent(reservation.getReservationId(), id -> {
+            inserted[0] = true;
+            reservation.setVersion(1);
+            return reservation;
+        });
+        return inserted[0];
+    }
+
+    @Override
+    public void save(Reservation reservation) {
+        reservations.compute(reservation.getReservationId(), (id, stored) -> {
+            reservation.setVersion((stored == null ? reservation : stored).getVersion() + 1);
+            return reservation;
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Reservation> batch) {
+        for (Reservation reservation : batch) {
+            save(reservation);
+        }
+    }
+
+    @Override
+    public boolean replace(Reservation reservation, long expectedVersion) {
+        boolean[] replaced = new boolean[1];
+        reservations.computeIfPresent(reservation.getReservationId(), (id, stored) -> {
+            if (stored.getVersion() != expectedVersion) {
+                return stored;
+            }
+            replaced[0] = true;
+            reservation.setVersion(expectedVersion + 1);
+            return reservation;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public Optional<Reservation> findById(String reservationId) {
+        return Optional.ofNullable(reservations.get(reservationId));
+    }
+
+    @Override
+    public Optional<Reservation> deleteById(String reservationId) {
+        return Optional.ofNullable(reservations.remove(reservationId));
+    }
+
+    @Override
+    public List<Reservation> findByPatron(String patronId) {
+        return reservations.values().stream()
+                .filter(reservation -> reservation.getPatronId().equals(patronId))
+                .toList();
+    }
+
+    @Override
+    public List<Reservation> findActiveByBook(String isbn, LocalDate today) {
+        return reservations.values().stream()
+                .filter(reservation -> reservation.getIsbn().equals(isbn) && isActive(reservation, today))
+                .sorted(Comparator.comparing(Reservation::getReservationDate)
+                        .thenComparing(Reservation::getReservationId))
+                .toList();
+    }
+
+    @Override
+    public boolean existsActive(String patronId, String isbn, LocalDate today) {
+        return reservations.values().stream()
+                .anyMatch(r -> r.getPatronId().equals(patronId) && 
+                              r.getIsbn().equals(isbn) && 
+                              isActive(r, today));
+    }
+
+    @Override
+    public List<Reservation> findExpiredActive(LocalDate today) {
+        return reservations.values().stream()
+                .filter(r -> r.getStatus() == ReservationStatus.ACTIVE && today.isAfter(r.getExpiryDate()))
+                .toList();
+    }
+
+    @Override
+    public List<Reservation> findExpiredFulfilled(LocalDate today) {
+        return reservations.values().stream()
+                .filter(r -> r.getStatus() == ReservationStatus.FULFILLED && today.isAfter(r.getExpiryDate()))
+                .toList();
+    }
+
+    @Override
+    public List<Reservation> findAll() {
+        return new ArrayList<>(reservations.values());
+    }
+
+    private static boolean isActive(Reservation reservation, LocalDate today) {
+        return reservation.getStatus() == ReservationStatus.ACTIVE && !today.isAfter(reservation.getExpiryDate());
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.repository;
+
+import com.library.models.BorrowRecord;
+import com.library.models.BorrowingHistory;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage abstraction for borrow records.
+ * Records returned by a repository may be detached copies, so changes must be written back with {@link #save(BorrowRecord)}.
+ */
+public interface LoanRepository {
+    /**
+     * Inserts the record unless one with the same ID exists; returns false in that case.
+     */
+    boolean insert(BorrowRecord record);
+    void save(BorrowRecord record);
+    void saveAll(Collection<BorrowRecord> records);
+    Optional<BorrowRecord> findById(String recordId);
+    Optional<BorrowRecord> deleteById(String recordId);
+    Optional<BorrowRecord> findActive(String patronId, String isbn);
+    List<BorrowRecord> findByPatron(String patronId);
+
+    /**
+     * Up to {@code limit} of the patron's records in {@link BorrowingHistory#NEWEST_FIRST}
+     * order, starting after {@code after}, or with the newest if it is null.
+     */
+    List<BorrowRecord> findByPatron(String patronId, BorrowingHistory.Cursor after, int limit);
+    List<BorrowRecord> findActiveByPatron(String patronId);
+    int countActiveByPatron(String patronId);
+    List<BorrowRecord> findOverdue(LocalDate today);
+    List<BorrowRecord> findAll();
+}
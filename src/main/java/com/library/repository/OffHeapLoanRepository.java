@@ -0,0 +1,576 @@
+package com.library.repository;
+
+import com.library.models.BorrowRecord;
+import com.library.models.BorrowingHistory;
+import com.library.utils.IdCodec;
+import com.library.utils.IdGenerator;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Loan repository that keeps borrow records outside the Java heap, so tens of
+ * millions of loans add no objects for the garbage collector to trace.
+ *
+ * <p>Records are stored column by column in segments of direct buffers: the
+ * record ID as the number behind a generated ID, the patron and ISBN as int IDs
+ * from a dictionary, dates as epoch days and the fine in cents. A
+ * {@link BorrowRecord} is only built when a query returns it, so scans over the
+ * whole history such as {@link #findOverdue} test primitive columns and allocate
+ * nothing for the rows they skip. Each patron's loans are chained through a
+ * column of row numbers, and open loans are counted per patron, so the lookups
+ * made on every borrow and return only visit that patron's loans.
+ *
+ * <p>Records returned are detached copies; write changes back with {@link #save}.
+ * Deleted rows stay behind as tombstones and their space is not reused.
+ */
+public class OffHeapLoanRepository implements LoanRepository {
+    private static final int SEGMENT_SHIFT = 16;
+    private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+    private static final int ROW_MASK = SEGMENT_ROWS - 1;
+    private static final String RECORD_PREFIX = "RECORD-";
+    private static final long IRREGULAR_ID = -1;
+    private static final int NO_ROW = -1;
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    private static final int DELETED = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>();
+    private final Dictionary patrons = new Dictionary();
+    private final Dictionary isbns = new Dictionary();
+    private final RowIndex rowsByRecordValue = new RowIndex();
+    // Record IDs not made by IdGenerator cannot be stored as a number
+    private final Map<String, Integer> rowsByIrregularId = new HashMap<>();
+    private final Map<Integer, String> irregularIdsByRow = new HashMap<>();
+    private int[] latestRowByPatron = new int[0];
+    private int[] openLoansByPatron = new int[0];
+    private int rowCount;
+    private int liveCount;
+
+    @Override
+    public boolean insert(BorrowRecord record) {
+        requireId(record);
+        lock.writeLock().lock();
+        try {
+            if (locate(record.getRecordId()) != NO_ROW) {
+                return false;
+            }
+            append(record);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void save(BorrowRecord record) {
+        requireId(record);
+        lock.writeLock().lock();
+        try {
+            upsert(record);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<BorrowRecord> records) {
+        records.forEach(OffHeapLoanRepository::requireId);
+        lock.writeLock().lock();
+        try {
+            records.forEach(this::upsert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<BorrowRecord> findById(String recordId) {
+        lock.readLock().lock();
+        try {
+            int row = recordId == null ? NO_ROW : locate(recordId);
+            return row == NO_ROW ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<BorrowRecord> deleteById(String recordId) {
+        lock.writeLock().lock();
+        try {
+            int row = recordId == null ? NO_ROW : locate(recordId);
+            if (row == NO_ROW) {
+                return Optional.empty();
+            }
+            BorrowRecord removed = materialize(row);
+            delete(row, recordId);
+            return Optional.of(removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<BorrowRecord> findActive(String patronId, String isbn) {
+        lock.readLock().lock();
+        try {
+            int patron = patrons.find(patronId);
+            int book = isbns.find(isbn);
+            if (patron < 0 || book < 0 || openLoansByPatron[patron] == 0) {
+                return Optional.empty();
+            }
+            for (int row = latestRowByPatron[patron]; row != NO_ROW; ) {
+                Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+                int offset = row & ROW_MASK;
+                if (segment.isbnIds.get(offset) == book && segment.returnDays.get(offset) == NO_DAY
+                        && segment.patronIds.get(offset) != DELETED) {
+                    return Optional.of(materialize(row));
+                }
+                row = segment.previousRowOfPatron.get(offset);
+            }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BorrowRecord> findByPatron(String patronId) {
+        return patronLoans(patronId, false);
+    }
+
+    /**
+     * Walks the patron's chain comparing borrow-day columns, keeping the best
+     * {@code limit} rows, and builds records only for those.
+     */
+    @Override
+    public List<BorrowRecord> findByPatron(String patronId, BorrowingHistory.Cursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            int patron = patrons.find(patronId);
+            if (patron < 0) {
+                return List.of();
+            }
+            int afterDay = after == null ? Integer.MAX_VALUE : toDay(after.borrowDate());
+            int[] page = new int[Math.min(limit, 16)];
+            int size = 0;
+            for (int row = latestRowByPatron[patron]; row != NO_ROW; ) {
+                Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+                int offset = row & ROW_MASK;
+                int borrowDay = segment.borrowDays.get(offset);
+                if (segment.patronIds.get(offset) != DELETED && borrowDay <= afterDay
+                        && (after == null || borrowDay < afterDay || recordIdOf(row).compareTo(after.recordId()) < 0)
+                        && (size < limit || newer(row, page[size - 1]))) {
+                    if (size == page.length && size < limit) {
+                        page = Arrays.copyOf(page, (int) Math.min(limit, page.length * 2L));
+                    }
+                    // Insertion sort into the page, which stays newest first
+                    int position = size < limit ? size++ : size - 1;
+                    for (; position > 0 && newer(row, page[position - 1]); position--) {
+                        page[position] = page[position - 1];
+                    }
+                    page[position] = row;
+                }
+                row = segment.previousRowOfPatron.get(offset);
+            }
+            List<BorrowRecord> records = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                records.add(materialize(page[i]));
+            }
+            return records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BorrowRecord> findActiveByPatron(String patronId) {
+        return patronLoans(patronId, true);
+    }
+
+    @Override
+    public int countActiveByPatron(String patronId) {
+        lock.readLock().lock();
+        try {
+            int patron = patrons.find(patronId);
+            return patron < 0 ? 0 : openLoansByPatron[patron];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BorrowRecord> findOverdue(LocalDate today) {
+        int todayDay = (int) today.toEpochDay();
+        List<BorrowRecord> overdue = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int first = 0; first < rowCount; first += SEGMENT_ROWS) {
+                Segment segment = segments.get(first >>> SEGMENT_SHIFT);
+                int rows = Math.min(SEGMENT_ROWS, rowCount - first);
+                for (int offset = 0; offset < rows; offset++) {
+                    int dueDay = segment.dueDays.get(offset);
+                    if (segment.returnDays.get(offset) == NO_DAY && dueDay != NO_DAY && dueDay < todayDay
+                            && segment.patronIds.get(offset) != DELETED) {
+                        overdue.add(materialize(first + offset));
+                    }
+                }
+            }
+            return overdue;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BorrowRecord> findAll() {
+        lock.readLock().lock();
+        try {
+            List<BorrowRecord> all = new ArrayList<>(liveCount);
+            for (int row = 0; row < rowCount; row++) {
+                if (segments.get(row >>> SEGMENT_SHIFT).patronIds.get(row & ROW_MASK) != DELETED) {
+                    all.add(materialize(row));
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of records held, not counting deleted ones.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes of direct memory reserved for the columns, including unused rows of the last segment.
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) segments.size() * SEGMENT_ROWS * Segment.ROW_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<BorrowRecord> patronLoans(String patronId, boolean openOnly) {
+        lock.readLock().lock();
+        try {
+            int patron = patrons.find(patronId);
+            if (patron < 0) {
+                return List.of();
+            }
+            int remainingOpen = openLoansByPatron[patron];
+            List<BorrowRecord> loans = new ArrayList<>();
+            for (int row = latestRowByPatron[patron]; row != NO_ROW && (!openOnly || remainingOpen > 0); ) {
+                Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+                int offset = row & ROW_MASK;
+                boolean open = segment.returnDays.get(offset) == NO_DAY;
+                if (segment.patronIds.get(offset) != DELETED && (open || !openOnly)) {
+                    loans.add(materialize(row));
+                    if (open) {
+                        remainingOpen--;
+                    }
+                }
+                row = segment.previousRowOfPatron.get(offset);
+            }
+            // The chain runs newest first; hand back the history in the order it happened
+            Collections.reverse(loans);
+            return loans;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsert(BorrowRecord record) {
+        int row = locate(record.getRecordId());
+        if (row == NO_ROW) {
+            append(record);
+            return;
+        }
+        Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+        int offset = row & ROW_MASK;
+        if (segment.patronIds.get(offset) != patrons.find(record.getPatronId())
+                || segment.isbnIds.get(offset) != isbns.find(record.getIsbn())) {
+            // Loans do not change hands, but if one does it must move to the other patron's chain
+            delete(row, record.getRecordId());
+            append(record);
+            return;
+        }
+        int patron = segment.patronIds.get(offset);
+        boolean wasOpen = segment.returnDays.get(offset) == NO_DAY;
+        writeState(segment, offset, record);
+        boolean open = segment.returnDays.get(offset) == NO_DAY;
+        if (wasOpen != open) {
+            openLoansByPatron[patron] += open ? 1 : -1;
+        }
+    }
+
+    private void append(BorrowRecord record) {
+        if (rowCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Loan repository is full");
+        }
+        int row = rowCount;
+        if (row >>> SEGMENT_SHIFT == segments.size()) {
+            segments.add(new Segment());
+        }
+        Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+        int offset = row & ROW_MASK;
+        int patron = patrons.idOf(record.getPatronId());
+        if (patron >= latestRowByPatron.length) {
+            int capacity = Math.max(1024, latestRowByPatron.length * 2);
+            int grownFrom = latestRowByPatron.length;
+            latestRowByPatron = Arrays.copyOf(latestRowByPatron, capacity);
+            Arrays.fill(latestRowByPatron, grownFrom, capacity, NO_ROW);
+            openLoansByPatron = Arrays.copyOf(openLoansByPatron, capacity);
+        }
+        String recordId = record.getRecordId();
+        long value = recordValue(recordId);
+        segment.recordValues.put(offset, value);
+        if (value == IRREGULAR_ID) {
+            rowsByIrregularId.put(recordId, row);
+            irregularIdsByRow.put(row, recordId);
+        } else {
+            rowsByRecordValue.add(row);
+        }
+        segment.patronIds.put(offset, patron);
+        segment.isbnIds.put(offset, isbns.idOf(record.getIsbn()));
+        writeState(segment, offset, record);
+        segment.previousRowOfPatron.put(offset, latestRowByPatron[patron]);
+        latestRowByPatron[patron] = row;
+        if (segment.returnDays.get(offset) == NO_DAY) {
+            openLoansByPatron[patron]++;
+        }
+        rowCount++;
+        liveCount++;
+    }
+
+    private static void writeState(Segment segment, int offset, BorrowRecord record) {
+        segment.borrowDays.put(offset, toDay(record.getBorrowDate()));
+        segment.dueDays.put(offset, toDay(record.getDueDate()));
+        segment.returnDays.put(offset, toDay(record.getReturnDate()));
+        segment.fineCents.put(offset, (int) Math.round(record.getFineAmount() * 100));
+    }
+
+    private void delete(int row, String recordId) {
+        Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+        int offset = row & ROW_MASK;
+        if (segment.returnDays.get(offset) == NO_DAY) {
+            openLoansByPatron[segment.patronIds.get(offset)]--;
+        }
+        // The row stays in its patron's chain; readers skip it
+        segment.patronIds.put(offset, DELETED);
+        long value = segment.recordValues.get(offset);
+        if (value == IRREGULAR_ID) {
+            rowsByIrregularId.remove(recordId);
+            irregularIdsByRow.remove(row);
+        } else {
+            rowsByRecordValue.remove(value);
+        }
+        liveCount--;
+    }
+
+    private int locate(String recordId) {
+        long value = recordValue(recordId);
+        if (value == IRREGULAR_ID) {
+            return rowsByIrregularId.getOrDefault(recordId, NO_ROW);
+        }
+        return rowsByRecordValue.get(value);
+    }
+
+    /**
+     * Whether {@code row} comes before {@code other} newest first; record IDs are only built on equal borrow days.
+     */
+    private boolean newer(int row, int other) {
+        int day = segments.get(row >>> SEGMENT_SHIFT).borrowDays.get(row & ROW_MASK);
+        int otherDay = segments.get(other >>> SEGMENT_SHIFT).borrowDays.get(other & ROW_MASK);
+        return day != otherDay ? day > otherDay : recordIdOf(row).compareTo(recordIdOf(other)) > 0;
+    }
+
+    private String recordIdOf(int row) {
+        long value = segments.get(row >>> SEGMENT_SHIFT).recordValues.get(row & ROW_MASK);
+        return value == IRREGULAR_ID ? irregularIdsByRow.get(row) : RECORD_PREFIX + IdCodec.encode(value);
+    }
+
+    private BorrowRecord materialize(int row) {
+        Segment segment = segments.get(row >>> SEGMENT_SHIFT);
+        int offset = row & ROW_MASK;
+        BorrowRecord record = new BorrowRecord(recordIdOf(row), patrons.valueOf(segment.patronIds.get(offset)),
+                isbns.valueOf(segment.isbnIds.get(offset)), toDate(segment.borrowDays.get(offset)),
+                toDate(segment.dueDays.get(offset)));
+        record.setReturnDate(toDate(segment.returnDays.get(offset)));
+        record.setFineAmount(segment.fineCents.get(offset) / 100.0);
+        return record;
+    }
+
+    /**
+     * The number behind an ID made by {@link IdGenerator#generateRecordId()}, or
+     * {@link #IRREGULAR_ID} for any other ID, including ones that would not encode back to the same text.
+     */
+    private static long recordValue(String recordId) {
+        if (recordId.startsWith(RECORD_PREFIX)) {
+            long value = IdGenerator.parseId(recordId);
+            if (value >= 0 && recordId.equals(RECORD_PREFIX + IdCodec.encode(value))) {
+                return value;
+            }
+        }
+        return IRREGULAR_ID;
+    }
+
+    private static void requireId(BorrowRecord record) {
+        if (record == null || record.getRecordId() == null) {
+            throw new IllegalArgumentException("Borrow record and record ID cannot be null");
+        }
+    }
+
+    private static int toDay(LocalDate date) {
+        return date == null ? NO_DAY : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate toDate(int day) {
+        return day == NO_DAY ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * One block of rows, a direct buffer per column.
+     */
+    private static final class Segment {
+        private static final int ROW_BYTES = Long.BYTES + 7 * Integer.BYTES;
+
+        private final LongBuffer recordValues = ByteBuffer.allocateDirect(SEGMENT_ROWS * Long.BYTES)
+                .order(ByteOrder.nativeOrder()).asLongBuffer();
+        private final IntBuffer patronIds = intColumn();
+        private final IntBuffer isbnIds = intColumn();
+        private final IntBuffer borrowDays = intColumn();
+        private final IntBuffer dueDays = intColumn();
+        private final IntBuffer returnDays = intColumn();
+        private final IntBuffer fineCents = intColumn();
+        private final IntBuffer previousRowOfPatron = intColumn();
+
+        private static IntBuffer intColumn() {
+            return ByteBuffer.allocateDirect(SEGMENT_ROWS * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+
+    /**
+     * Dense int IDs for strings; an ID is never reassigned.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        private int find(String value) {
+            return ids.getOrDefault(value, -1);
+        }
+
+        private String valueOf(int id) {
+            return values.get(id);
+        }
+    }
+
+    /**
+     * Open-addressing hash index from record values to rows. Slots hold only row
+     * numbers; the value a row is keyed by is read back from its column.
+     */
+    private final class RowIndex {
+        private int[] slots = emptySlots(1024);
+        private int size;
+
+        private int get(long value) {
+            int mask = slots.length - 1;
+            for (int slot = home(value, mask); slots[slot] != NO_ROW; slot = (slot + 1) & mask) {
+                if (valueAt(slots[slot]) == value) {
+                    return slots[slot];
+                }
+            }
+            return NO_ROW;
+        }
+
+        /**
+         * Adds a row whose value is not indexed yet.
+         */
+        private void add(int row) {
+            if ((size + 1) * 4L > slots.length * 3L) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int slot = home(valueAt(row), mask);
+            while (slots[slot] != NO_ROW) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = row;
+            size++;
+        }
+
+        private void remove(long value) {
+            int mask = slots.length - 1;
+            int hole = home(value, mask);
+            while (slots[hole] != NO_ROW && valueAt(slots[hole]) != value) {
+                hole = (hole + 1) & mask;
+            }
+            if (slots[hole] == NO_ROW) {
+                return;
+            }
+            // Shift later entries of the probe run back so that lookups never stop early
+            for (int next = (hole + 1) & mask; slots[next] != NO_ROW; next = (next + 1) & mask) {
+                int home = home(valueAt(slots[next]), mask);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    slots[hole] = slots[next];
+                    hole = next;
+                }
+            }
+            slots[hole] = NO_ROW;
+            size--;
+        }
+
+        private void grow() {
+            int[] old = slots;
+            slots = emptySlots(old.length * 2);
+            size = 0;
+            for (int row : old) {
+                if (row != NO_ROW) {
+                    add(row);
+                }
+            }
+        }
+
+        private long valueAt(int row) {
+            return segments.get(row >>> SEGMENT_SHIFT).recordValues.get(row & ROW_MASK);
+        }
+
+        private static int home(long value, int mask) {
+            return (int) ((value * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+
+        private static int[] emptySlots(int length) {
+            int[] empty = new int[length];
+            Arrays.fill(empty, NO_ROW);
+            return empty;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.repository;
+
+import com.library.models.Patron;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage abstraction for patrons.
+ * Patrons returned by a repository may be detached copies, so changes must be written back with {@link #save(Patron)}.
+ *
+ * <p>Every write stamps the stored patron with the next {@linkplain Patron#getVersion() version}
+ * and sets it on the instance written: 1 on insert, one more than before on save or
+ * replace. {@link #replace} writes only if the version is unchanged, which lets
+ * concurrent writers detect conflicts without locking.
+ */
+public interface PatronRepository {
+    /**
+     * Inserts the patron unless one with the same ID exists; returns false in that case.
+     */
+    boolean insert(Patron patron);
+    void save(Patron patron);
+    void saveAll(Collection<Patron> patrons);
+
+    /**
+     * Stores {@code patron} in place of the stored patron only if that is still at
+     * {@code expectedVersion}. Returns false, writing nothing, if it has moved on or is gone.
+     */
+    boolean replace(Patron patron, long expectedVersion);
+
+    /**
+     * Writes a batch, in one round trip where the backend allows, without
+     * overwriting a patron written since it was read. A patron carrying a version
+     * replaces the stored one only if that is still at this version, the version of
+     * the patron it was copied from; one carrying none (0) is inserted only if its
+     * ID is free. Returns the patrons not written.
+     */
+    List<Patron> replaceAll(Collection<Patron> patrons);
+    Optional<Patron> findById(String patronId);
+    Optional<Patron> deleteById(String patronId);
+    List<Patron> findAll();
+}
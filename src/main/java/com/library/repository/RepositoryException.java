@@ -0,0 +1,12 @@
+package com.library.repository;
+
+/**
+ * Unchecked exception for failures in a storage backend.
+ */
+public class RepositoryException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.repository;
+
+import com.library.models.Reservation;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage abstraction for reservations.
+ * Reservations returned by a repository may be detached copies, so changes must be written back with {@link #save(Reservation)}.
+ *
+ * <p>Every write stamps the stored reservation with the next {@linkplain Reservation#getVersion() version}
+ * and sets it on the instance written: 1 on insert, one more than before on save or
+ * replace. {@link #replace} writes only if the version is unchanged, which lets
+ * concurrent writers detect conflicts without locking.
+ */
+public interface ReservationRepository {
+    /**
+     * Inserts the reservation unless one with the same ID exists; returns false in that case.
+     */
+    boolean insert(Reservation reservation);
+    void save(Reservation reservation);
+    void saveAll(Collection<Reservation> reservations);
+
+    /**
+     * Stores {@code reservation} in place of the stored reservation only if that is still at
+     * {@code expectedVersion}. Returns false, writing nothing, if it has moved on or is gone.
+     */
+    boolean replace(Reservation reservation, long expectedVersion);
+    Optional<Reservation> findById(String reservationId);
+    Optional<Reservation> deleteById(String reservationId);
+    List<Reservation> findByPatron(String patronId);
+
+    /**
+     * Returns the active, unexpired reservations for a book, oldest first.
+     */
+    List<Reservation> findActiveByBook(String isbn, LocalDate today);
+    boolean existsActive(String patronId, String isbn, LocalDate today);
+
+    /**
+     * Returns reservations still marked active whose expiry date is before {@code today}.
+     */
+    List<Reservation> findExpiredActive(LocalDate today);
+
+    /**
+     * Returns fulfilled reservations whose pickup date, their expiry date once fulfilled,
+     * is before {@code today}.
+     */
+    List<Reservation> findExpiredFulfilled(LocalDate today);
+    List<Reservation> findAll();
+}
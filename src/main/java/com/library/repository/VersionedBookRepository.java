@@ -0,0 +1,228 @@
+package com.library.repository;
+
+import com.library.models.Book;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Multi-version in-memory book repository.
+ *
+ * <p>Each ISBN maps to a chain of immutable versions, newest first, stamped with a
+ * commit number. Writes copy the book into a new version under a short commit lock;
+ * readers never lock. {@link #openSnapshot()} pins the current commit number, and
+ * the snapshot resolves every book to its newest version at or below it, so a
+ * report can iterate a consistent catalog while checkouts continue, without
+ * copying it. Versions older than the oldest open snapshot are unlinked on the
+ * next write to their book.
+ *
+ * <p>{@link #findByIsbn(String)} returns a private copy that callers may modify and
+ * {@link #save(Book)}; list queries return the shared latest versions, read-only.
+ * A book's own {@linkplain Book#getVersion() version} counts the writes to that
+ * book and is checked by {@link #replace} under the commit lock.
+ */
+public class VersionedBookRepository implements BookRepository {
+    private final Map<String, Version> heads = new ConcurrentHashMap<>();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final NavigableMap<Long, Integer> openSnapshots = new TreeMap<>(); // guarded by commitLock
+    private volatile long committedVersion;
+
+    private static final class Version {
+        private final long number;
+        private final Book book; // null marks a deletion
+        private volatile Version previous;
+
+        private Version(long number, Book book, Version previous) {
+            this.number = number;
+            this.book = book;
+            this.previous = previous;
+        }
+    }
+
+    @Override
+    public boolean insert(Book book) {
+        commitLock.lock();
+        try {
+            Version head = heads.get(book.getIsbn());
+            if (head != null && head.book != null) {
+                return false;
+            }
+            book.setVersion(1);
+            commit(book.getIsbn(), new Book(book));
+            return true;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public void save(Book book) {
+        Book copy = new Book(book);
+        commitLock.lock();
+        try {
+            commitNextVersion(book, copy);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        List<Book> batch = List.copyOf(books);
+        List<Book> copies = batch.stream().map(Book::new).toList();
+        commitLock.lock();
+        try {
+            for (int i = 0; i < copies.size(); i++) {
+                commitNextVersion(batch.get(i), copies.get(i));
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(Book book, long expectedVersion) {
+        Book copy = new Book(book);
+        commitLock.lock();
+        try {
+            Version head = heads.get(book.getIsbn());
+            if (head == null || head.book == null || head.book.getVersion() != expectedVersion) {
+                return false;
+            }
+            commitNextVersion(book, copy);
+            return true;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        Version head = heads.get(isbn);
+        return head == null || head.book == null ? Optional.empty() : Optional.of(new Book(head.book));
+    }
+
+    @Override
+    public Optional<Book> deleteByIsbn(String isbn) {
+        commitLock.lock();
+        try {
+            Version head = heads.get(isbn);
+            if (head == null || head.book == null) {
+                return Optional.empty();
+            }
+            commit(isbn, null);
+            return Optional.of(new Book(head.book));
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return latest().toList();
+    }
+
+    @Override
+    public List<Book> findAvailable() {
+        return latest().filter(Book::isAvailable).toList();
+    }
+
+    @Override
+    public List<Book> findUnavailable() {
+        return latest().filter(book -> !book.isAvailable()).toList();
+    }
+
+    /**
+     * Opens a consistent view of the catalog as of the last committed write.
+     */
+    public CatalogSnapshot openSnapshot() {
+        long version;
+        commitLock.lock();
+        try {
+            version = committedVersion;
+            openSnapshots.merge(version, 1, Integer::sum);
+        } finally {
+            commitLock.unlock();
+        }
+        return new Snapshot(version);
+    }
+
+    private Stream<Book> latest() {
+        return heads.values().stream().map(head -> head.book).filter(Objects::nonNull);
+    }
+
+    // Called with the commit lock held
+    private void commitNextVersion(Book book, Book copy) {
+        Version head = heads.get(copy.getIsbn());
+        long previous = head == null || head.book == null ? book.getVersion() : head.book.getVersion();
+        book.setVersion(previous + 1);
+        copy.setVersion(previous + 1);
+        commit(copy.getIsbn(), copy);
+    }
+
+    // Called with the commit lock held
+    private void commit(String isbn, Book book) {
+        long number = committedVersion + 1;
+        Version head = new Version(number, book, heads.get(isbn));
+        long oldestNeeded = openSnapshots.isEmpty() ? Long.MAX_VALUE : openSnapshots.firstKey();
+        Version keep = head;
+        while (keep != null && keep.number > oldestNeeded) {
+            keep = keep.previous;
+        }
+        if (keep != null) {
+            keep.previous = null;
+        }
+        if (book == null && head.previous == null) {
+            heads.remove(isbn);
+        } else {
+            heads.put(isbn, head);
+        }
+        committedVersion = number;
+    }
+
+    private void release(long version) {
+        commitLock.lock();
+        try {
+            openSnapshots.computeIfPresent(version, (key, count) -> count == 1 ? null : count - 1);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private static Book visibleAt(Version head, long version) {
+        Version candidate = head;
+        while (candidate != null && candidate.number > version) {
+            candidate = candidate.previous;
+        }
+        return candidate == null ? null : candidate.book;
+    }
+
+    private final class Snapshot implements CatalogSnapshot {
+        private final long version;
+        private boolean closed;
+
+        private Snapshot(long version) {
+            this.version = version;
+        }
+
+        @Override
+        public Stream<Book> books() {
+            return heads.values().stream().map(head -> visibleAt(head, version)).filter(Objects::nonNull);
+        }
+
+        @Override
+        public Optional<Book> findBook(String isbn) {
+            Version head = heads.get(isbn);
+            return head == null ? Optional.empty() : Optional.ofNullable(visibleAt(head, version));
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                release(version);
+            }
+        }
+    }
+}
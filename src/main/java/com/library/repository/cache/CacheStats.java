@@ -0,0 +1,22 @@
+package com.library.repository.cache;
+
+/**
+ * Point-in-time counters for an {@link EntityCache}.
+ */
+public record CacheStats(long hitCount, long missCount, long evictionCount, int size, int maximumSize) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRate=%.1f%% evictions=%d size=%d/%d",
+                hitCount, missCount, hitRate() * 100, evictionCount, size, maximumSize);
+    }
+}
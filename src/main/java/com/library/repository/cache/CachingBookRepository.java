@@ -0,0 +1,96 @@
+package com.library.repository.cache;
+
+import com.library.models.Book;
+import com.library.repository.BookRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through, write-through cache in front of another book repository.
+ * ISBN lookups are served from an {@link EntityCache}; every write goes to the
+ * backing repository first and is cached only once it succeeded. Listing queries
+ * always go to the backing repository.
+ */
+public class CachingBookRepository implements BookRepository {
+    private final BookRepository delegate;
+    private final EntityCache<String, Book> cache;
+
+    public CachingBookRepository(BookRepository delegate, int maximumSize) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(maximumSize);
+    }
+
+    @Override
+    public boolean insert(Book book) {
+        if (!delegate.insert(book)) {
+            return false;
+        }
+        cache.put(book.getIsbn(), book);
+        return true;
+    }
+
+    @Override
+    public void save(Book book) {
+        delegate.save(book);
+        cache.put(book.getIsbn(), book);
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        delegate.saveAll(books);
+        for (Book book : books) {
+            cache.put(book.getIsbn(), book);
+        }
+    }
+
+    @Override
+    public boolean replace(Book book, long expectedVersion) {
+        if (delegate.replace(book, expectedVersion)) {
+            cache.put(book.getIsbn(), book);
+            return true;
+        }
+        // The caller may have read a stale cached copy; drop it so a retry reads the current version
+        cache.invalidate(book.getIsbn());
+        return false;
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        Book cached = cache.get(isbn);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Book> loaded = delegate.findByIsbn(isbn);
+        loaded.ifPresent(book -> cache.put(isbn, book));
+        return loaded;
+    }
+
+    @Override
+    public Optional<Book> deleteByIsbn(String isbn) {
+        cache.invalidate(isbn);
+        Optional<Book> removed = delegate.deleteByIsbn(isbn);
+        // Again, in case a concurrent read-through cached the row before it was deleted
+        cache.invalidate(isbn);
+        return removed;
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Book> findAvailable() {
+        return delegate.findAvailable();
+    }
+
+    @Override
+    public List<Book> findUnavailable() {
+        return delegate.findUnavailable();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.repository.cache;
+
+import com.library.models.Patron;
+import com.library.repository.PatronRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read-through, write-through cache in front of another patron repository.
+ * ID lookups are served from an {@link EntityCache}; every write goes to the
+ * backing repository first and is cached only once it succeeded. Listing queries
+ * always go to the backing repository.
+ */
+public class CachingPatronRepository implements PatronRepository {
+    private final PatronRepository delegate;
+    private final EntityCache<String, Patron> cache;
+
+    public CachingPatronRepository(PatronRepository delegate, int maximumSize) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(maximumSize);
+    }
+
+    @Override
+    public boolean insert(Patron patron) {
+        if (!delegate.insert(patron)) {
+            return false;
+        }
+        cache.put(patron.getPatronId(), patron);
+        return true;
+    }
+
+    @Override
+    public void save(Patron patron) {
+        delegate.save(patron);
+        cache.put(patron.getPatronId(), patron);
+    }
+
+    @Override
+    public void saveAll(Collection<Patron> patrons) {
+        delegate.saveAll(patrons);
+        for (Patron patron : patrons) {
+            cache.put(patron.getPatronId(), patron);
+        }
+    }
+
+    @Override
+    public boolean replace(Patron patron, long expectedVersion) {
+        if (delegate.replace(patron, expectedVersion)) {
+            cache.put(patron.getPatronId(), patron);
+            return true;
+        }
+        // The caller may have read a stale cached copy; drop it so a retry reads the current version
+        cache.invalidate(patron.getPatronId());
+        return false;
+    }
+
+    @Override
+    public List<Patron> replaceAll(Collection<Patron> patrons) {
+        List<Patron> conflicts = delegate.replaceAll(patrons);
+        Set<Patron> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+        rejected.addAll(conflicts);
+        for (Patron patron : patrons) {
+            if (rejected.contains(patron)) {
+                cache.invalidate(patron.getPatronId());
+            } else {
+                cache.put(patron.getPatronId(), patron);
+            }
+        }
+        return conflicts;
+    }
+
+    @Override
+    public Optional<Patron> findById(String patronId) {
+        Patron cached = cache.get(patronId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Patron> loaded = delegate.findById(patronId);
+        loaded.ifPresent(patron -> cache.put(patronId, patron));
+        return loaded;
+    }
+
+    @Override
+    public Optional<Patron> deleteById(String patronId) {
+        cache.invalidate(patronId);
+        Optional<Patron> removed = delegate.deleteById(patronId);
+        // Again, in case a concurrent read-through cached the row before it was deleted
+        cache.invalidate(patronId);
+        return removed;
+    }
+
+    @Override
+    public List<Patron> findAll() {
+        return delegate.findAll();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+}
@@ -0,0 +1,158 @@
+package com.library.repository.cache;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache with W-TinyLFU eviction.
+ * New entries land in a small LRU window (1% of capacity). When the window
+ * overflows, its oldest entry competes with the main region's eviction victim
+ * and is only admitted if the {@link FrequencySketch} has seen it more often, so
+ * a burst of one-off lookups cannot flush popular entries. The main region is a
+ * segmented LRU: entries hit again while on probation are promoted to the
+ * protected segment (80% of the main region).
+ */
+public class EntityCache<K, V> {
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private final int maximumSize;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+    private final Map<K, Segment> segments = new HashMap<>();
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object lock = new Object();
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public EntityCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.protectedCapacity = (int) ((maximumSize - windowCapacity) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Returns the cached value or null, counting the lookup as a hit or miss.
+     */
+    public V get(K key) {
+        synchronized (lock) {
+            sketch.increment(key);
+            Segment segment = segments.get(key);
+            if (segment == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return switch (segment) {
+                case WINDOW -> window.get(key);
+                case PROTECTED -> protectedSegment.get(key);
+                case PROBATION -> promote(key);
+            };
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (lock) {
+            Segment segment = segments.get(key);
+            if (segment != null) {
+                segmentMap(segment).put(key, value);
+                return;
+            }
+            window.put(key, value);
+            segments.put(key, Segment.WINDOW);
+            if (window.size() > windowCapacity) {
+                evictFromWindow();
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (lock) {
+            Segment segment = segments.remove(key);
+            if (segment != null) {
+                segmentMap(segment).remove(key);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            segments.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return segments.size();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (lock) {
+            return new CacheStats(hitCount, missCount, evictionCount, segments.size(), maximumSize);
+        }
+    }
+
+    private V promote(K key) {
+        V value = probation.remove(key);
+        protectedSegment.put(key, value);
+        segments.put(key, Segment.PROTECTED);
+        if (protectedSegment.size() > protectedCapacity) {
+            Map.Entry<K, V> demoted = removeEldest(protectedSegment);
+            probation.put(demoted.getKey(), demoted.getValue());
+            segments.put(demoted.getKey(), Segment.PROBATION);
+        }
+        return value;
+    }
+
+    private void evictFromWindow() {
+        Map.Entry<K, V> candidate = removeEldest(window);
+        if (segments.size() <= maximumSize) {
+            admit(candidate);
+            return;
+        }
+        LinkedHashMap<K, V> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        K victim = victimSegment.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victimSegment.remove(victim);
+            segments.remove(victim);
+            admit(candidate);
+        } else {
+            segments.remove(candidate.getKey());
+        }
+        evictionCount++;
+    }
+
+    private void admit(Map.Entry<K, V> entry) {
+        probation.put(entry.getKey(), entry.getValue());
+        segments.put(entry.getKey(), Segment.PROBATION);
+    }
+
+    private LinkedHashMap<K, V> segmentMap(Segment segment) {
+        return switch (segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    private static <K, V> Map.Entry<K, V> removeEldest(LinkedHashMap<K, V> segment) {
+        Iterator<Map.Entry<K, V>> iterator = segment.entrySet().iterator();
+        Map.Entry<K, V> eldest = new AbstractMap.SimpleImmutableEntry<>(iterator.next());
+        iterator.remove();
+        return eldest;
+    }
+}
@@ -0,0 +1,86 @@
+package com.library.repository.cache;
+
+/**
+ * Approximate access-frequency counter used for cache admission (the "TinyLFU" part).
+ * A count-min sketch of 4-bit counters, sixteen to a long, over four hash rows.
+ * Once the number of increments reaches ten times the cache size every counter
+ * is halved, so popularity ages out instead of accumulating forever.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int length = Integer.highestOneBit(Math.max(2, maximumSize) - 1) << 1;
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(1, maximumSize));
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long slot = slot(hash, row);
+            int shift = nibble(slot) << 2;
+            frequency = Math.min(frequency, (int) ((table[index(slot)] >>> shift) & 0xfL));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long slot = slot(hash, row);
+            added |= incrementAt(index(slot), nibble(slot));
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int nibble) {
+        int shift = nibble << 2;
+        long mask = 0xfL << shift;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << shift;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private static long slot(int hash, int row) {
+        long slot = (hash + SEEDS[row]) * SEEDS[row];
+        return slot + (slot >>> 32);
+    }
+
+    private int index(long slot) {
+        return (int) slot & tableMask;
+    }
+
+    private static int nibble(long slot) {
+        return (int) (slot >>> 60);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
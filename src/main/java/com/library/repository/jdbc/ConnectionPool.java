@@ -0,0 +1,129 @@
+package com.library.repository.jdbc;
+
+import com.library.repository.RepositoryException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed-size JDBC connection pool.
+ * Connections are borrowed for the duration of a callback and returned afterwards,
+ * so callers never manage connection lifecycles themselves.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final BlockingQueue<Connection> idle;
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    public ConnectionPool(String url, String user, String password, int maxConnections) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("Pool needs at least one connection");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.idle = new LinkedBlockingQueue<>();
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Runs {@code work} on a pooled connection in auto-commit mode.
+     */
+    public <T> T execute(SqlWork<T> work) {
+        Connection connection = acquire();
+        try {
+            return work.execute(connection);
+        } catch (SQLException e) {
+            throw new RepositoryException("Database operation failed: " + e.getMessage(), e);
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * Runs {@code work} on a pooled connection inside a transaction, rolling back on failure.
+     */
+    public <T> T inTransaction(SqlWork<T> work) {
+        return execute(connection -> {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.execute(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection acquire() {
+        if (closed) {
+            throw new IllegalStateException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+        }
+        try {
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return connection;
+                }
+                closeQuietly(connection);
+            }
+            return DriverManager.getConnection(url, user, password);
+        } catch (SQLException e) {
+            permits.release();
+            throw new RepositoryException("Cannot open database connection to " + url, e);
+        }
+    }
+
+    private void release(Connection connection) {
+        if (closed) {
+            closeQuietly(connection);
+        } else {
+            idle.offer(connection);
+        }
+        permits.release();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Nothing useful to do with a failed close
+        }
+    }
+}
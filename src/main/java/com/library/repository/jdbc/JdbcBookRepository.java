@@ -0,0 +1,120 @@
+package com.library.repository.jdbc;
+
+import com.library.models.Book;
+import com.library.models.BookStatus;
+import com.library.repository.BookRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC-backed book repository.
+ * Writes bump the version column in the database; {@link #replace} adds the
+ * expected version to the UPDATE's WHERE clause, so the check and the write are one statement.
+ */
+public class JdbcBookRepository extends JdbcRepository<Book> implements BookRepository {
+    private static final String COLUMNS =
+            "isbn, title, author, publication_year, status, borrower_id, borrow_day, due_day, version";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM books";
+    private static final String INSERT = "INSERT INTO books (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE books SET title = ?, author = ?, publication_year = ?, status = ?, "
+            + "borrower_id = ?, borrow_day = ?, due_day = ?, version = version + 1 WHERE isbn = ?";
+    private static final String REPLACE = UPDATE + " AND version = ?";
+
+    public JdbcBookRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected RowMapper<Book> mapper() {
+        return row -> {
+            Book book = new Book(row.getString("isbn"), row.getString("title"), row.getString("author"),
+                    row.getInt("publication_year"));
+            book.setStatus(BookStatus.valueOf(row.getString("status")));
+            book.setBorrowerId(row.getString("borrower_id"));
+            book.setBorrowDate(getDay(row, "borrow_day"));
+            book.setDueDate(getDay(row, "due_day"));
+            book.setVersion(row.getLong("version"));
+            return book;
+        };
+    }
+
+    @Override
+    public boolean insert(Book book) {
+        book.setVersion(1);
+        return insertIfAbsent("SELECT 1 FROM books WHERE isbn = ?", book.getIsbn(), INSERT,
+                JdbcBookRepository::bindInsert, book);
+    }
+
+    @Override
+    public void save(Book book) {
+        saveAll(List.of(book));
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        books.forEach(book -> book.setVersion(book.getVersion() + 1));
+        upsertAll(UPDATE, JdbcBookRepository::bindUpdate, INSERT, JdbcBookRepository::bindInsert, books);
+    }
+
+    @Override
+    public boolean replace(Book book, long expectedVersion) {
+        if (!updateIfVersion(REPLACE, JdbcBookRepository::bindUpdate, book, 9, expectedVersion)) {
+            return false;
+        }
+        book.setVersion(expectedVersion + 1);
+        return true;
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        return queryOne(SELECT + " WHERE isbn = ?", isbn);
+    }
+
+    @Override
+    public Optional<Book> deleteByIsbn(String isbn) {
+        Optional<Book> existing = findByIsbn(isbn);
+        if (existing.isPresent() && update("DELETE FROM books WHERE isbn = ?", isbn) == 0) {
+            return Optional.empty();
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return query(SELECT);
+    }
+
+    @Override
+    public List<Book> findAvailable() {
+        return query(SELECT + " WHERE status = ?", BookStatus.AVAILABLE.name());
+    }
+
+    @Override
+    public List<Book> findUnavailable() {
+        return query(SELECT + " WHERE status <> ?", BookStatus.AVAILABLE.name());
+    }
+
+    private static void bindInsert(PreparedStatement statement, Book book) throws SQLException {
+        statement.setString(1, book.getIsbn());
+        bindState(statement, 2, book);
+        statement.setLong(9, book.getVersion());
+    }
+
+    private static void bindUpdate(PreparedStatement statement, Book book) throws SQLException {
+        bindState(statement, 1, book);
+        statement.setString(8, book.getIsbn());
+    }
+
+    private static void bindState(PreparedStatement statement, int first, Book book) throws SQLException {
+        statement.setString(first, book.getTitle());
+        statement.setString(first + 1, book.getAuthor());
+        statement.setInt(first + 2, book.getPublicationYear());
+        statement.setString(first + 3, book.getStatus().name());
+        statement.setString(first + 4, book.getBorrowerId());
+        setDay(statement, first + 5, book.getBorrowDate());
+        setDay(statement, first + 6, book.getDueDate());
+    }
+}
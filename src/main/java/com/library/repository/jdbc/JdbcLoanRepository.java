@@ -0,0 +1,128 @@
+package com.library.repository.jdbc;
+
+import com.library.models.BorrowRecord;
+import com.library.models.BorrowingHistory;
+import com.library.repository.LoanRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC-backed loan repository. Active-loan and overdue lookups are served by the
+ * {@code idx_loans_patron_active} and {@code idx_loans_overdue} indexes, and pages
+ * of a patron's history by {@code idx_loans_patron_history}.
+ */
+public class JdbcLoanRepository extends JdbcRepository<BorrowRecord> implements LoanRepository {
+    private static final String COLUMNS = "record_id, patron_id, isbn, borrow_day, due_day, return_day, fine_amount";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM loans";
+    private static final String INSERT = "INSERT INTO loans (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String HISTORY_ORDER = " ORDER BY borrow_day DESC, record_id DESC LIMIT ?";
+    private static final String UPDATE = "UPDATE loans SET patron_id = ?, isbn = ?, borrow_day = ?, due_day = ?, "
+            + "return_day = ?, fine_amount = ? WHERE record_id = ?";
+
+    public JdbcLoanRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected RowMapper<BorrowRecord> mapper() {
+        return row -> {
+            BorrowRecord record = new BorrowRecord(row.getString("record_id"), row.getString("patron_id"),
+                    row.getString("isbn"), getDay(row, "borrow_day"), getDay(row, "due_day"));
+            record.setReturnDate(getDay(row, "return_day"));
+            record.setFineAmount(row.getDouble("fine_amount"));
+            return record;
+        };
+    }
+
+    @Override
+    public boolean insert(BorrowRecord record) {
+        return insertIfAbsent("SELECT 1 FROM loans WHERE record_id = ?", record.getRecordId(), INSERT,
+                JdbcLoanRepository::bindInsert, record);
+    }
+
+    @Override
+    public void save(BorrowRecord record) {
+        saveAll(List.of(record));
+    }
+
+    @Override
+    public void saveAll(Collection<BorrowRecord> records) {
+        upsertAll(UPDATE, JdbcLoanRepository::bindUpdate, INSERT, JdbcLoanRepository::bindInsert, records);
+    }
+
+    @Override
+    public Optional<BorrowRecord> findById(String recordId) {
+        return queryOne(SELECT + " WHERE record_id = ?", recordId);
+    }
+
+    @Override
+    public Optional<BorrowRecord> deleteById(String recordId) {
+        Optional<BorrowRecord> existing = findById(recordId);
+        if (existing.isPresent() && update("DELETE FROM loans WHERE record_id = ?", recordId) == 0) {
+            return Optional.empty();
+        }
+        return existing;
+    }
+
+    @Override
+    public Optional<BorrowRecord> findActive(String patronId, String isbn) {
+        return queryOne(SELECT + " WHERE patron_id = ? AND return_day IS NULL AND isbn = ?", patronId, isbn);
+    }
+
+    @Override
+    public List<BorrowRecord> findByPatron(String patronId) {
+        return query(SELECT + " WHERE patron_id = ?", patronId);
+    }
+
+    @Override
+    public List<BorrowRecord> findByPatron(String patronId, BorrowingHistory.Cursor after, int limit) {
+        if (after == null) {
+            return query(SELECT + " WHERE patron_id = ?" + HISTORY_ORDER, patronId, limit);
+        }
+        return query(SELECT + " WHERE patron_id = ? AND (borrow_day < ? OR borrow_day = ? AND record_id < ?)"
+                + HISTORY_ORDER, patronId, after.borrowDate(), after.borrowDate(), after.recordId(), limit);
+    }
+
+    @Override
+    public List<BorrowRecord> findActiveByPatron(String patronId) {
+        return query(SELECT + " WHERE patron_id = ? AND return_day IS NULL", patronId);
+    }
+
+    @Override
+    public int countActiveByPatron(String patronId) {
+        return (int) count("SELECT COUNT(*) FROM loans WHERE patron_id = ? AND return_day IS NULL", patronId);
+    }
+
+    @Override
+    public List<BorrowRecord> findOverdue(LocalDate today) {
+        return query(SELECT + " WHERE return_day IS NULL AND due_day < ?", today);
+    }
+
+    @Override
+    public List<BorrowRecord> findAll() {
+        return query(SELECT);
+    }
+
+    private static void bindInsert(PreparedStatement statement, BorrowRecord record) throws SQLException {
+        statement.setString(1, record.getRecordId());
+        bindState(statement, 2, record);
+    }
+
+    private static void bindUpdate(PreparedStatement statement, BorrowRecord record) throws SQLException {
+        bindState(statement, 1, record);
+        statement.setString(7, record.getRecordId());
+    }
+
+    private static void bindState(PreparedStatement statement, int first, BorrowRecord record) throws SQLException {
+        statement.setString(first, record.getPatronId());
+        statement.setString(first + 1, record.getIsbn());
+        setDay(statement, first + 2, record.getBorrowDate());
+        setDay(statement, first + 3, record.getDueDate());
+        setDay(statement, first + 4, record.getReturnDate());
+        statement.setDouble(first + 5, record.getFineAmount());
+    }
+}
@@ -0,0 +1,173 @@
+package com.library.repository.jdbc;
+
+import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import com.library.models.PatronType;
+import com.library.repository.PatronRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * JDBC-backed patron repository.
+ * Borrowing history is not stored with the patron; it lives in the loans table.
+ * Versions are checked and bumped in the database as for {@link JdbcBookRepository}.
+ */
+public class JdbcPatronRepository extends JdbcRepository<Patron> implements PatronRepository {
+    private static final String COLUMNS =
+            "patron_id, name, email, phone_number, address, patron_type, membership_day, membership_expiry_day, "
+                    + "status, status_until_day, version";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM patrons";
+    private static final String INSERT =
+            "INSERT INTO patrons (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE patrons SET name = ?, email = ?, phone_number = ?, address = ?, "
+            + "patron_type = ?, membership_day = ?, membership_expiry_day = ?, status = ?, status_until_day = ?, "
+            + "version = version + 1 WHERE patron_id = ?";
+    private static final String REPLACE = UPDATE + " AND version = ?";
+    private static final String EXISTS = "SELECT 1 FROM patrons WHERE patron_id = ?";
+
+    public JdbcPatronRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected RowMapper<Patron> mapper() {
+        return row -> {
+            Patron patron = new Patron(row.getString("patron_id"), row.getString("name"), row.getString("email"),
+                    row.getString("phone_number"), row.getString("address"),
+                    PatronType.valueOf(row.getString("patron_type")), getDay(row, "membership_day"));
+            patron.setMembershipExpiryDate(getDay(row, "membership_expiry_day"));
+            patron.setStatus(PatronStatus.valueOf(row.getString("status")));
+            patron.setStatusUntil(getDay(row, "status_until_day"));
+            patron.setVersion(row.getLong("version"));
+            return patron;
+        };
+    }
+
+    @Override
+    public boolean insert(Patron patron) {
+        patron.setVersion(1);
+        return insertIfAbsent(EXISTS, patron.getPatronId(), INSERT,
+                JdbcPatronRepository::bindInsert, patron);
+    }
+
+    @Override
+    public void save(Patron patron) {
+        saveAll(List.of(patron));
+    }
+
+    @Override
+    public void saveAll(Collection<Patron> patrons) {
+        patrons.forEach(patron -> patron.setVersion(patron.getVersion() + 1));
+        upsertAll(UPDATE, JdbcPatronRepository::bindUpdate, INSERT, JdbcPatronRepository::bindInsert, patrons);
+    }
+
+    @Override
+    public boolean replace(Patron patron, long expectedVersion) {
+        if (!updateIfVersion(REPLACE, JdbcPatronRepository::bindUpdate, patron, 11, expectedVersion)) {
+            return false;
+        }
+        patron.setVersion(expectedVersion + 1);
+        return true;
+    }
+
+    @Override
+    public List<Patron> replaceAll(Collection<Patron> patrons) {
+        if (patrons.isEmpty()) {
+            return List.of();
+        }
+        List<Patron> conflicts = pool.inTransaction(connection -> {
+            List<Patron> replaced = new ArrayList<>();
+            List<Patron> inserted = new ArrayList<>();
+            List<Patron> missed = new ArrayList<>();
+            for (Patron patron : patrons) {
+                if (patron.getVersion() == 0) {
+                    (exists(connection, EXISTS, patron.getPatronId()) ? missed : inserted).add(patron);
+                } else {
+                    replaced.add(patron);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(REPLACE)) {
+                for (Patron patron : replaced) {
+                    bindUpdate(statement, patron);
+                    statement.setLong(11, patron.getVersion());
+                    statement.addBatch();
+                }
+                int[] updated = replaced.isEmpty() ? new int[0] : statement.executeBatch();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        missed.add(replaced.get(i));
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                for (Patron patron : inserted) {
+                    bindInsert(statement, patron);
+                    statement.setLong(11, 1);
+                    statement.addBatch();
+                }
+                if (!inserted.isEmpty()) {
+                    statement.executeBatch();
+                }
+            }
+            return missed;
+        });
+        Set<Patron> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+        rejected.addAll(conflicts);
+        // Stamped only once committed, as the database stamped the rows
+        for (Patron patron : patrons) {
+            if (!rejected.contains(patron)) {
+                patron.setVersion(patron.getVersion() + 1);
+            }
+        }
+        return conflicts;
+    }
+
+    @Override
+    public Optional<Patron> findById(String patronId) {
+        return queryOne(SELECT + " WHERE patron_id = ?", patronId);
+    }
+
+    @Override
+    public Optional<Patron> deleteById(String patronId) {
+        Optional<Patron> existing = findById(patronId);
+        if (existing.isPresent() && update("DELETE FROM patrons WHERE patron_id = ?", patronId) == 0) {
+            return Optional.empty();
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Patron> findAll() {
+        return query(SELECT);
+    }
+
+    private static void bindInsert(PreparedStatement statement, Patron patron) throws SQLException {
+        statement.setString(1, patron.getPatronId());
+        bindState(statement, 2, patron);
+        statement.setLong(11, patron.getVersion());
+    }
+
+    private static void bindUpdate(PreparedStatement statement, Patron patron) throws SQLException {
+        bindState(statement, 1, patron);
+        statement.setString(10, patron.getPatronId());
+    }
+
+    private static void bindState(PreparedStatement statement, int first, Patron patron) throws SQLException {
+        statement.setString(first, patron.getName());
+        statement.setString(first + 1, patron.getEmail());
+        statement.setString(first + 2, patron.getPhoneNumber());
+        statement.setString(first + 3, patron.getAddress());
+        statement.setString(first + 4, patron.getPatronType().name());
+        setDay(statement, first + 5, patron.getMembershipDate());
+        setDay(statement, first + 6, patron.getMembershipExpiryDate());
+        statement.setString(first + 7, patron.getStatus().name());
+        setDay(statement, first + 8, patron.getStatusUntil());
+    }
+}
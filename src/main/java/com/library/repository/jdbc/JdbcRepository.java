@@ -0,0 +1,175 @@
+package com.library.repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shared plumbing for the JDBC repositories: parameter binding, row mapping and
+ * batched upserts. Upserts run as a batched UPDATE followed by a batched INSERT of
+ * the rows the update did not touch, which works without vendor-specific MERGE syntax.
+ */
+abstract class JdbcRepository<T> {
+    protected final ConnectionPool pool;
+
+    @FunctionalInterface
+    protected interface Binder<T> {
+        void bind(PreparedStatement statement, T value) throws SQLException;
+    }
+
+    @FunctionalInterface
+    protected interface RowMapper<T> {
+        T map(ResultSet row) throws SQLException;
+    }
+
+    protected JdbcRepository(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    protected abstract RowMapper<T> mapper();
+
+    protected List<T> query(String sql, Object... parameters) {
+        return pool.execute(connection -> query(connection, sql, parameters));
+    }
+
+    protected Optional<T> queryOne(String sql, Object... parameters) {
+        List<T> rows = query(sql, parameters);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    protected List<T> query(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bindAll(statement, parameters);
+            try (ResultSet rows = statement.executeQuery()) {
+                List<T> results = new ArrayList<>();
+                RowMapper<T> rowMapper = mapper();
+                while (rows.next()) {
+                    results.add(rowMapper.map(rows));
+                }
+                return results;
+            }
+        }
+    }
+
+    protected long count(String sql, Object... parameters) {
+        return pool.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bindAll(statement, parameters);
+                try (ResultSet rows = statement.executeQuery()) {
+                    return rows.next() ? rows.getLong(1) : 0L;
+                }
+            }
+        });
+    }
+
+    protected int update(String sql, Object... parameters) {
+        return pool.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bindAll(statement, parameters);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Inserts a row unless its key already exists. Returns false if it did.
+     */
+    protected boolean insertIfAbsent(String existsSql, String key, String insertSql, Binder<T> binder, T value) {
+        return pool.inTransaction(connection -> {
+            if (exists(connection, existsSql, key)) {
+                return false;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+                binder.bind(statement, value);
+                statement.executeUpdate();
+                return true;
+            }
+        });
+    }
+
+    protected void upsertAll(String updateSql, Binder<T> updateBinder, String insertSql, Binder<T> insertBinder,
+                             Collection<T> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        pool.inTransaction(connection -> {
+            List<T> batch = new ArrayList<>(values);
+            int[] updated;
+            try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+                for (T value : batch) {
+                    updateBinder.bind(statement, value);
+                    statement.addBatch();
+                }
+                updated = statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+                boolean pending = false;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (updated[i] == 0) {
+                        insertBinder.bind(statement, batch.get(i));
+                        statement.addBatch();
+                        pending = true;
+                    }
+                }
+                if (pending) {
+                    statement.executeBatch();
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code sql}, an UPDATE bound by {@code binder} whose last parameter, at
+     * {@code versionIndex}, is the version the row must still have. Returns whether it matched.
+     */
+    protected boolean updateIfVersion(String sql, Binder<T> binder, T value, int versionIndex, long expectedVersion) {
+        return pool.execute(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                binder.bind(statement, value);
+                statement.setLong(versionIndex, expectedVersion);
+                return statement.executeUpdate() == 1;
+            }
+        });
+    }
+
+    protected static boolean exists(Connection connection, String sql, String key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, key);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next();
+            }
+        }
+    }
+
+    private static void bindAll(PreparedStatement statement, Object[] parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            if (parameter instanceof LocalDate date) {
+                statement.setLong(i + 1, date.toEpochDay());
+            } else {
+                statement.setObject(i + 1, parameter);
+            }
+        }
+    }
+
+    protected static void setDay(PreparedStatement statement, int index, LocalDate date) throws SQLException {
+        if (date == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, date.toEpochDay());
+        }
+    }
+
+    protected static LocalDate getDay(ResultSet row, String column) throws SQLException {
+        long epochDay = row.getLong(column);
+        return row.wasNull() ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
@@ -0,0 +1,139 @@
+package com.library.repository.jdbc;
+
+import com.library.models.Reservation;
+import com.library.models.ReservationStatus;
+import com.library.repository.ReservationRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC-backed reservation repository. Queue lookups are served by the
+ * {@code idx_reservations_queue} index and expiry sweeps by {@code idx_reservations_expiry}.
+ * Versions are checked and bumped in the database as for {@link JdbcBookRepository}.
+ */
+public class JdbcReservationRepository extends JdbcRepository<Reservation> implements ReservationRepository {
+    private static final String COLUMNS =
+            "reservation_id, patron_id, isbn, reservation_day, expiry_day, status, version";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM reservations";
+    private static final String INSERT = "INSERT INTO reservations (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE reservations SET patron_id = ?, isbn = ?, reservation_day = ?, "
+            + "expiry_day = ?, status = ?, version = version + 1 WHERE reservation_id = ?";
+    private static final String REPLACE = UPDATE + " AND version = ?";
+    private static final String ACTIVE = ReservationStatus.ACTIVE.name();
+    private static final String FULFILLED = ReservationStatus.FULFILLED.name();
+
+    public JdbcReservationRepository(ConnectionPool pool) {
+        super(pool);
+    }
+
+    @Override
+    protected RowMapper<Reservation> mapper() {
+        return row -> {
+            Reservation reservation = new Reservation(row.getString("reservation_id"), row.getString("patron_id"),
+                    row.getString("isbn"), getDay(row, "reservation_day"), getDay(row, "expiry_day"));
+            reservation.setStatus(ReservationStatus.valueOf(row.getString("status")));
+            reservation.setVersion(row.getLong("version"));
+            return reservation;
+        };
+    }
+
+    @Override
+    public boolean insert(Reservation reservation) {
+        reservation.setVersion(1);
+        return insertIfAbsent("SELECT 1 FROM reservations WHERE reservation_id = ?", reservation.getReservationId(),
+                INSERT, JdbcReservationRepository::bindInsert, reservation);
+    }
+
+    @Override
+    public void save(Reservation reservation) {
+        saveAll(List.of(reservation));
+    }
+
+    @Override
+    public void saveAll(Collection<Reservation> reservations) {
+        reservations.forEach(reservation -> reservation.setVersion(reservation.getVersion() + 1));
+        upsertAll(UPDATE, JdbcReservationRepository::bindUpdate, INSERT, JdbcReservationRepository::bindInsert,
+                reservations);
+    }
+
+    @Override
+    public boolean replace(Reservation reservation, long expectedVersion) {
+        if (!updateIfVersion(REPLACE, JdbcReservationRepository::bindUpdate, reservation, 7, expectedVersion)) {
+            return false;
+        }
+        reservation.setVersion(expectedVersion + 1);
+        return true;
+    }
+
+    @Override
+    public Optional<Reservation> findById(String reservationId) {
+        return queryOne(SELECT + " WHERE reservation_id = ?", reservationId);
+    }
+
+    @Override
+    public Optional<Reservation> deleteById(String reservationId) {
+        Optional<Reservation> existing = findById(reservationId);
+        if (existing.isPresent()
+                && update("DELETE FROM reservations WHERE reservation_id = ?", reservationId) == 0) {
+            return Optional.empty();
+        }
+        return existing;
+    }
+
+    @Override
+    public List<Reservation> findByPatron(String patronId) {
+        return query(SELECT + " WHERE patron_id = ?", patronId);
+    }
+
+    @Override
+    public List<Reservation> findActiveByBook(String isbn, LocalDate today) {
+        return query(SELECT + " WHERE isbn = ? AND status = ? AND expiry_day >= ? "
+                + "ORDER BY reservation_day, reservation_id",
+                isbn, ACTIVE, today);
+    }
+
+    @Override
+    public boolean existsActive(String patronId, String isbn, LocalDate today) {
+        return count("SELECT COUNT(*) FROM reservations WHERE isbn = ? AND status = ? AND expiry_day >= ? "
+                + "AND patron_id = ?", isbn, ACTIVE, today, patronId) > 0;
+    }
+
+    @Override
+    public List<Reservation> findExpiredActive(LocalDate today) {
+        return query(SELECT + " WHERE status = ? AND expiry_day < ?", ACTIVE, today);
+    }
+
+    @Override
+    public List<Reservation> findExpiredFulfilled(LocalDate today) {
+        return query(SELECT + " WHERE status = ? AND expiry_day < ?", FULFILLED, today);
+    }
+
+    @Override
+    public List<Reservation> findAll() {
+        return query(SELECT);
+    }
+
+    private static void bindInsert(PreparedStatement statement, Reservation reservation) throws SQLException {
+        statement.setString(1, reservation.getReservationId());
+        bindState(statement, 2, reservation);
+        statement.setLong(7, reservation.getVersion());
+    }
+
+    private static void bindUpdate(PreparedStatement statement, Reservation reservation) throws SQLException {
+        bindState(statement, 1, reservation);
+        statement.setString(6, reservation.getReservationId());
+    }
+
+    private static void bindState(PreparedStatement statement, int first, Reservation reservation)
+            throws SQLException {
+        statement.setString(first, reservation.getPatronId());
+        statement.setString(first + 1, reservation.getIsbn());
+        setDay(statement, first + 2, reservation.getReservationDate());
+        setDay(statement, first + 3, reservation.getExpiryDate());
+        statement.setString(first + 4, reservation.getStatus().name());
+    }
+}
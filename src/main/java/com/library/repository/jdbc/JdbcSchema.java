@@ -0,0 +1,50 @@
+package com.library.repository.jdbc;
+
+import java.sql.Statement;
+
+/**
+ * Creates the tables and indexes used by the JDBC repositories.
+ * Dates are stored as epoch days so the schema works unchanged on H2 and SQLite,
+ * and each index backs one of the repository lookups.
+ */
+public final class JdbcSchema {
+    private static final String[] STATEMENTS = {
+        "CREATE TABLE IF NOT EXISTS books ("
+                + "isbn VARCHAR(32) PRIMARY KEY, title VARCHAR(512) NOT NULL, author VARCHAR(256), "
+                + "publication_year INT, status VARCHAR(16) NOT NULL, borrower_id VARCHAR(64), "
+                + "borrow_day BIGINT, due_day BIGINT, version BIGINT NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_books_status ON books (status)",
+        "CREATE TABLE IF NOT EXISTS patrons ("
+                + "patron_id VARCHAR(64) PRIMARY KEY, name VARCHAR(256) NOT NULL, email VARCHAR(256), "
+                + "phone_number VARCHAR(64), address VARCHAR(512), patron_type VARCHAR(16) NOT NULL, "
+                + "membership_day BIGINT, membership_expiry_day BIGINT, status VARCHAR(16) NOT NULL, "
+                + "status_until_day BIGINT, version BIGINT NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS loans ("
+                + "record_id VARCHAR(64) PRIMARY KEY, patron_id VARCHAR(64) NOT NULL, isbn VARCHAR(32) NOT NULL, "
+                + "borrow_day BIGINT NOT NULL, due_day BIGINT NOT NULL, return_day BIGINT, fine_amount DOUBLE)",
+        "CREATE INDEX IF NOT EXISTS idx_loans_patron_active ON loans (patron_id, return_day, isbn)",
+        "CREATE INDEX IF NOT EXISTS idx_loans_overdue ON loans (return_day, due_day)",
+        "CREATE INDEX IF NOT EXISTS idx_loans_patron_history ON loans (patron_id, borrow_day, record_id)",
+        "CREATE TABLE IF NOT EXISTS reservations ("
+                + "reservation_id VARCHAR(64) PRIMARY KEY, patron_id VARCHAR(64) NOT NULL, "
+                + "isbn VARCHAR(32) NOT NULL, reservation_day BIGINT NOT NULL, expiry_day BIGINT NOT NULL, "
+                + "status VARCHAR(16) NOT NULL, version BIGINT NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_reservations_queue ON reservations (isbn, status, reservation_day)",
+        "CREATE INDEX IF NOT EXISTS idx_reservations_patron ON reservations (patron_id)",
+        "CREATE INDEX IF NOT EXISTS idx_reservations_expiry ON reservations (status, expiry_day)"
+    };
+
+    private JdbcSchema() {
+    }
+
+    public static void create(ConnectionPool pool) {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : STATEMENTS) {
+                    statement.execute(sql);
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,340 @@
+package com.library.search;
+
+import com.library.models.Patron;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory lookup index over patrons: case-insensitive substring search on
+ * names, plus exact lookups by email and phone number.
+ *
+ * <p>Results are ranked in tiers: exact name, then names starting with the
+ * query, then names with a word starting with it, then any other match. Within
+ * a tier shorter names come first. Each patron is identified in the index by a
+ * document key packing its name length ahead of a dense ordinal, and every
+ * posting list is sorted by that key. So walking the rarest list a tier needs,
+ * and probing the others by binary search, yields that tier's matches best
+ * first. The search stops as soon as {@code limit} matches are verified, which
+ * keeps common queries over millions of patrons cheap.
+ *
+ * <p>The tiers draw on posting lists for:
+ * <ul>
+ *   <li>the first one to three characters of the whole name,</li>
+ *   <li>the first one to three characters of each word in it,</li>
+ *   <li>every character trigram in it, which narrows longer queries,</li>
+ *   <li>every one- and two-character substring of it, for shorter queries.</li>
+ * </ul>
+ *
+ * <p>The index holds IDs, not patrons. Callers resolve the returned IDs
+ * against their repository and must re-index a patron whenever they change it.
+ */
+public class PatronSearchIndex {
+    private static final int EXACT = 0;
+    private static final int NAME_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    private static final int PREFIX_LENGTH = 3;
+    private static final int GRAM_LENGTH = 3;
+    private static final int ORDINAL_BITS = 24;
+    private static final int ORDINAL_MASK = (1 << ORDINAL_BITS) - 1;
+    private static final int MAX_KEYED_LENGTH = 127;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<String, PostingList> namePrefixes = new HashMap<>();
+    private final Map<String, PostingList> wordPrefixes = new HashMap<>();
+    private final Map<String, PostingList> trigrams = new HashMap<>();
+    private final Map<String, PostingList> shortGrams = new HashMap<>();
+    private final Map<String, PostingList> emails = new HashMap<>();
+    private final Map<String, PostingList> phones = new HashMap<>();
+
+    /**
+     * Adds the patron, or re-indexes it if its ID is already present.
+     */
+    public void index(Patron patron) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(patron.getPatronId());
+            if (ordinal != null) {
+                unindex(entries.get(ordinal));
+            } else if (!freeOrdinals.isEmpty()) {
+                ordinal = freeOrdinals.pop();
+            } else if (entries.size() > ORDINAL_MASK) {
+                throw new IllegalStateException("Patron search index is full");
+            } else {
+                ordinal = entries.size();
+                entries.add(null);
+            }
+            ordinalsById.put(patron.getPatronId(), ordinal);
+            String name = normalize(patron.getName());
+            Entry entry = new Entry(patron.getPatronId(), name, documentKey(name, ordinal),
+                    normalizeEmail(patron.getEmail()), normalizePhone(patron.getPhoneNumber()));
+            entries.set(ordinal, entry);
+            forEachTerm(entry, (postings, term) -> postings.computeIfAbsent(term, t -> new PostingList())
+                    .add(entry.documentKey()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String patronId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.remove(patronId);
+            if (ordinal != null) {
+                unindex(entries.get(ordinal));
+                entries.set(ordinal, null);
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of the best {@code limit} patrons whose name contains {@code query}, best first.
+     */
+    public List<String> searchByName(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        String normalized = normalize(query);
+        List<String> ids = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            List<PostingList> grams = new ArrayList<>();
+            if (normalized.length() < GRAM_LENGTH) {
+                grams.add(shortGrams.get(normalized));
+            }
+            for (String trigram : trigramsOf(normalized)) {
+                grams.add(trigrams.get(trigram));
+            }
+            List<PostingList> nameLists = new ArrayList<>(grams);
+            nameLists.add(namePrefixes.get(normalized.substring(0, Math.min(PREFIX_LENGTH, normalized.length()))));
+            collect(ids, limit, nameLists, normalized, EXACT, NAME_PREFIX);
+
+            String firstWord = leadingWord(normalized);
+            List<PostingList> wordLists = new ArrayList<>(grams);
+            if (!firstWord.isEmpty()) {
+                wordLists.add(wordPrefixes.get(firstWord.substring(0, Math.min(PREFIX_LENGTH, firstWord.length()))));
+            }
+            collect(ids, limit, wordLists, normalized, WORD_PREFIX, WORD_PREFIX);
+            collect(ids, limit, grams, normalized, SUBSTRING, SUBSTRING);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> findByEmail(String email) {
+        return lookup(emails, normalizeEmail(email));
+    }
+
+    /**
+     * Matches on digits only, so formatting differences do not matter.
+     */
+    public List<String> findByPhone(String phoneNumber) {
+        return lookup(phones, normalizePhone(phoneNumber));
+    }
+
+    private List<String> lookup(Map<String, PostingList> exact, String key) {
+        if (key == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            PostingList postings = exact.get(key);
+            if (postings == null) {
+                return List.of();
+            }
+            List<String> ids = new ArrayList<>(postings.size());
+            for (PrimitiveIterator.OfInt keys = postings.iterator(); keys.hasNext(); ) {
+                ids.add(entries.get(keys.nextInt() & ORDINAL_MASK).patronId());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends, best first, the patrons in every one of {@code lists} whose match
+     * against {@code query} ranks between {@code minRank} and {@code maxRank}.
+     */
+    private void collect(List<String> ids, int limit, List<PostingList> lists, String query, int minRank, int maxRank) {
+        if (ids.size() >= limit || lists.isEmpty() || lists.contains(null)) {
+            return;
+        }
+        PostingList[] ordered = lists.toArray(new PostingList[0]);
+        Arrays.sort(ordered, Comparator.comparingInt(PostingList::size));
+        candidates:
+        for (PrimitiveIterator.OfInt keys = ordered[0].iterator(); keys.hasNext(); ) {
+            int key = keys.nextInt();
+            for (int j = 1; j < ordered.length; j++) {
+                if (!ordered[j].contains(key)) {
+                    continue candidates;
+                }
+            }
+            Entry entry = entries.get(key & ORDINAL_MASK);
+            int rank = rankOf(entry.name(), query);
+            if (rank >= minRank && rank <= maxRank) {
+                ids.add(entry.patronId());
+                if (ids.size() >= limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int rankOf(String name, String query) {
+        int position = name.indexOf(query);
+        if (position < 0) {
+            return -1;
+        }
+        if (position == 0) {
+            return name.length() == query.length() ? EXACT : NAME_PREFIX;
+        }
+        for (; position >= 0; position = name.indexOf(query, position + 1)) {
+            if (Character.isWhitespace(name.charAt(position - 1))) {
+                return WORD_PREFIX;
+            }
+        }
+        return SUBSTRING;
+    }
+
+    private void unindex(Entry entry) {
+        forEachTerm(entry, (postings, term) -> {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(entry.documentKey());
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        });
+    }
+
+    private void forEachTerm(Entry entry, BiConsumer<Map<String, PostingList>, String> visitor) {
+        String name = entry.name();
+        for (int length = 1; length <= Math.min(PREFIX_LENGTH, name.length()); length++) {
+            visitor.accept(namePrefixes, name.substring(0, length));
+        }
+        for (String word : wordsOf(name)) {
+            for (int length = 1; length <= Math.min(PREFIX_LENGTH, word.length()); length++) {
+                visitor.accept(wordPrefixes, word.substring(0, length));
+            }
+        }
+        for (String trigram : trigramsOf(name)) {
+            visitor.accept(trigrams, trigram);
+        }
+        for (String gram : shortGramsOf(name)) {
+            visitor.accept(shortGrams, gram);
+        }
+        if (entry.email() != null) {
+            visitor.accept(emails, entry.email());
+        }
+        if (entry.phone() != null) {
+            visitor.accept(phones, entry.phone());
+        }
+    }
+
+    /**
+     * Orders patrons by name length, then ordinal; names longer than the keyed length tie.
+     */
+    private static int documentKey(String name, int ordinal) {
+        return Math.min(name.length(), MAX_KEYED_LENGTH) << ORDINAL_BITS | ordinal;
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    private static Set<String> shortGramsOf(String text) {
+        Set<String> result = new HashSet<>();
+        for (int length = 1; length < GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                result.add(text.substring(i, i + length));
+            }
+        }
+        return result;
+    }
+
+    private static List<String> wordsOf(String name) {
+        List<String> result = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= name.length(); i++) {
+            boolean boundary = i == name.length() || Character.isWhitespace(name.charAt(i));
+            if (boundary && start >= 0) {
+                String word = name.substring(start, i);
+                if (!result.contains(word)) {
+                    result.add(word);
+                }
+                start = -1;
+            } else if (!boundary && start < 0) {
+                start = i;
+            }
+        }
+        return result;
+    }
+
+    private static String leadingWord(String text) {
+        int end = 0;
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+        return text.substring(0, end);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        String digits = phoneNumber.replaceAll("\\D", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    private record Entry(String patronId, String name, int documentKey, String email, String phone) {
+    }
+}
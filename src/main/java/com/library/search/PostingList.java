@@ -0,0 +1,147 @@
+package com.library.search;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Sorted, duplicate-free set of document keys for one index term. Every list
+ * uses the same key order, so walking one list in order while probing the others
+ * yields their intersection best-first and can stop early.
+ *
+ * <p>Keys live in sorted blocks of at most {@value #BLOCK_SIZE}, so an insert
+ * shifts one block rather than the whole list; a full block splits in two.
+ * Blocks start small, keeping the many single-entry lists (one per email
+ * address, say) cheap. Not thread-safe; {@link PatronSearchIndex} guards it.
+ */
+final class PostingList {
+    private static final int BLOCK_SIZE = 256;
+
+    private int[][] blocks = new int[1][];
+    private int[] blockSizes = new int[1];
+    private int blockCount;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int key) {
+        if (size == 0) {
+            return false;
+        }
+        int block = blockFor(key);
+        return Arrays.binarySearch(blocks[block], 0, blockSizes[block], key) >= 0;
+    }
+
+    void add(int key) {
+        if (blockCount == 0) {
+            blocks[0] = new int[4];
+            blockCount = 1;
+        }
+        int block = blockFor(key);
+        int[] keys = blocks[block];
+        int count = blockSizes[block];
+        int position = Arrays.binarySearch(keys, 0, count, key);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (count == keys.length) {
+            if (count == BLOCK_SIZE) {
+                split(block);
+                add(key);
+                return;
+            }
+            keys = blocks[block] = Arrays.copyOf(keys, count * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, count - position);
+        keys[position] = key;
+        blockSizes[block]++;
+        size++;
+    }
+
+    void remove(int key) {
+        if (size == 0) {
+            return;
+        }
+        int block = blockFor(key);
+        int[] keys = blocks[block];
+        int count = blockSizes[block];
+        int position = Arrays.binarySearch(keys, 0, count, key);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(keys, position + 1, keys, position, count - position - 1);
+        blockSizes[block]--;
+        size--;
+        if (blockSizes[block] == 0 && blockCount > 1) {
+            System.arraycopy(blocks, block + 1, blocks, block, blockCount - block - 1);
+            System.arraycopy(blockSizes, block + 1, blockSizes, block, blockCount - block - 1);
+            blocks[--blockCount] = null;
+        }
+    }
+
+    /**
+     * Iterates the keys in ascending order.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int block;
+            private int offset;
+
+            @Override
+            public boolean hasNext() {
+                while (block < blockCount && offset == blockSizes[block]) {
+                    block++;
+                    offset = 0;
+                }
+                return block < blockCount;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return blocks[block][offset++];
+            }
+        };
+    }
+
+    /**
+     * The last block whose first key is not greater than {@code key}, or the first block.
+     */
+    private int blockFor(int key) {
+        int low = 1;
+        int high = blockCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (blocks[middle][0] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    private void split(int block) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            blockSizes = Arrays.copyOf(blockSizes, blockCount * 2);
+        }
+        System.arraycopy(blocks, block + 1, blocks, block + 2, blockCount - block - 1);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block + 2, blockCount - block - 1);
+        int[] full = blocks[block];
+        int half = BLOCK_SIZE / 2;
+        blocks[block + 1] = Arrays.copyOf(Arrays.copyOfRange(full, half, BLOCK_SIZE), BLOCK_SIZE);
+        blockSizes[block + 1] = BLOCK_SIZE - half;
+        blockSizes[block] = half;
+        blockCount++;
+    }
+}
@@ -1,6 +1,7 @@
 package com.library.services;
 
 import com.library.models.Book;
+import com.library.repository.CatalogSnapshot;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,11 +13,45 @@ public interface BookService {
     void addBook(Book book);
     void removeBook(String isbn);
     Optional<Book> updateBook(String isbn, Book updatedBook);
+
+    /**
+     * Updates the book only if it is still at {@code expectedVersion}, as read from
+     * {@link Book#getVersion()}; otherwise throws {@link VersionConflictException}.
+     */
+    Optional<Book> updateBook(String isbn, Book updatedBook, long expectedVersion);
     Optional<Book> findBookByIsbn(String isbn);
+
+    /**
+     * Writes back loan state changed on a book returned by {@link #findBookByIsbn(String)}.
+     */
+    void saveBook(Book book);
+
+    /**
+     * Like {@link #saveBook(Book)}, but only if the stored book is still at
+     * {@code expectedVersion}, the version of the book the change was made on.
+     * Returns false if it was written since; re-read it and retry.
+     */
+    boolean replaceBook(Book book, long expectedVersion);
+
+    /**
+     * Sets a book on the shelf aside for the patron whose reservation it fulfils;
+     * only that patron can borrow it until the hold is released.
+     */
+    void holdBook(String isbn, String patronId);
+
+    /**
+     * Puts a held book back on the shelf.
+     */
+    void releaseHold(String isbn);
     List<Book> searchBooksByTitle(String title);
     List<Book> searchBooksByAuthor(String author);
     List<Book> searchBooksByIsbn(String isbn);
     List<Book> getAllBooks();
     List<Book> getAvailableBooks();
     List<Book> getBorrowedBooks();
+
+    /**
+     * Opens a point-in-time view of the catalog for long reads such as reports.
+     */
+    CatalogSnapshot openCatalogSnapshot();
 }
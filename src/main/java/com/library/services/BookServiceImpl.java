@@ -1,21 +1,41 @@
 package com.library.services;
 
+import com.library.metrics.LibraryMetrics;
 import com.library.models.Book;
+import com.library.models.BookStatus;
 import com.library.patterns.*;
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationSink;
+import com.library.persistence.MutationType;
+import com.library.persistence.Replayable;
+import com.library.repository.BookRepository;
+import com.library.repository.CatalogSnapshot;
+import com.library.repository.VersionedBookRepository;
 import com.library.utils.Logger;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Implementation of BookService.
  * Demonstrates the use of Strategy pattern for search functionality.
+ *
+ * <p>Updates are made on a copy of the stored book that replaces it only if the
+ * book's version has not moved on, so concurrent updates never overwrite each other.
  */
-public class BookServiceImpl implements BookService {
-    private final Map<String, Book> books;
+public class BookServiceImpl implements BookService, Replayable {
+    private static final long ANY_VERSION = -1;
+
+    private final BookRepository bookRepository;
     private final Map<String, SearchStrategy> searchStrategies;
+    private MutationSink mutationSink = MutationSink.NONE;
+    private LibraryMetrics metrics = new LibraryMetrics();
 
     public BookServiceImpl() {
-        this.books = new ConcurrentHashMap<>();
+        this(new VersionedBookRepository());
+    }
+
+    public BookServiceImpl(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
         this.searchStrategies = new HashMap<>();
         initializeSearchStrategies();
     }
@@ -26,18 +46,36 @@ public class BookServiceImpl implements BookService {
         searchStrategies.put("isbn", new ISBNSearchStrategy());
     }
 
+    /**
+     * Sets where mutations are recorded, e.g. a {@link com.library.persistence.Journal}.
+     */
+    public void setMutationSink(MutationSink mutationSink) {
+        this.mutationSink = mutationSink == null ? MutationSink.NONE : mutationSink;
+    }
+
+    /**
+     * Sets the counters this service keeps up to date.
+     */
+    public void setMetrics(LibraryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public void addBook(Book book) {
         if (book == null || book.getIsbn() == null || book.getIsbn().trim().isEmpty()) {
             throw new IllegalArgumentException("Book and ISBN cannot be null or empty");
         }
         
-        if (books.containsKey(book.getIsbn())) {
+        if (!bookRepository.insert(book)) {
             throw new IllegalArgumentException("Book with ISBN " + book.getIsbn() + " already exists");
         }
         
-        books.put(book.getIsbn(), book);
-        Logger.logInfo("Book added: " + book.getTitle() + " (ISBN: " + book.getIsbn() + ")");
+        metrics.bookAdded(book.getStatus());
+        Runnable undo = () -> bookRepository.deleteByIsbn(book.getIsbn())
+                .ifPresent(added -> metrics.bookRemoved(added.getStatus()));
+        mutationSink.append(Mutation.of(MutationType.BOOK_ADDED, book.getIsbn(), book.getTitle(),
+                book.getAuthor(), book.getPublicationYear()), undo);
+        Logger.logInfo(() -> "Book added: " + book.getTitle() + " (ISBN: " + book.getIsbn() + ")");
     }
 
     @Override
@@ -46,11 +84,14 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
         }
         
-        Book removedBook = books.remove(isbn);
-        if (removedBook != null) {
-            Logger.logInfo("Book removed: " + removedBook.getTitle() + " (ISBN: " + isbn + ")");
+        Optional<Book> removed = bookRepository.deleteByIsbn(isbn);
+        if (removed.isPresent()) {
+            Book removedBook = removed.get();
+            metrics.bookRemoved(removedBook.getStatus());
+            mutationSink.append(Mutation.of(MutationType.BOOK_REMOVED, isbn), () -> restore(removedBook));
+            Logger.logInfo(() -> "Book removed: " + removedBook.getTitle() + " (ISBN: " + isbn + ")");
         } else {
-            Logger.logWarning("Attempted to remove non-existent book with ISBN: " + isbn);
+            Logger.logWarning(() -> "Attempted to remove non-existent book with ISBN: " + isbn);
         }
     }
 
@@ -59,59 +100,210 @@ public class BookServiceImpl implements BookService {
         if (isbn == null || updatedBook == null) {
             throw new IllegalArgumentException("ISBN and updated book cannot be null");
         }
-        
-        Book existingBook = books.get(isbn);
-        if (existingBook != null) {
-            existingBook.setTitle(updatedBook.getTitle());
-            existingBook.setAuthor(updatedBook.getAuthor());
-            existingBook.setPublicationYear(updatedBook.getPublicationYear());
-            Logger.logInfo("Book updated: " + existingBook.getTitle() + " (ISBN: " + isbn + ")");
-            return Optional.of(existingBook);
+        return update(isbn, updatedBook, ANY_VERSION);
+    }
+
+    @Override
+    public Optional<Book> updateBook(String isbn, Book updatedBook, long expectedVersion) {
+        if (isbn == null || updatedBook == null) {
+            throw new IllegalArgumentException("ISBN and updated book cannot be null");
+        }
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Expected version cannot be negative");
+        }
+        return update(isbn, updatedBook, expectedVersion);
+    }
+
+    private Optional<Book> update(String isbn, Book updatedBook, long expectedVersion) {
+        Book[] previous = new Book[1];
+        Optional<Book> updated = modify(isbn, expectedVersion, book -> {
+            previous[0] = new Book(book);
+            book.setTitle(updatedBook.getTitle());
+            book.setAuthor(updatedBook.getAuthor());
+            book.setPublicationYear(updatedBook.getPublicationYear());
+        });
+        if (updated.isEmpty()) {
+            Logger.logWarning(() -> "Attempted to update non-existent book with ISBN: " + isbn);
+            return Optional.empty();
+        }
+        Book book = updated.get();
+        mutationSink.append(Mutation.of(MutationType.BOOK_UPDATED, isbn, book.getTitle(), book.getAuthor(),
+                book.getPublicationYear()), () -> restore(previous[0]));
+        Logger.logInfo(() -> "Book updated: " + book.getTitle() + " (ISBN: " + isbn + ")");
+        return updated;
+    }
+
+    /**
+     * Applies {@code change} to a copy of the book and swaps the copy in if the
+     * stored book is still the version copied. With {@link #ANY_VERSION} a lost race
+     * is retried from a fresh read; otherwise the stored book must be at
+     * {@code expectedVersion}. Returns the book as stored, or empty if there is none.
+     */
+    private Optional<Book> modify(String isbn, long expectedVersion, Consumer<Book> change) {
+        while (true) {
+            Book current = bookRepository.findByIsbn(isbn).orElse(null);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(isbn, expectedVersion, current.getVersion());
+            }
+            Book replacement = new Book(current);
+            change.accept(replacement);
+            if (bookRepository.replace(replacement, current.getVersion())) {
+                return Optional.of(replacement);
+            }
         }
-        
-        Logger.logWarning("Attempted to update non-existent book with ISBN: " + isbn);
-        return Optional.empty();
     }
 
     @Override
     public Optional<Book> findBookByIsbn(String isbn) {
-        return Optional.ofNullable(books.get(isbn));
+        return bookRepository.findByIsbn(isbn);
+    }
+
+    @Override
+    public void saveBook(Book book) {
+        bookRepository.save(book);
+    }
+
+    @Override
+    public boolean replaceBook(Book book, long expectedVersion) {
+        return bookRepository.replace(book, expectedVersion);
+    }
+
+    @Override
+    public void holdBook(String isbn, String patronId) {
+        if (isbn == null || patronId == null) {
+            throw new IllegalArgumentException("ISBN and patron ID cannot be null");
+        }
+        changeHold(isbn, patronId);
+    }
+
+    @Override
+    public void releaseHold(String isbn) {
+        if (isbn == null) {
+            throw new IllegalArgumentException("ISBN cannot be null");
+        }
+        changeHold(isbn, null);
+    }
+
+    private void changeHold(String isbn, String patronId) {
+        Book[] previous = new Book[1];
+        Book book = modify(isbn, ANY_VERSION, changed -> {
+            previous[0] = new Book(changed);
+            if (patronId != null) {
+                changed.holdFor(patronId);
+            } else if (changed.getStatus() == BookStatus.RESERVED) {
+                changed.returnBook();
+            }
+        }).orElseThrow(() -> new IllegalArgumentException("Book not found: " + isbn));
+        metrics.bookStatusChanged(previous[0].getStatus(), book.getStatus());
+        mutationSink.append(Mutation.of(MutationType.BOOK_HOLD_CHANGED, isbn, patronId), () -> restore(previous[0]));
+        Logger.logEvent("book.hold", "isbn", isbn, "patronId", patronId);
     }
 
     @Override
     public List<Book> searchBooksByTitle(String title) {
         SearchStrategy strategy = searchStrategies.get("title");
-        return strategy.search(new ArrayList<>(books.values()), title);
+        return strategy.search(bookRepository.findAll(), title);
     }
 
     @Override
     public List<Book> searchBooksByAuthor(String author) {
         SearchStrategy strategy = searchStrategies.get("author");
-        return strategy.search(new ArrayList<>(books.values()), author);
+        return strategy.search(bookRepository.findAll(), author);
     }
 
     @Override
     public List<Book> searchBooksByIsbn(String isbn) {
         SearchStrategy strategy = searchStrategies.get("isbn");
-        return strategy.search(new ArrayList<>(books.values()), isbn);
+        return strategy.search(bookRepository.findAll(), isbn);
     }
 
     @Override
     public List<Book> getAllBooks() {
-        return new ArrayList<>(books.values());
+        return bookRepository.findAll();
     }
 
     @Override
     public List<Book> getAvailableBooks() {
-        return books.values().stream()
-                .filter(Book::isAvailable)
-                .toList();
+        return bookRepository.findAvailable();
     }
 
     @Override
     public List<Book> getBorrowedBooks() {
-        return books.values().stream()
-                .filter(book -> !book.isAvailable())
-                .toList();
+        return bookRepository.findUnavailable();
+    }
+
+    /**
+     * Returns a versioned snapshot when the repository supports one; otherwise the
+     * catalog is copied once into the snapshot.
+     */
+    @Override
+    public CatalogSnapshot openCatalogSnapshot() {
+        if (bookRepository instanceof VersionedBookRepository versioned) {
+            return versioned.openSnapshot();
+        }
+        return CatalogSnapshot.of(bookRepository.findAll());
+    }
+
+    /**
+     * Loads a book from a snapshot, or puts one back when a transaction is undone.
+     */
+    public void restore(Book book) {
+        Optional<Book> existing = bookRepository.findByIsbn(book.getIsbn());
+        bookRepository.save(book);
+        if (existing.isPresent()) {
+            metrics.bookStatusChanged(existing.get().getStatus(), book.getStatus());
+        } else {
+            metrics.bookAdded(book.getStatus());
+        }
+    }
+
+    /**
+     * Drops every book, e.g. before a standby loads a snapshot in place of what it holds.
+     */
+    public void clear() {
+        for (Book book : bookRepository.findAll()) {
+            bookRepository.deleteByIsbn(book.getIsbn()).ifPresent(removed -> metrics.bookRemoved(removed.getStatus()));
+        }
+    }
+
+    @Override
+    public void apply(Mutation mutation) {
+        switch (mutation.type()) {
+            case BOOK_ADDED, BOOK_UPDATED -> {
+                // Upsert, so replaying over a snapshot that already holds the book keeps its loan state
+                Optional<Book> existing = bookRepository.findByIsbn(mutation.field(0)).map(Book::new);
+                if (existing.isEmpty() && mutation.type() == MutationType.BOOK_ADDED) {
+                    Book book = new Book(mutation.field(0), mutation.field(1), mutation.field(2), mutation.intField(3));
+                    if (bookRepository.insert(book)) {
+                        metrics.bookAdded(book.getStatus());
+                    }
+                } else if (existing.isPresent()) {
+                    Book book = existing.get();
+                    book.setTitle(mutation.field(1));
+                    book.setAuthor(mutation.field(2));
+                    book.setPublicationYear(mutation.intField(3));
+                    bookRepository.save(book);
+                }
+            }
+            case BOOK_REMOVED -> bookRepository.deleteByIsbn(mutation.field(0))
+                    .ifPresent(book -> metrics.bookRemoved(book.getStatus()));
+            case BOOK_HOLD_CHANGED -> bookRepository.findByIsbn(mutation.field(0)).map(Book::new).ifPresent(book -> {
+                BookStatus previous = book.getStatus();
+                if (mutation.field(1) != null) {
+                    book.setStatus(BookStatus.RESERVED);
+                    book.setBorrowerId(mutation.field(1));
+                } else if (previous == BookStatus.RESERVED) {
+                    book.returnBook();
+                }
+                bookRepository.save(book);
+                metrics.bookStatusChanged(previous, book.getStatus());
+            });
+            default -> {
+                // Not a book mutation
+            }
+        }
     }
 }
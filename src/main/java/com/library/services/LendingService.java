@@ -1,6 +1,7 @@
 package com.library.services;
 
 import com.library.models.BorrowRecord;
+import com.library.models.BorrowingHistory;
 import java.util.List;
 
 /**
@@ -10,7 +11,19 @@ import java.util.List;
 public interface LendingService {
     BorrowRecord borrowBook(String patronId, String isbn);
     boolean returnBook(String patronId, String isbn);
+
+    /**
+     * Extends the patron's open loan of the book to a full loan period from today.
+     * Overdue loans cannot be renewed.
+     */
+    BorrowRecord renewBook(String patronId, String isbn);
     List<BorrowRecord> getBorrowingHistory(String patronId);
+
+    /**
+     * One page of the patron's history, newest first; serves as a {@link BorrowingHistory.Source}.
+     */
+    List<BorrowRecord> getBorrowingHistory(String patronId, BorrowingHistory.Cursor after, int limit);
+    List<BorrowRecord> getAllBorrowRecords();
     List<BorrowRecord> getOverdueBooks();
     List<BorrowRecord> getCurrentBorrowedBooks(String patronId);
     double calculateFine(BorrowRecord record);
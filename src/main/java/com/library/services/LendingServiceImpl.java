@@ -1,28 +1,57 @@
 package com.library.services;
 
+import com.library.events.BookBorrowed;
+import com.library.events.BookReturned;
+import com.library.metrics.LibraryMetrics;
 import com.library.models.*;
 import com.library.patterns.Subject;
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationSink;
+import com.library.persistence.MutationType;
+import com.library.persistence.Replayable;
+import com.library.repository.InMemoryLoanRepository;
+import com.library.repository.LoanRepository;
 import com.library.utils.IdGenerator;
 import com.library.utils.Logger;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * Implementation of LendingService.
  * Extends Subject to implement Observer pattern for notifications.
  */
-public class LendingServiceImpl extends Subject implements LendingService {
+public class LendingServiceImpl extends Subject implements LendingService, Replayable {
     private final BookService bookService;
     private final PatronService patronService;
-    private final Map<String, BorrowRecord> borrowRecords;
+    private final LoanRepository loanRepository;
+    private MutationSink mutationSink = MutationSink.NONE;
+    private LibraryMetrics metrics = new LibraryMetrics();
     private static final double FINE_PER_DAY = 1.0; // $1 per day
     private static final int STANDARD_LOAN_PERIOD = 14; // 14 days
 
     public LendingServiceImpl(BookService bookService, PatronService patronService) {
+        this(bookService, patronService, new InMemoryLoanRepository());
+    }
+
+    public LendingServiceImpl(BookService bookService, PatronService patronService, LoanRepository loanRepository) {
         this.bookService = bookService;
         this.patronService = patronService;
-        this.borrowRecords = new ConcurrentHashMap<>();
+        this.loanRepository = loanRepository;
+    }
+
+    /**
+     * Sets where mutations are recorded, e.g. a {@link com.library.persistence.Journal}.
+     */
+    public void setMutationSink(MutationSink mutationSink) {
+        this.mutationSink = mutationSink == null ? MutationSink.NONE : mutationSink;
+    }
+
+    /**
+     * Sets the counters this service keeps up to date.
+     */
+    public void setMetrics(LibraryMetrics metrics) {
+        this.metrics = metrics;
     }
 
     @Override
@@ -44,14 +73,14 @@ public class LendingServiceImpl extends Subject implements LendingService {
         }
 
         Patron patron = patronOpt.get();
-        Book book = bookOpt.get();
 
-        // Validate borrowing conditions
-        if (!patron.canBorrowBook()) {
+        // Validate borrowing conditions; the loan count comes from the repository's patron index
+        if (patron.getStatus() != PatronStatus.ACTIVE
+                || loanRepository.countActiveByPatron(patronId) >= patron.getMaxBooksAllowed()) {
             throw new IllegalStateException("Patron cannot borrow more books");
         }
 
-        if (!book.isAvailable()) {
+        if (!bookOpt.get().isAvailableTo(patronId)) {
             throw new IllegalStateException("Book is not available for borrowing");
         }
 
@@ -61,14 +90,43 @@ public class LendingServiceImpl extends Subject implements LendingService {
         String recordId = IdGenerator.generateRecordId();
 
         BorrowRecord record = new BorrowRecord(recordId, patronId, isbn, borrowDate, dueDate);
-        borrowRecords.put(recordId, record);
+        if (!loanRepository.insert(record)) {
+            throw new IllegalStateException("Duplicate borrow record ID: " + recordId);
+        }
 
         // Update book and patron
-        book.borrowBook(patronId, borrowDate, dueDate);
-        patron.addBorrowRecord(record);
+        Book[] previous = new Book[1];
+        Book book;
+        try {
+            book = changeBook(isbn, changed -> {
+                // Checked again on the fresh copy a lost race re-reads
+                if (!changed.isAvailableTo(patronId)) {
+                    throw new IllegalStateException("Book is not available for borrowing");
+                }
+                previous[0] = new Book(changed);
+                changed.borrowBook(patronId, borrowDate, dueDate);
+                return true;
+            }).orElseThrow(() -> new IllegalArgumentException("Book not found: " + isbn));
+        } catch (RuntimeException e) {
+            loanRepository.deleteById(recordId);
+            throw e;
+        }
+        metrics.bookStatusChanged(previous[0].getStatus(), book.getStatus());
+        metrics.loanOpened(recordId, patron.getPatronType(), dueDate);
+        Runnable undo = () -> {
+            loanRepository.deleteById(recordId);
+            metrics.loanClosed(recordId);
+            restoreBook(previous[0], book);
+        };
+        mutationSink.append(Mutation.of(MutationType.BOOK_BORROWED, recordId, patronId, isbn, borrowDate, dueDate),
+                undo);
 
-        Logger.logInfo("Book borrowed: " + book.getTitle() + " by " + patron.getName());
-        notifyObservers("Book '" + book.getTitle() + "' has been borrowed by " + patron.getName());
+        Logger.logEvent("book.borrowed", "recordId", recordId, "patronId", patronId, "isbn", isbn,
+                "title", book.getTitle(), "dueDate", dueDate);
+        if (hasObservers(BookBorrowed.class)) {
+            notifyObservers(new BookBorrowed(recordId, patronId, isbn, book.getTitle(), book.getAuthor(),
+                    patron.getName(), dueDate));
+        }
 
         return record;
     }
@@ -80,14 +138,10 @@ public class LendingServiceImpl extends Subject implements LendingService {
         }
 
         // Find the active borrow record
-        Optional<BorrowRecord> recordOpt = borrowRecords.values().stream()
-                .filter(record -> record.getPatronId().equals(patronId) && 
-                                 record.getIsbn().equals(isbn) && 
-                                 record.getReturnDate() == null)
-                .findFirst();
+        Optional<BorrowRecord> recordOpt = loanRepository.findActive(patronId, isbn);
 
         if (recordOpt.isEmpty()) {
-            Logger.logWarning("No active borrow record found for patron: " + patronId + " and book: " + isbn);
+            Logger.logWarning(() -> "No active borrow record found for patron: " + patronId + " and book: " + isbn);
             return false;
         }
 
@@ -99,47 +153,155 @@ public class LendingServiceImpl extends Subject implements LendingService {
             return false;
         }
 
-        Book book = bookOpt.get();
         Patron patron = patronOpt.get();
 
         // Process return
         LocalDate returnDate = LocalDate.now();
+        double previousFine = record.getFineAmount();
         record.setReturnDate(returnDate);
 
         // Calculate fine if overdue
         if (record.isOverdue()) {
             double fine = calculateFine(record);
             record.setFineAmount(fine);
-            Logger.logWarning("Book returned late. Fine: $" + fine);
+            Logger.logWarning(() -> "Book returned late. Fine: $" + fine);
         }
 
-        book.returnBook();
-        Logger.logInfo("Book returned: " + book.getTitle() + " by " + patron.getName());
-        notifyObservers("Book '" + book.getTitle() + "' has been returned by " + patron.getName());
+        loanRepository.save(record);
+        Book[] previous = new Book[1];
+        Optional<Book> returned = changeBook(isbn, changed -> {
+            previous[0] = new Book(changed);
+            changed.returnBook();
+            return true;
+        });
+        returned.ifPresent(changed -> metrics.bookStatusChanged(previous[0].getStatus(), changed.getStatus()));
+        // Removed meanwhile: the loan still closes, described by the book as it was
+        Book book = returned.orElse(bookOpt.get());
+        metrics.loanClosed(record.getRecordId());
+        Runnable undo = () -> {
+            record.setReturnDate(null);
+            record.setFineAmount(previousFine);
+            loanRepository.save(record);
+            metrics.loanOpened(record.getRecordId(), patron.getPatronType(), record.getDueDate());
+            returned.ifPresent(changed -> restoreBook(previous[0], changed));
+        };
+        mutationSink.append(Mutation.of(MutationType.BOOK_RETURNED, record.getRecordId(), returnDate,
+                record.getFineAmount()), undo);
+        Logger.logEvent("book.returned", "recordId", record.getRecordId(), "patronId", patronId, "isbn", isbn,
+                "title", book.getTitle(), "fine", record.getFineAmount());
+        if (hasObservers(BookReturned.class)) {
+            notifyObservers(new BookReturned(record.getRecordId(), patronId, isbn, book.getTitle(),
+                    patron.getName(), record.getFineAmount()));
+        }
 
         return true;
     }
 
+    @Override
+    public BorrowRecord renewBook(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        BorrowRecord record = loanRepository.findActive(patronId, isbn)
+                .orElseThrow(() -> new IllegalArgumentException("No open loan of " + isbn + " for patron " + patronId));
+        Patron patron = patronService.findPatronById(patronId)
+                .orElseThrow(() -> new IllegalArgumentException("Patron not found: " + patronId));
+        if (patron.getStatus() != PatronStatus.ACTIVE) {
+            throw new IllegalStateException("Patron cannot renew loans");
+        }
+        if (record.isOverdue()) {
+            throw new IllegalStateException("Overdue loans cannot be renewed");
+        }
+
+        LocalDate dueDate = LocalDate.now().plusDays(STANDARD_LOAN_PERIOD);
+        if (!dueDate.isAfter(record.getDueDate())) {
+            // Already due as late as a renewal would make it
+            return record;
+        }
+        LocalDate previousDueDate = record.getDueDate();
+        Optional<Book> previous = bookService.findBookByIsbn(isbn).map(Book::new);
+        renew(record, dueDate, patron.getPatronType());
+        Runnable undo = () -> {
+            record.setDueDate(previousDueDate);
+            loanRepository.save(record);
+            metrics.loanClosed(record.getRecordId());
+            metrics.loanOpened(record.getRecordId(), patron.getPatronType(), previousDueDate);
+            previous.ifPresent(bookService::saveBook);
+        };
+        mutationSink.append(Mutation.of(MutationType.BOOK_RENEWED, record.getRecordId(), dueDate), undo);
+        Logger.logEvent("book.renewed", "recordId", record.getRecordId(), "patronId", patronId, "isbn", isbn,
+                "dueDate", dueDate);
+        return record;
+    }
+
+    private void renew(BorrowRecord record, LocalDate dueDate, PatronType patronType) {
+        record.setDueDate(dueDate);
+        loanRepository.save(record);
+        changeBook(record.getIsbn(), book -> {
+            if (!record.getPatronId().equals(book.getBorrowerId())) {
+                return false;
+            }
+            book.setDueDate(dueDate);
+            return true;
+        });
+        metrics.loanClosed(record.getRecordId());
+        metrics.loanOpened(record.getRecordId(), patronType, dueDate);
+    }
+
+    /**
+     * Puts {@code previous} back in place of {@code changed}, when a transaction is undone.
+     */
+    private void restoreBook(Book previous, Book changed) {
+        bookService.saveBook(previous);
+        metrics.bookStatusChanged(changed.getStatus(), previous.getStatus());
+    }
+
+    /**
+     * Applies {@code change} to a copy of the stored book and swaps the copy in if
+     * the book has not been written since it was read; otherwise re-reads and
+     * tries again, so a concurrent edit or hold is never overwritten. The change
+     * returns false to leave the book as it is. Returns the book as stored, or
+     * empty if there is none.
+     */
+    private Optional<Book> changeBook(String isbn, Predicate<Book> change) {
+        while (true) {
+            Book current = bookService.findBookByIsbn(isbn).orElse(null);
+            if (current == null) {
+                return Optional.empty();
+            }
+            Book replacement = new Book(current);
+            if (!change.test(replacement)) {
+                return Optional.of(current);
+            }
+            if (bookService.replaceBook(replacement, current.getVersion())) {
+                return Optional.of(replacement);
+            }
+        }
+    }
+
     @Override
     public List<BorrowRecord> getBorrowingHistory(String patronId) {
-        return borrowRecords.values().stream()
-                .filter(record -> record.getPatronId().equals(patronId))
-                .toList();
+        return loanRepository.findByPatron(patronId);
+    }
+
+    @Override
+    public List<BorrowRecord> getBorrowingHistory(String patronId, BorrowingHistory.Cursor after, int limit) {
+        return loanRepository.findByPatron(patronId, after, limit);
+    }
+
+    @Override
+    public List<BorrowRecord> getAllBorrowRecords() {
+        return loanRepository.findAll();
     }
 
     @Override
     public List<BorrowRecord> getOverdueBooks() {
-        return borrowRecords.values().stream()
-                .filter(BorrowRecord::isOverdue)
-                .toList();
+        return loanRepository.findOverdue(LocalDate.now());
     }
 
     @Override
     public List<BorrowRecord> getCurrentBorrowedBooks(String patronId) {
-        return borrowRecords.values().stream()
-                .filter(record -> record.getPatronId().equals(patronId) && 
-                                 record.getReturnDate() == null)
-                .toList();
+        return loanRepository.findActiveByPatron(patronId);
     }
 
     @Override
@@ -151,4 +313,88 @@ public class LendingServiceImpl extends Subject implements LendingService {
         long daysOverdue = record.getDaysOverdue();
         return daysOverdue * FINE_PER_DAY;
     }
+
+    /**
+     * Loads a borrow record from a snapshot.
+     */
+    public void restore(BorrowRecord record) {
+        loanRepository.save(record);
+        Optional<Patron> patron = patronService.findPatronById(record.getPatronId());
+        if (record.isReturned()) {
+            metrics.loanClosed(record.getRecordId());
+        } else {
+            metrics.loanOpened(record.getRecordId(), patron.map(Patron::getPatronType).orElse(null),
+                    record.getDueDate());
+        }
+    }
+
+    /**
+     * Drops every borrow record, e.g. before a standby loads a snapshot in place of what it holds.
+     */
+    public void clear() {
+        for (BorrowRecord record : loanRepository.findAll()) {
+            loanRepository.deleteById(record.getRecordId());
+            if (!record.isReturned()) {
+                metrics.loanClosed(record.getRecordId());
+            }
+        }
+    }
+
+    @Override
+    public void apply(Mutation mutation) {
+        switch (mutation.type()) {
+            case BOOK_BORROWED -> {
+                String recordId = mutation.field(0);
+                String patronId = mutation.field(1);
+                String isbn = mutation.field(2);
+                BorrowRecord record = loanRepository.findById(recordId).orElse(null);
+                if (record == null) {
+                    record = new BorrowRecord(recordId, patronId, isbn, mutation.dateField(3), mutation.dateField(4));
+                    loanRepository.insert(record);
+                } else {
+                    record.setReturnDate(null);
+                    record.setFineAmount(0.0);
+                    loanRepository.save(record);
+                }
+                BorrowRecord loan = record;
+                metrics.loanOpened(recordId, patronService.findPatronById(patronId).map(Patron::getPatronType)
+                        .orElse(null), loan.getDueDate());
+                BookStatus[] previousStatus = new BookStatus[1];
+                changeBook(isbn, book -> {
+                    previousStatus[0] = book.getStatus();
+                    book.setStatus(BookStatus.BORROWED);
+                    book.setBorrowerId(loan.getPatronId());
+                    book.setBorrowDate(loan.getBorrowDate());
+                    book.setDueDate(loan.getDueDate());
+                    return true;
+                }).ifPresent(book -> metrics.bookStatusChanged(previousStatus[0], BookStatus.BORROWED));
+            }
+            case BOOK_RETURNED -> {
+                loanRepository.findById(mutation.field(0)).ifPresent(record -> {
+                    record.setReturnDate(mutation.dateField(1));
+                    record.setFineAmount(mutation.doubleField(2));
+                    loanRepository.save(record);
+                    metrics.loanClosed(record.getRecordId());
+                    BookStatus[] previousStatus = new BookStatus[1];
+                    changeBook(record.getIsbn(), book -> {
+                        previousStatus[0] = null;
+                        if (!record.getPatronId().equals(book.getBorrowerId())) {
+                            return false;
+                        }
+                        previousStatus[0] = book.getStatus();
+                        book.returnBook();
+                        return true;
+                    }).filter(book -> previousStatus[0] != null)
+                            .ifPresent(book -> metrics.bookStatusChanged(previousStatus[0], BookStatus.AVAILABLE));
+                });
+            }
+            case BOOK_RENEWED -> loanRepository.findById(mutation.field(0))
+                    .filter(record -> !record.isReturned())
+                    .ifPresent(record -> renew(record, mutation.dateField(1), patronService
+                            .findPatronById(record.getPatronId()).map(Patron::getPatronType).orElse(null)));
+            default -> {
+                // Not a lending mutation
+            }
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package com.library.services;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a CSV patron roster one row at a time. Fields may be wrapped in double
+ * quotes, with {@code ""} standing for a quote, so addresses can contain commas.
+ * A first line starting with {@code patronId} is taken as a header and skipped;
+ * blank lines are ignored.
+ */
+final class PatronRosterReader implements Closeable {
+    private final BufferedReader reader;
+    private int lineNumber;
+
+    PatronRosterReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the fields of the next row, or null at the end of the roster.
+     */
+    List<String> next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.startsWith("patronId"))) {
+                continue;
+            }
+            return split(line);
+        }
+        return null;
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
@@ -1,6 +1,10 @@
 package com.library.services;
 
 import com.library.models.Patron;
+import com.library.models.PatronStatus;
+import com.library.models.PatronType;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +16,56 @@ public interface PatronService {
     void addPatron(Patron patron);
     void removePatron(String patronId);
     Optional<Patron> updatePatron(String patronId, Patron updatedPatron);
+
+    /**
+     * Updates the patron only if it is still at {@code expectedVersion}, as read from
+     * {@link Patron#getVersion()}; otherwise throws {@link VersionConflictException}.
+     */
+    Optional<Patron> updatePatron(String patronId, Patron updatedPatron, long expectedVersion);
     Optional<Patron> findPatronById(String patronId);
     List<Patron> getAllPatrons();
     List<Patron> searchPatronsByName(String name);
+
+    /**
+     * Returns at most {@code limit} patrons whose name contains {@code name}, ignoring case,
+     * best match first.
+     */
+    List<Patron> searchPatronsByName(String name, int limit);
+    List<Patron> findPatronsByEmail(String email);
+    List<Patron> findPatronsByPhone(String phoneNumber);
+
+    /**
+     * Upserts every patron listed in a CSV roster of
+     * {@code patronId,name,email,phoneNumber,address} rows as {@code patronType},
+     * renews listed patrons whose membership has lapsed, reactivating those that
+     * had expired, and expires patrons of that type missing from the roster. A
+     * rejected row still counts as listing its patron ID. The file is streamed and
+     * changes are written in batches, so the roster may be the full membership.
+     */
+    PatronSyncSummary syncPatrons(Path rosterFile, PatronType patronType);
+
+    /**
+     * Sets a patron's status by hand. {@code until} is the day a suspension or
+     * block lifts on its own (null keeps it until it is changed again) and is
+     * only accepted for those two statuses. A patron whose membership has lapsed
+     * must be renewed rather than set active.
+     */
+    void setPatronStatus(String patronId, PatronStatus status, LocalDate until);
+
+    /**
+     * Extends a membership by one term of the patron's type, counted from the
+     * current expiry or from today if it has already lapsed, and reactivates the
+     * patron if it had expired. Returns the new expiry date.
+     */
+    LocalDate renewMembership(String patronId);
+
+    /**
+     * Applies every status change due on or before {@code today}: memberships
+     * expire, and suspensions and blocks lift. Only the patrons that are due are
+     * visited. Returns how many patrons changed.
+     */
+    int processStatusChanges(LocalDate today);
+
+    int countPatronsByStatus(PatronStatus status);
+    List<Patron> getPatronsByStatus(PatronStatus status);
 }
@@ -1,19 +1,84 @@
 package com.library.services;
 
+import com.library.models.BorrowingHistory;
 import com.library.models.Patron;
+import com.library.models.PatronType;
+import com.library.models.PatronStatus;
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationSink;
+import com.library.persistence.MutationType;
+import com.library.persistence.Replayable;
+import com.library.repository.InMemoryPatronRepository;
+import com.library.repository.PatronRepository;
+import com.library.search.PatronSearchIndex;
 import com.library.utils.Logger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Implementation of PatronService.
- * Manages patron data and operations.
+ * Manages patron data and operations. Alongside the repository it keeps the IDs
+ * of the patrons in each status and a schedule of upcoming status changes, so
+ * status counts and due transitions never need a scan of every patron.
+ *
+ * <p>A stored patron is never changed in place: every change is made on a copy
+ * that replaces it, so readers see each patron either before or after a change.
+ * Single-patron changes are swapped in only if the patron's version is still the
+ * one copied; the versioned {@link #updatePatron(String, Patron, long)} reports a
+ * lost race as a {@link VersionConflictException}, the other changes retry it.
  */
-public class PatronServiceImpl implements PatronService {
-    private final Map<String, Patron> patrons;
+public class PatronServiceImpl implements PatronService, Replayable {
+    private static final int WRITE_BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_REJECTIONS = 20;
+    private static final long ANY_VERSION = -1;
+    private static final int INDEX_LOCK_STRIPES = 64;
+
+    private final PatronRepository patronRepository;
+    private final PatronSearchIndex searchIndex = new PatronSearchIndex();
+    private final Map<PatronStatus, Set<String>> patronIdsByStatus = new EnumMap<>(PatronStatus.class);
+    private final PatronStatusScheduler statusScheduler = new PatronStatusScheduler();
+    private final Object[] indexLocks = new Object[INDEX_LOCK_STRIPES];
+    private MutationSink mutationSink = MutationSink.NONE;
+    private BorrowingHistory.Source borrowingHistorySource;
 
     public PatronServiceImpl() {
-        this.patrons = new ConcurrentHashMap<>();
+        this(new InMemoryPatronRepository());
+    }
+
+    public PatronServiceImpl(PatronRepository patronRepository) {
+        this.patronRepository = patronRepository;
+        for (PatronStatus status : PatronStatus.values()) {
+            patronIdsByStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+        Arrays.setAll(indexLocks, i -> new Object());
+        for (Patron patron : patronRepository.findAll()) {
+            attach(patron);
+            reindex(patron, true);
+        }
+    }
+
+    /**
+     * Sets where mutations are recorded, e.g. a {@link com.library.persistence.Journal}.
+     */
+    public void setMutationSink(MutationSink mutationSink) {
+        this.mutationSink = mutationSink == null ? MutationSink.NONE : mutationSink;
+    }
+
+    /**
+     * Sets where the patrons handed out by this service read their borrowing
+     * history from, typically the lending service, which keeps the only copy.
+     */
+    public void setBorrowingHistorySource(BorrowingHistory.Source borrowingHistorySource) {
+        this.borrowingHistorySource = borrowingHistorySource;
+        patronRepository.findAll().forEach(this::attach);
     }
 
     @Override
@@ -22,12 +87,17 @@ public class PatronServiceImpl implements PatronService {
             throw new IllegalArgumentException("Patron and patron ID cannot be null or empty");
         }
         
-        if (patrons.containsKey(patron.getPatronId())) {
+        if (!patronRepository.insert(patron)) {
             throw new IllegalArgumentException("Patron with ID " + patron.getPatronId() + " already exists");
         }
+        index(patron);
         
-        patrons.put(patron.getPatronId(), patron);
-        Logger.logInfo("Patron added: " + patron.getName() + " (ID: " + patron.getPatronId() + ")");
+        Runnable undo = () -> {
+            patronRepository.deleteById(patron.getPatronId());
+            unindex(patron.getPatronId());
+        };
+        mutationSink.append(addedMutation(patron), undo);
+        Logger.logInfo(() -> "Patron added: " + patron.getName() + " (ID: " + patron.getPatronId() + ")");
     }
 
     @Override
@@ -36,11 +106,14 @@ public class PatronServiceImpl implements PatronService {
             throw new IllegalArgumentException("Patron ID cannot be null or empty");
         }
         
-        Patron removedPatron = patrons.remove(patronId);
-        if (removedPatron != null) {
-            Logger.logInfo("Patron removed: " + removedPatron.getName() + " (ID: " + patronId + ")");
+        Optional<Patron> removed = patronRepository.deleteById(patronId);
+        if (removed.isPresent()) {
+            Patron removedPatron = removed.get();
+            unindex(patronId);
+            mutationSink.append(Mutation.of(MutationType.PATRON_REMOVED, patronId), () -> restore(removedPatron));
+            Logger.logInfo(() -> "Patron removed: " + removedPatron.getName() + " (ID: " + patronId + ")");
         } else {
-            Logger.logWarning("Attempted to remove non-existent patron with ID: " + patronId);
+            Logger.logWarning(() -> "Attempted to remove non-existent patron with ID: " + patronId);
         }
     }
 
@@ -50,39 +123,575 @@ public class PatronServiceImpl implements PatronService {
             throw new IllegalArgumentException("Patron ID and updated patron cannot be null");
         }
         
-        Patron existingPatron = patrons.get(patronId);
-        if (existingPatron != null) {
-            existingPatron.setName(updatedPatron.getName());
-            existingPatron.setEmail(updatedPatron.getEmail());
-            existingPatron.setPhoneNumber(updatedPatron.getPhoneNumber());
-            existingPatron.setAddress(updatedPatron.getAddress());
-            existingPatron.setPatronType(updatedPatron.getPatronType());
-            Logger.logInfo("Patron updated: " + existingPatron.getName() + " (ID: " + patronId + ")");
-            return Optional.of(existingPatron);
+        return update(patronId, updatedPatron, ANY_VERSION);
+    }
+
+    @Override
+    public Optional<Patron> updatePatron(String patronId, Patron updatedPatron, long expectedVersion) {
+        if (patronId == null || updatedPatron == null) {
+            throw new IllegalArgumentException("Patron ID and updated patron cannot be null");
         }
-        
-        Logger.logWarning("Attempted to update non-existent patron with ID: " + patronId);
-        return Optional.empty();
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Expected version cannot be negative");
+        }
+        return update(patronId, updatedPatron, expectedVersion);
+    }
+
+    private Optional<Patron> update(String patronId, Patron updatedPatron, long expectedVersion) {
+        Patron[] previous = new Patron[1];
+        Optional<Patron> updated = modify(patronId, expectedVersion, patron -> {
+            previous[0] = new Patron(patron);
+            patron.setName(updatedPatron.getName());
+            patron.setEmail(updatedPatron.getEmail());
+            patron.setPhoneNumber(updatedPatron.getPhoneNumber());
+            patron.setAddress(updatedPatron.getAddress());
+            patron.setPatronType(updatedPatron.getPatronType());
+        });
+        if (updated.isEmpty()) {
+            Logger.logWarning(() -> "Attempted to update non-existent patron with ID: " + patronId);
+            return Optional.empty();
+        }
+        Patron patron = updated.get();
+        index(patron);
+        mutationSink.append(Mutation.of(MutationType.PATRON_UPDATED, patronId, patron.getName(),
+                patron.getEmail(), patron.getPhoneNumber(), patron.getAddress(), patron.getPatronType()),
+                () -> restore(previous[0]));
+        Logger.logInfo(() -> "Patron updated: " + patron.getName() + " (ID: " + patronId + ")");
+        return updated;
     }
 
     @Override
     public Optional<Patron> findPatronById(String patronId) {
-        return Optional.ofNullable(patrons.get(patronId));
+        return patronRepository.findById(patronId).map(this::attach);
     }
 
     @Override
     public List<Patron> getAllPatrons() {
-        return new ArrayList<>(patrons.values());
+        List<Patron> patrons = patronRepository.findAll();
+        patrons.forEach(this::attach);
+        return patrons;
     }
 
     @Override
     public List<Patron> searchPatronsByName(String name) {
-        if (name == null || name.trim().isEmpty()) {
-            return new ArrayList<>();
+        return searchPatronsByName(name, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Patron> searchPatronsByName(String name, int limit) {
+        return resolve(searchIndex.searchByName(name, limit));
+    }
+
+    @Override
+    public List<Patron> findPatronsByEmail(String email) {
+        return resolve(searchIndex.findByEmail(email));
+    }
+
+    @Override
+    public List<Patron> findPatronsByPhone(String phoneNumber) {
+        return resolve(searchIndex.findByPhone(phoneNumber));
+    }
+
+    @Override
+    public PatronSyncSummary syncPatrons(Path rosterFile, PatronType patronType) {
+        if (rosterFile == null || patronType == null) {
+            throw new IllegalArgumentException("Roster file and patron type cannot be null");
         }
-        
-        return patrons.values().stream()
-                .filter(patron -> patron.getName().toLowerCase().contains(name.toLowerCase()))
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        Map<String, Patron> existing = new HashMap<>();
+        for (Patron patron : patronRepository.findAll()) {
+            existing.put(patron.getPatronId(), patron);
+        }
+        Set<String> listed = new HashSet<>();
+        List<PendingWrite> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        List<String> rejections = new ArrayList<>();
+        int[] written = new int[MutationType.values().length];
+        BiConsumer<Patron, List<Mutation>> tally = (patron, mutations) -> {
+            for (Mutation mutation : mutations) {
+                written[mutation.type().ordinal()]++;
+            }
+        };
+        int unchanged = 0;
+        int rejected = 0;
+
+        try (PatronRosterReader roster = new PatronRosterReader(Files.newBufferedReader(rosterFile))) {
+            List<String> row;
+            while ((row = roster.next()) != null) {
+                String problem = validateRosterRow(row, listed);
+                if (!row.isEmpty() && !row.get(0).isEmpty()) {
+                    // A rejected row still lists its patron, so the patron is not taken for a leaver
+                    listed.add(row.get(0));
+                }
+                if (problem != null) {
+                    rejected++;
+                    if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                        rejections.add("line " + roster.getLineNumber() + ": " + problem);
+                    }
+                    continue;
+                }
+                List<String> fields = row;
+                PendingWrite write = new PendingWrite(row.get(0),
+                        (patron, mutations) -> applyRosterRow(patron, fields, patronType, today, mutations));
+                if (write.prepare(existing.get(write.patronId))) {
+                    batch.add(write);
+                } else {
+                    unchanged++;
+                }
+                if (batch.size() >= WRITE_BATCH_SIZE) {
+                    writeBatch(batch, this::index, tally);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read patron roster " + rosterFile, e);
+        } finally {
+            // Rows already read are kept even if the rest of the roster could not be
+            writeBatch(batch, this::index, tally);
+        }
+        int added = written[MutationType.PATRON_ADDED.ordinal()];
+        int updated = written[MutationType.PATRON_UPDATED.ordinal()];
+        int reactivated = written[MutationType.PATRON_STATUS_CHANGED.ordinal()];
+
+        // Only a complete roster says who has left
+        PatronChange leave = (patron, mutations) -> {
+            if (patron == null || patron.getPatronType() != patronType || listed.contains(patron.getPatronId())
+                    || patron.getStatus() == PatronStatus.EXPIRED || patron.getStatus() == PatronStatus.BLOCKED) {
+                return null;
+            }
+            patron.setStatus(PatronStatus.EXPIRED);
+            patron.setStatusUntil(null);
+            mutations.add(statusMutation(patron));
+            return patron;
+        };
+        int[] leavers = new int[1];
+        BiConsumer<Patron, List<Mutation>> countLeaver = (patron, mutations) -> leavers[0]++;
+        for (Patron patron : existing.values()) {
+            PendingWrite write = new PendingWrite(patron.getPatronId(), leave);
+            if (write.prepare(patron)) {
+                batch.add(write);
+                if (batch.size() >= WRITE_BATCH_SIZE) {
+                    writeBatch(batch, this::index, countLeaver);
+                }
+            }
+        }
+        writeBatch(batch, this::index, countLeaver);
+        int expired = leavers[0];
+
+        PatronSyncSummary summary = new PatronSyncSummary(added, updated, reactivated, expired, unchanged,
+                rejected, List.copyOf(rejections), Duration.ofNanos(System.nanoTime() - started));
+        Logger.logEvent("patron.sync", "roster", rosterFile, "patronType", patronType, "added", added,
+                "updated", updated, "reactivated", reactivated, "expired", expired, "unchanged", unchanged,
+                "rejected", rejected, "elapsedMillis", summary.elapsed().toMillis());
+        return summary;
+    }
+
+    @Override
+    public void setPatronStatus(String patronId, PatronStatus status, LocalDate until) {
+        if (patronId == null || status == null) {
+            throw new IllegalArgumentException("Patron ID and status cannot be null");
+        }
+        if (until != null && status != PatronStatus.SUSPENDED && status != PatronStatus.BLOCKED) {
+            throw new IllegalArgumentException("Only a suspension or block can have an end date");
+        }
+        Patron[] previous = new Patron[1];
+        Patron patron = modify(patronId, ANY_VERSION, changed -> {
+            if (status == PatronStatus.ACTIVE && hasLapsed(changed, LocalDate.now())) {
+                throw new IllegalStateException("Membership of patron " + patronId + " expired on "
+                        + changed.getMembershipExpiryDate() + "; renew it instead");
+            }
+            previous[0] = new Patron(changed);
+            changed.setStatus(status);
+            changed.setStatusUntil(until);
+        }).orElseThrow(() -> new IllegalArgumentException("Patron not found: " + patronId));
+        track(patron);
+        mutationSink.append(statusMutation(patron), () -> restore(previous[0]));
+        Logger.logEvent("patron.status", "patronId", patronId, "from", previous[0].getStatus(), "to", status,
+                "until", until);
+    }
+
+    @Override
+    public LocalDate renewMembership(String patronId) {
+        if (patronId == null) {
+            throw new IllegalArgumentException("Patron ID cannot be null");
+        }
+        Patron[] previous = new Patron[1];
+        Patron patron = modify(patronId, ANY_VERSION, changed -> {
+            previous[0] = new Patron(changed);
+            renew(changed, LocalDate.now());
+        }).orElseThrow(() -> new IllegalArgumentException("Patron not found: " + patronId));
+        track(patron);
+        mutationSink.append(statusMutation(patron), () -> restore(previous[0]));
+        Logger.logEvent("patron.renewed", "patronId", patronId, "until", patron.getMembershipExpiryDate());
+        return patron.getMembershipExpiryDate();
+    }
+
+    @Override
+    public int processStatusChanges(LocalDate today) {
+        if (today == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        long started = System.nanoTime();
+        List<PendingWrite> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        PatronChange change = (patron, mutations) -> {
+            LocalDate changeDate = patron == null ? null : patron.getNextStatusChangeDate();
+            if (changeDate == null || changeDate.isAfter(today)) {
+                return null;
+            }
+            if (patron.getStatus() == PatronStatus.ACTIVE || hasLapsed(patron, today)) {
+                patron.setStatus(PatronStatus.EXPIRED);
+            } else {
+                patron.setStatus(PatronStatus.ACTIVE);
+            }
+            patron.setStatusUntil(null);
+            mutations.add(statusMutation(patron));
+            return patron;
+        };
+        int[] counts = new int[2];
+        BiConsumer<Patron, List<Mutation>> tally = (patron, mutations) ->
+                counts[patron.getStatus() == PatronStatus.EXPIRED ? 0 : 1]++;
+        List<String> due;
+        while (!(due = statusScheduler.pollDue(today, WRITE_BATCH_SIZE)).isEmpty()) {
+            for (String patronId : due) {
+                Patron stored = patronRepository.findById(patronId).orElse(null);
+                if (stored == null) {
+                    continue;
+                }
+                PendingWrite write = new PendingWrite(patronId, change);
+                if (write.prepare(stored)) {
+                    batch.add(write);
+                } else {
+                    // Changed by hand since it was scheduled
+                    track(stored);
+                }
+            }
+            // Status changes leave names and contact details alone, so the search index can be skipped
+            writeBatch(batch, this::track, tally);
+        }
+        int expired = counts[0];
+        int reinstated = counts[1];
+        if (expired + reinstated > 0) {
+            Logger.logEvent("patron.status.due", "date", today, "expired", expired, "reinstated", reinstated,
+                    "elapsedMillis", Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }
+        return expired + reinstated;
+    }
+
+    @Override
+    public int countPatronsByStatus(PatronStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        return patronIdsByStatus.get(status).size();
+    }
+
+    @Override
+    public List<Patron> getPatronsByStatus(PatronStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        return resolve(List.copyOf(patronIdsByStatus.get(status)));
+    }
+
+    /**
+     * Extends the membership by a term from its expiry, or from today if it has lapsed.
+     */
+    private static void renew(Patron patron, LocalDate today) {
+        LocalDate expiry = patron.getMembershipExpiryDate();
+        LocalDate from = expiry == null || expiry.isBefore(today) ? today : expiry;
+        patron.setMembershipExpiryDate(from.plus(patron.getPatronType().getMembershipTerm()));
+        if (patron.getStatus() == PatronStatus.EXPIRED) {
+            patron.setStatus(PatronStatus.ACTIVE);
+        }
+    }
+
+    private static boolean hasLapsed(Patron patron, LocalDate today) {
+        LocalDate expiry = patron.getMembershipExpiryDate();
+        return expiry != null && !expiry.isAfter(today);
+    }
+
+    private static Mutation addedMutation(Patron patron) {
+        return Mutation.of(MutationType.PATRON_ADDED, patron.getPatronId(), patron.getName(), patron.getEmail(),
+                patron.getPhoneNumber(), patron.getAddress(), patron.getPatronType(), patron.getMembershipDate(),
+                patron.getStatus(), patron.getMembershipExpiryDate(), patron.getStatusUntil());
+    }
+
+    private static Mutation statusMutation(Patron patron) {
+        return Mutation.of(MutationType.PATRON_STATUS_CHANGED, patron.getPatronId(), patron.getStatus(),
+                patron.getStatusUntil(), patron.getMembershipExpiryDate());
+    }
+
+    /**
+     * Applies {@code change} to a copy of the patron and swaps the copy in if the
+     * stored patron is still the version copied. With {@link #ANY_VERSION} a lost
+     * race is retried from a fresh read; otherwise the stored patron must be at
+     * {@code expectedVersion}. Returns the patron as stored, or empty if there is none.
+     */
+    private Optional<Patron> modify(String patronId, long expectedVersion, Consumer<Patron> change) {
+        while (true) {
+            Patron current = patronRepository.findById(patronId).orElse(null);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(patronId, expectedVersion, current.getVersion());
+            }
+            Patron replacement = new Patron(current);
+            change.accept(replacement);
+            if (patronRepository.replace(replacement, current.getVersion())) {
+                return Optional.of(attach(replacement));
+            }
+        }
+    }
+
+    private static String validateRosterRow(List<String> row, Set<String> listed) {
+        if (row.size() != 5) {
+            return "expected 5 fields but found " + row.size();
+        }
+        if (row.get(0).isEmpty() || row.get(1).isEmpty()) {
+            return "patron ID and name are required";
+        }
+        if (listed.contains(row.get(0))) {
+            return "duplicate patron ID " + row.get(0);
+        }
+        return null;
+    }
+
+    /**
+     * Brings a copy of a listed patron, or a new one if {@code patron} is null, in
+     * line with its roster row. Returns null if the row changes nothing.
+     */
+    private static Patron applyRosterRow(Patron patron, List<String> row, PatronType patronType, LocalDate today,
+                                         List<Mutation> mutations) {
+        if (patron == null) {
+            Patron added = new Patron(row.get(0), row.get(1), row.get(2), row.get(3), row.get(4), patronType);
+            mutations.add(addedMutation(added));
+            return added;
+        }
+        boolean changed = !Objects.equals(patron.getName(), row.get(1))
+                || !Objects.equals(patron.getEmail(), row.get(2))
+                || !Objects.equals(patron.getPhoneNumber(), row.get(3))
+                || !Objects.equals(patron.getAddress(), row.get(4))
+                || patron.getPatronType() != patronType;
+        if (changed) {
+            patron.setName(row.get(1));
+            patron.setEmail(row.get(2));
+            patron.setPhoneNumber(row.get(3));
+            patron.setAddress(row.get(4));
+            patron.setPatronType(patronType);
+            mutations.add(Mutation.of(MutationType.PATRON_UPDATED, patron.getPatronId(), patron.getName(),
+                    patron.getEmail(), patron.getPhoneNumber(), patron.getAddress(), patronType));
+        }
+        // Being listed renews a membership that has lapsed, whether or not it was expired yet
+        boolean readmitted = patron.getStatus() == PatronStatus.EXPIRED
+                || (patron.getStatus() == PatronStatus.ACTIVE && hasLapsed(patron, today));
+        if (readmitted) {
+            renew(patron, today);
+            mutations.add(statusMutation(patron));
+        }
+        return changed || readmitted ? patron : null;
+    }
+
+    /**
+     * Writes the batch without overwriting a patron changed since it was read: a
+     * write that loses the race is prepared again from a fresh read and retried.
+     * {@code written} sees each patron stored, with the mutations journaled for it.
+     */
+    private void writeBatch(List<PendingWrite> batch, Consumer<Patron> indexer,
+                            BiConsumer<Patron, List<Mutation>> written) {
+        List<PendingWrite> pending = new ArrayList<>(batch);
+        batch.clear();
+        while (!pending.isEmpty()) {
+            Set<Patron> conflicts = Collections.newSetFromMap(new IdentityHashMap<>());
+            conflicts.addAll(patronRepository.replaceAll(pending.stream().map(write -> write.patron).toList()));
+            List<Mutation> mutations = new ArrayList<>(pending.size());
+            List<PendingWrite> retries = new ArrayList<>(conflicts.size());
+            for (PendingWrite write : pending) {
+                if (!conflicts.contains(write.patron)) {
+                    indexer.accept(write.patron);
+                    mutations.addAll(write.mutations);
+                    written.accept(write.patron, write.mutations);
+                } else if (write.prepare(patronRepository.findById(write.patronId).orElse(null))) {
+                    retries.add(write);
+                }
+            }
+            mutationSink.appendAll(mutations);
+            pending = retries;
+        }
+    }
+
+    /**
+     * Turns a copy of the stored patron, or null if there is none, into the patron
+     * to store, adding the mutations that describe the change. Returns null if
+     * nothing needs writing.
+     */
+    @FunctionalInterface
+    private interface PatronChange {
+        Patron apply(Patron patron, List<Mutation> mutations);
+    }
+
+    /**
+     * A batched patron write, prepared from the patron as read and prepared again
+     * if another write gets there first.
+     */
+    private static final class PendingWrite {
+        private final String patronId;
+        private final PatronChange change;
+        private final List<Mutation> mutations = new ArrayList<>(2);
+        private Patron patron;
+
+        private PendingWrite(String patronId, PatronChange change) {
+            this.patronId = patronId;
+            this.change = change;
+        }
+
+        /**
+         * Prepares the write from {@code stored}; returns false if there is nothing to write.
+         */
+        private boolean prepare(Patron stored) {
+            mutations.clear();
+            patron = change.apply(stored == null ? null : new Patron(stored), mutations);
+            return patron != null;
+        }
+    }
+
+    /**
+     * Brings the search index, status sets and status schedule in line with {@code patron}.
+     */
+    private void index(Patron patron) {
+        attach(patron);
+        refresh(patron.getPatronId(), true);
+    }
+
+    /**
+     * Points the patron at the borrowing history source. Repositories that build
+     * a fresh patron on every read need this on each patron handed out.
+     */
+    private Patron attach(Patron patron) {
+        patron.setBorrowingHistorySource(borrowingHistorySource);
+        return patron;
+    }
+
+    /**
+     * Brings the status sets and status schedule in line with {@code patron}.
+     */
+    private void track(Patron patron) {
+        refresh(patron.getPatronId(), false);
+    }
+
+    private void unindex(String patronId) {
+        refresh(patronId, true);
+    }
+
+    /**
+     * Indexes the patron as it is stored now, or drops it if it is gone. Two writers
+     * that replaced a patron one after the other can get here in either order, so
+     * neither indexes the copy it wrote: each reads the stored patron again under
+     * the patron's index lock, and whichever comes second sees the later write.
+     */
+    private void refresh(String patronId, boolean search) {
+        synchronized (indexLocks[(patronId.hashCode() & Integer.MAX_VALUE) % INDEX_LOCK_STRIPES]) {
+            Optional<Patron> stored = patronRepository.findById(patronId);
+            if (stored.isPresent()) {
+                reindex(stored.get(), search);
+            } else {
+                searchIndex.remove(patronId);
+                patronIdsByStatus.values().forEach(ids -> ids.remove(patronId));
+                statusScheduler.unschedule(patronId);
+            }
+        }
+    }
+
+    private void reindex(Patron patron, boolean search) {
+        if (search) {
+            searchIndex.index(patron);
+        }
+        for (Map.Entry<PatronStatus, Set<String>> entry : patronIdsByStatus.entrySet()) {
+            if (entry.getKey() == patron.getStatus()) {
+                entry.getValue().add(patron.getPatronId());
+            } else {
+                entry.getValue().remove(patron.getPatronId());
+            }
+        }
+        statusScheduler.schedule(patron.getPatronId(), patron.getNextStatusChangeDate());
+    }
+
+    private List<Patron> resolve(List<String> patronIds) {
+        return patronIds.stream()
+                .map(patronRepository::findById)
+                .flatMap(Optional::stream)
+                .map(this::attach)
                 .toList();
     }
+
+    /**
+     * Loads a patron from a snapshot, or puts one back when a transaction is undone.
+     */
+    public void restore(Patron patron) {
+        patronRepository.save(patron);
+        index(patron);
+    }
+
+    /**
+     * Drops every patron, e.g. before a standby loads a snapshot in place of what it holds.
+     */
+    public void clear() {
+        for (Patron patron : patronRepository.findAll()) {
+            patronRepository.deleteById(patron.getPatronId());
+            unindex(patron.getPatronId());
+        }
+    }
+
+    @Override
+    public void apply(Mutation mutation) {
+        switch (mutation.type()) {
+            case PATRON_ADDED -> {
+                // Upsert, so replaying over a snapshot that already holds the patron still applies
+                Patron patron = patronRepository.findById(mutation.field(0)).map(Patron::new).orElse(null);
+                if (patron == null) {
+                    patron = new Patron(mutation.field(0), mutation.field(1), mutation.field(2),
+                            mutation.field(3), mutation.field(4), mutation.enumField(5, PatronType.class),
+                            mutation.dateField(6));
+                } else {
+                    applyUpdate(patron, mutation);
+                }
+                patron.setStatus(mutation.enumField(7, PatronStatus.class));
+                if (mutation.hasField(8)) {
+                    patron.setMembershipExpiryDate(mutation.dateField(8));
+                    patron.setStatusUntil(mutation.dateField(9));
+                }
+                patronRepository.save(patron);
+                index(patron);
+            }
+            case PATRON_UPDATED -> patronRepository.findById(mutation.field(0)).map(Patron::new).ifPresent(patron -> {
+                applyUpdate(patron, mutation);
+                patronRepository.save(patron);
+                index(patron);
+            });
+            case PATRON_STATUS_CHANGED -> patronRepository.findById(mutation.field(0)).map(Patron::new)
+                    .ifPresent(patron -> {
+                patron.setStatus(mutation.enumField(1, PatronStatus.class));
+                if (mutation.hasField(2)) {
+                    patron.setStatusUntil(mutation.dateField(2));
+                    patron.setMembershipExpiryDate(mutation.dateField(3));
+                }
+                patronRepository.save(patron);
+                track(patron);
+            });
+            case PATRON_REMOVED -> {
+                patronRepository.deleteById(mutation.field(0));
+                unindex(mutation.field(0));
+            }
+            default -> {
+                // Not a patron mutation
+            }
+        }
+    }
+
+    private void applyUpdate(Patron patron, Mutation mutation) {
+        patron.setName(mutation.field(1));
+        patron.setEmail(mutation.field(2));
+        patron.setPhoneNumber(mutation.field(3));
+        patron.setAddress(mutation.field(4));
+        patron.setPatronType(mutation.enumField(5, PatronType.class));
+    }
 }
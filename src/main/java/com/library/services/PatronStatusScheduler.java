@@ -0,0 +1,74 @@
+package com.library.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Patron IDs keyed by the date each patron's status next changes on its own, so
+ * the patrons due on a given day are found without scanning every patron.
+ * Holds at most one date per patron; scheduling again replaces it.
+ */
+class PatronStatusScheduler {
+    private final TreeMap<LocalDate, Set<String>> patronsByDate = new TreeMap<>();
+    private final Map<String, LocalDate> dateByPatron = new HashMap<>();
+
+    /**
+     * Schedules {@code patronId} for {@code date}, or unschedules it if the date is null.
+     */
+    synchronized void schedule(String patronId, LocalDate date) {
+        LocalDate previous = date == null ? dateByPatron.remove(patronId) : dateByPatron.put(patronId, date);
+        if (Objects.equals(previous, date)) {
+            return;
+        }
+        if (previous != null) {
+            Set<String> sameDay = patronsByDate.get(previous);
+            sameDay.remove(patronId);
+            if (sameDay.isEmpty()) {
+                patronsByDate.remove(previous);
+            }
+        }
+        if (date != null) {
+            patronsByDate.computeIfAbsent(date, d -> new HashSet<>()).add(patronId);
+        }
+    }
+
+    synchronized void unschedule(String patronId) {
+        schedule(patronId, null);
+    }
+
+    /**
+     * Removes and returns up to {@code limit} patrons due on or before {@code today}, earliest first.
+     */
+    synchronized List<String> pollDue(LocalDate today, int limit) {
+        List<String> due = new ArrayList<>(Math.min(limit, 256));
+        while (due.size() < limit && !patronsByDate.isEmpty() && !patronsByDate.firstKey().isAfter(today)) {
+            Set<String> sameDay = patronsByDate.firstEntry().getValue();
+            for (Iterator<String> ids = sameDay.iterator(); ids.hasNext() && due.size() < limit; ) {
+                String patronId = ids.next();
+                ids.remove();
+                dateByPatron.remove(patronId);
+                due.add(patronId);
+            }
+            if (sameDay.isEmpty()) {
+                patronsByDate.pollFirstEntry();
+            }
+        }
+        return due;
+    }
+
+    synchronized LocalDate nextDate() {
+        return patronsByDate.isEmpty() ? null : patronsByDate.firstKey();
+    }
+
+    synchronized int size() {
+        return dateByPatron.size();
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.services;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of {@link PatronService#syncPatrons}: how many patrons each kind of
+ * change touched, and why rows were rejected (the first few reasons only).
+ */
+public record PatronSyncSummary(int added, int updated, int reactivated, int expired, int unchanged,
+                                int rejected, List<String> rejections, Duration elapsed) {
+
+    public int changed() {
+        return added + updated + reactivated + expired;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("added=%d updated=%d reactivated=%d expired=%d unchanged=%d rejected=%d in %d ms",
+                added, updated, reactivated, expired, unchanged, rejected, elapsed.toMillis());
+    }
+}
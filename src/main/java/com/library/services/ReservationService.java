@@ -10,8 +10,45 @@ import java.util.Optional;
 public interface ReservationService {
     Reservation reserveBook(String patronId, String isbn);
     boolean cancelReservation(String reservationId);
+
+    /**
+     * Cancels the reservation only if it is still at {@code expectedVersion}, as read from
+     * {@link Reservation#getVersion()}; otherwise throws {@link VersionConflictException}.
+     */
+    boolean cancelReservation(String reservationId, long expectedVersion);
     Optional<Reservation> findReservationById(String reservationId);
     List<Reservation> getReservationsByPatron(String patronId);
     List<Reservation> getReservationsByBook(String isbn);
+    List<Reservation> getAllReservations();
+
+    /**
+     * Expires every reservation returned by {@link #getExpiredReservations()}, one at a
+     * time through {@link #expireReservation(String)}.
+     */
     void processExpiredReservations();
+
+    /**
+     * Returns the reservations that are due to expire today: active ones past their
+     * expiry date and fulfilled ones whose hold was not picked up by its pickup date.
+     */
+    List<Reservation> getExpiredReservations();
+
+    /**
+     * Expires the reservation if it is still due to expire; returns whether it did.
+     * An expired hold is released or passed on as a cancelled one is.
+     */
+    boolean expireReservation(String reservationId);
+
+    /**
+     * Marks the patron's fulfilled reservations for {@code isbn} completed, once they
+     * have borrowed the book, so they no longer own its hold or come up for expiry.
+     */
+    void completeReservation(String patronId, String isbn);
+
+    /**
+     * Marks the oldest active reservation for a book back on the shelf as fulfilled,
+     * holds the book for its patron until a pickup date and notifies them. Cancelling
+     * a fulfilled reservation, or its expiry, passes the hold on to the next in line.
+     */
+    void notifyBookAvailable(String isbn);
 }
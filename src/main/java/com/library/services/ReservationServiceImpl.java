@@ -1,25 +1,66 @@
 package com.library.services;
 
+import com.library.events.HoldAvailable;
+import com.library.events.ReservationCreated;
+import com.library.events.ReservationExpired;
+import com.library.metrics.LibraryMetrics;
 import com.library.models.*;
 import com.library.patterns.Subject;
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationSink;
+import com.library.persistence.MutationType;
+import com.library.persistence.Replayable;
+import com.library.repository.InMemoryReservationRepository;
+import com.library.repository.ReservationRepository;
 import com.library.utils.IdGenerator;
 import com.library.utils.Logger;
+import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of ReservationService.
  * Extends Subject to implement Observer pattern for notifications.
+ *
+ * <p>A status change replaces the stored reservation with a changed copy only if
+ * its version is unchanged, so a reservation cancelled by its patron cannot also be
+ * fulfilled or expired by a concurrent sweep, and vice versa.
  */
-public class ReservationServiceImpl extends Subject implements ReservationService {
+public class ReservationServiceImpl extends Subject implements ReservationService, Replayable {
+    private static final long ANY_VERSION = -1;
+    private static final int PICKUP_DAYS = 7;
+    private static final Comparator<Reservation> FULFILMENT_ORDER = Comparator.comparing(Reservation::getExpiryDate)
+            .thenComparing(Reservation::getReservationDate)
+            .thenComparing(Reservation::getReservationId);
+
     private final BookService bookService;
     private final PatronService patronService;
-    private final Map<String, Reservation> reservations;
+    private final ReservationRepository reservationRepository;
+    private MutationSink mutationSink = MutationSink.NONE;
+    private LibraryMetrics metrics = new LibraryMetrics();
 
     public ReservationServiceImpl(BookService bookService, PatronService patronService) {
+        this(bookService, patronService, new InMemoryReservationRepository());
+    }
+
+    public ReservationServiceImpl(BookService bookService, PatronService patronService,
+                                  ReservationRepository reservationRepository) {
         this.bookService = bookService;
         this.patronService = patronService;
-        this.reservations = new ConcurrentHashMap<>();
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Sets where mutations are recorded, e.g. a {@link com.library.persistence.Journal}.
+     */
+    public void setMutationSink(MutationSink mutationSink) {
+        this.mutationSink = mutationSink == null ? MutationSink.NONE : mutationSink;
+    }
+
+    /**
+     * Sets the counters this service keeps up to date.
+     */
+    public void setMetrics(LibraryMetrics metrics) {
+        this.metrics = metrics;
     }
 
     @Override
@@ -49,22 +90,29 @@ public class ReservationServiceImpl extends Subject implements ReservationServic
         }
 
         // Check if patron already has a reservation for this book
-        boolean hasExistingReservation = reservations.values().stream()
-                .anyMatch(r -> r.getPatronId().equals(patronId) && 
-                              r.getIsbn().equals(isbn) && 
-                              r.isActive());
-
-        if (hasExistingReservation) {
+        if (reservationRepository.existsActive(patronId, isbn, LocalDate.now())) {
             throw new IllegalStateException("Patron already has an active reservation for this book");
         }
 
         // Create reservation
         String reservationId = IdGenerator.generateReservationId();
         Reservation reservation = new Reservation(reservationId, patronId, isbn);
-        reservations.put(reservationId, reservation);
+        if (!reservationRepository.insert(reservation)) {
+            throw new IllegalStateException("Duplicate reservation ID: " + reservationId);
+        }
+        metrics.reservationActivated(reservationId);
+        Runnable undo = () -> {
+            reservationRepository.deleteById(reservationId);
+            metrics.reservationDeactivated(reservationId);
+        };
+        mutationSink.append(Mutation.of(MutationType.RESERVATION_CREATED, reservationId, patronId, isbn,
+                reservation.getReservationDate(), reservation.getExpiryDate()), undo);
 
-        Logger.logInfo("Book reserved: " + book.getTitle() + " by " + patron.getName());
-        notifyObservers("Reservation created for '" + book.getTitle() + "' by " + patron.getName());
+        Logger.logEvent("reservation.created", "reservationId", reservationId, "patronId", patronId,
+                "isbn", isbn, "title", book.getTitle());
+        if (hasObservers(ReservationCreated.class)) {
+            notifyObservers(new ReservationCreated(reservationId, patronId, isbn, book.getTitle(), patron.getName()));
+        }
 
         return reservation;
     }
@@ -74,78 +122,282 @@ public class ReservationServiceImpl extends Subject implements ReservationServic
         if (reservationId == null) {
             throw new IllegalArgumentException("Reservation ID cannot be null");
         }
+        return cancel(reservationId, ANY_VERSION);
+    }
 
-        Reservation reservation = reservations.get(reservationId);
-        if (reservation == null) {
-            Logger.logWarning("Attempted to cancel non-existent reservation: " + reservationId);
-            return false;
+    @Override
+    public boolean cancelReservation(String reservationId, long expectedVersion) {
+        if (reservationId == null) {
+            throw new IllegalArgumentException("Reservation ID cannot be null");
         }
+        if (expectedVersion < 0) {
+            throw new IllegalArgumentException("Expected version cannot be negative");
+        }
+        return cancel(reservationId, expectedVersion);
+    }
 
-        reservation.setStatus(ReservationStatus.CANCELLED);
-        Logger.logInfo("Reservation cancelled: " + reservationId);
-        
-        return true;
+    /**
+     * With {@link #ANY_VERSION} a cancellation that loses a race is retried from a
+     * fresh read; otherwise the stored reservation must be at {@code expectedVersion}.
+     */
+    private boolean cancel(String reservationId, long expectedVersion) {
+        while (true) {
+            Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+            if (reservation == null) {
+                Logger.logWarning(() -> "Attempted to cancel non-existent reservation: " + reservationId);
+                return false;
+            }
+            if (expectedVersion != ANY_VERSION && reservation.getVersion() != expectedVersion) {
+                throw new VersionConflictException(reservationId, expectedVersion, reservation.getVersion());
+            }
+            boolean holding = ownsHold(reservation);
+            if (changeStatus(reservation, ReservationStatus.CANCELLED)) {
+                Logger.logEvent("reservation.cancelled", "reservationId", reservationId,
+                        "patronId", reservation.getPatronId(), "isbn", reservation.getIsbn());
+                if (holding) {
+                    passOnHold(reservation);
+                }
+                return true;
+            }
+        }
     }
 
     @Override
     public Optional<Reservation> findReservationById(String reservationId) {
-        return Optional.ofNullable(reservations.get(reservationId));
+        return reservationRepository.findById(reservationId);
     }
 
     @Override
     public List<Reservation> getReservationsByPatron(String patronId) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getPatronId().equals(patronId))
-                .toList();
+        return reservationRepository.findByPatron(patronId);
     }
 
     @Override
     public List<Reservation> getReservationsByBook(String isbn) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getIsbn().equals(isbn) && 
-                                      reservation.isActive())
-                .sorted(Comparator.comparing(Reservation::getReservationDate))
-                .toList();
+        return reservationRepository.findActiveByBook(isbn, LocalDate.now());
+    }
+
+    @Override
+    public List<Reservation> getAllReservations() {
+        return reservationRepository.findAll();
     }
 
     @Override
     public void processExpiredReservations() {
-        List<Reservation> expiredReservations = reservations.values().stream()
-                .filter(Reservation::isExpired)
-                .filter(r -> r.getStatus() == ReservationStatus.ACTIVE)
-                .toList();
+        for (Reservation reservation : getExpiredReservations()) {
+            expireReservation(reservation.getReservationId());
+        }
+    }
+
+    @Override
+    public List<Reservation> getExpiredReservations() {
+        LocalDate today = LocalDate.now();
+        List<Reservation> expired = new ArrayList<>(reservationRepository.findExpiredActive(today));
+        expired.addAll(reservationRepository.findExpiredFulfilled(today));
+        return expired;
+    }
 
-        for (Reservation reservation : expiredReservations) {
-            reservation.setStatus(ReservationStatus.EXPIRED);
-            Logger.logInfo("Reservation expired: " + reservation.getReservationId());
-            
-            // Notify next patron in queue if any
-            List<Reservation> queuedReservations = getReservationsByBook(reservation.getIsbn());
-            if (!queuedReservations.isEmpty()) {
-                Reservation nextReservation = queuedReservations.get(0);
-                Optional<Patron> nextPatronOpt = patronService.findPatronById(nextReservation.getPatronId());
-                Optional<Book> bookOpt = bookService.findBookByIsbn(reservation.getIsbn());
-                
-                if (nextPatronOpt.isPresent() && bookOpt.isPresent()) {
-                    notifyObservers("Book '" + bookOpt.get().getTitle() + 
-                                   "' is now available for " + nextPatronOpt.get().getName());
+    @Override
+    public boolean expireReservation(String reservationId) {
+        if (reservationId == null) {
+            throw new IllegalArgumentException("Reservation ID cannot be null");
+        }
+        LocalDate today = LocalDate.now();
+        Reservation reservation;
+        do {
+            reservation = reservationRepository.findById(reservationId).orElse(null);
+            if (reservation == null) {
+                return false;
+            }
+            if (!isDue(reservation, today)) {
+                if (reservation.getStatus() == ReservationStatus.FULFILLED
+                        && today.isAfter(reservation.getExpiryDate())) {
+                    // Collected before collection was recorded, or superseded by a newer hold
+                    changeStatus(reservation, ReservationStatus.COMPLETED);
                 }
+                return false;
             }
+        } while (!changeStatus(reservation, ReservationStatus.EXPIRED));
+
+        Logger.logEvent("reservation.expired", "reservationId", reservationId,
+                "patronId", reservation.getPatronId(), "isbn", reservation.getIsbn());
+        if (hasObservers(ReservationExpired.class)) {
+            notifyObservers(new ReservationExpired(reservationId, reservation.getPatronId(), reservation.getIsbn()));
+        }
+        if (reservation.getStatus() == ReservationStatus.FULFILLED) {
+            passOnHold(reservation);
+        }
+        return true;
+    }
+
+    /**
+     * An active reservation is due once past its expiry date, a fulfilled one once past
+     * its pickup date if it still owns the book's hold.
+     */
+    private boolean isDue(Reservation reservation, LocalDate today) {
+        if (!today.isAfter(reservation.getExpiryDate())) {
+            return false;
         }
+        return switch (reservation.getStatus()) {
+            case ACTIVE -> true;
+            case FULFILLED -> ownsHold(reservation);
+            default -> false;
+        };
     }
 
+    /**
+     * Whether the book is on hold for {@code reservation}: it is held for the patron
+     * and this is the patron's most recently fulfilled reservation for it.
+     */
+    private boolean ownsHold(Reservation reservation) {
+        if (reservation.getStatus() != ReservationStatus.FULFILLED) {
+            return false;
+        }
+        String patronId = reservation.getPatronId();
+        if (bookService.findBookByIsbn(reservation.getIsbn()).filter(book -> book.isHeldFor(patronId)).isEmpty()) {
+            return false;
+        }
+        return fulfilled(patronId, reservation.getIsbn()).stream()
+                .max(FULFILMENT_ORDER)
+                .filter(latest -> latest.getReservationId().equals(reservation.getReservationId()))
+                .isPresent();
+    }
+
+    private List<Reservation> fulfilled(String patronId, String isbn) {
+        return reservationRepository.findByPatron(patronId).stream()
+                .filter(reservation -> reservation.getIsbn().equals(isbn)
+                        && reservation.getStatus() == ReservationStatus.FULFILLED)
+                .toList();
+    }
+
+    @Override
+    public void completeReservation(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        for (Reservation reservation : fulfilled(patronId, isbn)) {
+            // Lost only to a concurrent cancellation, which settles it too
+            if (changeStatus(reservation, ReservationStatus.COMPLETED)) {
+                Logger.logEvent("reservation.completed", "reservationId", reservation.getReservationId(),
+                        "patronId", patronId, "isbn", isbn);
+            }
+        }
+    }
+
+    @Override
     public void notifyBookAvailable(String isbn) {
-        List<Reservation> queuedReservations = getReservationsByBook(isbn);
-        if (!queuedReservations.isEmpty()) {
-            Reservation nextReservation = queuedReservations.get(0);
-            nextReservation.setStatus(ReservationStatus.FULFILLED);
-            
-            Optional<Patron> patronOpt = patronService.findPatronById(nextReservation.getPatronId());
-            Optional<Book> bookOpt = bookService.findBookByIsbn(isbn);
-            
-            if (patronOpt.isPresent() && bookOpt.isPresent()) {
-                notifyObservers("Reserved book '" + bookOpt.get().getTitle() + 
-                               "' is now available for pickup by " + patronOpt.get().getName());
+        if (bookService.findBookByIsbn(isbn).filter(Book::isAvailable).isEmpty()) {
+            // Nothing on the shelf to hold
+            return;
+        }
+        // The head of the queue may be cancelled concurrently; the hold then goes to the next in line
+        Reservation nextReservation = null;
+        LocalDate pickupBy = LocalDate.now().plusDays(PICKUP_DAYS);
+        for (Reservation queued : getReservationsByBook(isbn)) {
+            if (changeStatus(queued, ReservationStatus.FULFILLED, pickupBy)) {
+                nextReservation = queued;
+                break;
+            }
+        }
+        if (nextReservation != null) {
+            String patronId = nextReservation.getPatronId();
+            bookService.holdBook(isbn, patronId);
+            Optional<Patron> patronOpt = patronService.findPatronById(patronId);
+            Optional<Book> bookOpt = bookService.findBookByIsbn(isbn).filter(book -> book.isHeldFor(patronId));
+
+            if (patronOpt.isPresent() && bookOpt.isPresent() && hasObservers(HoldAvailable.class)) {
+                notifyObservers(new HoldAvailable(nextReservation.getReservationId(),
+                        nextReservation.getPatronId(), isbn, bookOpt.get().getTitle(),
+                        patronOpt.get().getName()));
+            }
+        }
+    }
+
+    private void passOnHold(Reservation cancelled) {
+        String isbn = cancelled.getIsbn();
+        if (bookService.findBookByIsbn(isbn).filter(book -> book.isHeldFor(cancelled.getPatronId())).isPresent()) {
+            bookService.releaseHold(isbn);
+            notifyBookAvailable(isbn);
+        }
+    }
+
+    /**
+     * Stores a copy of {@code reservation} in {@code status}, unless the stored
+     * reservation has changed since {@code reservation} was read.
+     */
+    private boolean changeStatus(Reservation reservation, ReservationStatus status) {
+        return changeStatus(reservation, status, null);
+    }
+
+    /**
+     * Like {@link #changeStatus(Reservation, ReservationStatus)}, also moving the
+     * expiry date to {@code expiryDate} unless that is null.
+     */
+    private boolean changeStatus(Reservation reservation, ReservationStatus status, LocalDate expiryDate) {
+        Reservation changed = new Reservation(reservation);
+        changed.setStatus(status);
+        if (expiryDate != null) {
+            changed.setExpiryDate(expiryDate);
+        }
+        if (!reservationRepository.replace(changed, reservation.getVersion())) {
+            return false;
+        }
+        trackStatus(changed);
+        Reservation previous = new Reservation(reservation);
+        mutationSink.append(expiryDate == null
+                ? Mutation.of(MutationType.RESERVATION_STATUS_CHANGED, changed.getReservationId(), status)
+                : Mutation.of(MutationType.RESERVATION_STATUS_CHANGED, changed.getReservationId(), status,
+                        expiryDate), () -> restore(previous));
+        return true;
+    }
+
+    /**
+     * Loads a reservation from a snapshot, or puts one back when a transaction is undone.
+     */
+    public void restore(Reservation reservation) {
+        reservationRepository.save(reservation);
+        trackStatus(reservation);
+    }
+
+    /**
+     * Drops every reservation, e.g. before a standby loads a snapshot in place of what it holds.
+     */
+    public void clear() {
+        for (Reservation reservation : reservationRepository.findAll()) {
+            reservationRepository.deleteById(reservation.getReservationId());
+            metrics.reservationDeactivated(reservation.getReservationId());
+        }
+    }
+
+    private void trackStatus(Reservation reservation) {
+        if (reservation.getStatus() == ReservationStatus.ACTIVE) {
+            metrics.reservationActivated(reservation.getReservationId());
+        } else {
+            metrics.reservationDeactivated(reservation.getReservationId());
+        }
+    }
+
+    @Override
+    public void apply(Mutation mutation) {
+        switch (mutation.type()) {
+            case RESERVATION_CREATED -> {
+                Reservation reservation = new Reservation(mutation.field(0), mutation.field(1), mutation.field(2),
+                        mutation.dateField(3), mutation.dateField(4));
+                if (reservationRepository.insert(reservation)) {
+                    trackStatus(reservation);
+                }
+            }
+            case RESERVATION_STATUS_CHANGED -> reservationRepository.findById(mutation.field(0)).map(Reservation::new)
+                    .ifPresent(reservation -> {
+                reservation.setStatus(mutation.enumField(1, ReservationStatus.class));
+                if (mutation.hasField(2)) {
+                    reservation.setExpiryDate(mutation.dateField(2));
+                }
+                reservationRepository.save(reservation);
+                trackStatus(reservation);
+            });
+            default -> {
+                // Not a reservation mutation
             }
         }
     }
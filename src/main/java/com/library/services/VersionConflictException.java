@@ -0,0 +1,33 @@
+package com.library.services;
+
+/**
+ * Thrown by a conditional update when the entity has been written since the
+ * caller read the version it passed. Re-read the entity and decide whether to retry.
+ */
+public class VersionConflictException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entityId;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public VersionConflictException(String entityId, long expectedVersion, long currentVersion) {
+        super("Version conflict on " + entityId + ": expected version " + expectedVersion + " but found "
+                + currentVersion);
+        this.entityId = entityId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
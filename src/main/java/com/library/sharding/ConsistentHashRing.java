@@ -0,0 +1,61 @@
+package com.library.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring with virtual nodes. Adding a node only takes over the key
+ * ranges its virtual nodes land on, so roughly 1/N of the keys move instead of
+ * nearly all of them as with modulo hashing. Not thread-safe; callers synchronize.
+ */
+final class ConsistentHashRing<T> {
+    private final int virtualNodes;
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("At least one virtual node per member is required");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    void add(String nodeName, T node) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(nodeName + "#" + i), node);
+        }
+    }
+
+    void remove(String nodeName) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.remove(hash(nodeName + "#" + i));
+        }
+    }
+
+    T nodeFor(String key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("Hash ring has no members");
+        }
+        Map.Entry<Long, T> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so
+     * similar keys such as consecutive ISBNs spread evenly around the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.sharding;
+
+import com.library.metrics.LibraryMetrics;
+import com.library.persistence.MutationSink;
+import com.library.repository.*;
+import com.library.services.*;
+
+/**
+ * One partition of a {@link ShardCluster}: the books whose ISBN hashes to it, plus
+ * their loans and reservations, each with its own services and repositories.
+ * Patrons are not partitioned; every shard works against the cluster's patron service.
+ */
+public final class Shard {
+    private final int id;
+    final BookRepository bookRepository = new InMemoryBookRepository();
+    final LoanRepository loanRepository = new InMemoryLoanRepository();
+    final ReservationRepository reservationRepository = new InMemoryReservationRepository();
+    final BookServiceImpl bookService;
+    final LendingServiceImpl lendingService;
+    final ReservationServiceImpl reservationService;
+
+    Shard(int id, PatronService patronService, LibraryMetrics metrics) {
+        this.id = id;
+        this.bookService = new BookServiceImpl(bookRepository);
+        this.lendingService = new LendingServiceImpl(bookService, patronService, loanRepository);
+        this.reservationService = new ReservationServiceImpl(bookService, patronService, reservationRepository);
+        bookService.setMetrics(metrics);
+        lendingService.setMetrics(metrics);
+        reservationService.setMetrics(metrics);
+    }
+
+    void setMutationSink(MutationSink mutationSink) {
+        bookService.setMutationSink(mutationSink);
+        lendingService.setMutationSink(mutationSink);
+        reservationService.setMutationSink(mutationSink);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getBookCount() {
+        return bookRepository.findAll().size();
+    }
+
+    String getName() {
+        return "shard-" + id;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,209 @@
+package com.library.sharding;
+
+import com.library.metrics.LibraryMetrics;
+import com.library.models.Book;
+import com.library.models.BorrowRecord;
+import com.library.models.Reservation;
+import com.library.persistence.MutationSink;
+import com.library.services.BookService;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import com.library.services.PatronServiceImpl;
+import com.library.services.ReservationService;
+import com.library.utils.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cluster of shards partitioning the catalog by ISBN.
+ *
+ * <p>Books, loans and reservations live on the shard the consistent hash ring
+ * assigns their ISBN to; patrons stay in one shared service. Single-book
+ * operations are routed to their shard, and queries spanning the catalog run on
+ * every shard in parallel and are merged. Adding a shard moves only the books
+ * whose ring position it takes over, together with their loans and reservations.
+ * Operations hold a shared lock and rebalancing an exclusive one, so nothing
+ * observes a book mid-move.
+ */
+public class ShardCluster implements AutoCloseable {
+    private static final int VIRTUAL_NODES = 160;
+
+    private final PatronService patronService = new PatronServiceImpl();
+    private final LibraryMetrics metrics = new LibraryMetrics();
+    private final List<Shard> shards = new ArrayList<>();
+    private final ConsistentHashRing<Shard> ring = new ConsistentHashRing<>(VIRTUAL_NODES);
+    private final ReadWriteLock topologyLock = new ReentrantReadWriteLock();
+    private final ExecutorService queryExecutor;
+    private final ShardedBookService bookService;
+    private final ShardedLendingService lendingService;
+    private final ShardedReservationService reservationService;
+    private int nextShardId;
+    private MutationSink mutationSink = MutationSink.NONE;
+
+    public ShardCluster(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A cluster needs at least one shard");
+        }
+        this.queryExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "shard-query");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.bookService = new ShardedBookService(this);
+        this.lendingService = new ShardedLendingService(this, patronService);
+        this.reservationService = new ShardedReservationService(this);
+        for (int i = 0; i < shardCount; i++) {
+            attach(new Shard(nextShardId++, patronService, metrics));
+        }
+    }
+
+    public BookService getBookService() {
+        return bookService;
+    }
+
+    public PatronService getPatronService() {
+        return patronService;
+    }
+
+    public LendingService getLendingService() {
+        return lendingService;
+    }
+
+    public ReservationService getReservationService() {
+        return reservationService;
+    }
+
+    /**
+     * Counters shared by every shard; moving books between shards leaves them unchanged.
+     */
+    public LibraryMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<Shard> getShards() {
+        topologyLock.readLock().lock();
+        try {
+            return List.copyOf(shards);
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets where the shards' services record mutations, e.g. a
+     * {@link com.library.transactions.TransactionManager}; shards added later use it too.
+     */
+    public void setMutationSink(MutationSink mutationSink) {
+        topologyLock.writeLock().lock();
+        try {
+            this.mutationSink = mutationSink == null ? MutationSink.NONE : mutationSink;
+            for (Shard shard : shards) {
+                shard.setMutationSink(this.mutationSink);
+            }
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a shard and moves the books it now owns, with their loans and reservations, onto it.
+     */
+    public Shard addShard() {
+        topologyLock.writeLock().lock();
+        try {
+            Shard added = new Shard(nextShardId++, patronService, metrics);
+            List<Shard> existing = List.copyOf(shards);
+            attach(added);
+            int moved = 0;
+            for (Shard source : existing) {
+                moved += rebalance(source);
+            }
+            int movedBooks = moved;
+            Logger.logInfo(() -> "Added " + added + "; moved " + movedBooks + " books onto it");
+            return added;
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        queryExecutor.shutdown();
+    }
+
+    /**
+     * Runs {@code operation} on the shard owning {@code isbn} while the topology is held stable.
+     */
+    <T> T onShard(String isbn, Function<Shard, T> operation) {
+        topologyLock.readLock().lock();
+        try {
+            return operation.apply(ring.nodeFor(isbn));
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code query} on every shard in parallel and concatenates the results.
+     */
+    <T> List<T> gather(Function<Shard, List<T>> query) {
+        topologyLock.readLock().lock();
+        try {
+            if (shards.size() == 1) {
+                return query.apply(shards.get(0));
+            }
+            List<CompletableFuture<List<T>>> parts = new ArrayList<>(shards.size());
+            for (Shard shard : shards) {
+                parts.add(CompletableFuture.supplyAsync(() -> query.apply(shard), queryExecutor));
+            }
+            List<T> results = new ArrayList<>();
+            for (CompletableFuture<List<T>> part : parts) {
+                results.addAll(part.join());
+            }
+            return results;
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    private void attach(Shard shard) {
+        shard.setMutationSink(mutationSink);
+        shards.add(shard);
+        ring.add(shard.getName(), shard);
+        lendingService.forwardEventsFrom(shard);
+        reservationService.forwardEventsFrom(shard);
+    }
+
+    private int rebalance(Shard source) {
+        Map<String, List<BorrowRecord>> loansByIsbn = source.loanRepository.findAll().stream()
+                .collect(Collectors.groupingBy(BorrowRecord::getIsbn));
+        Map<String, List<Reservation>> reservationsByIsbn = source.reservationRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Reservation::getIsbn));
+        int moved = 0;
+        for (Book book : source.bookRepository.findAll()) {
+            Shard owner = ring.nodeFor(book.getIsbn());
+            if (owner == source) {
+                continue;
+            }
+            List<BorrowRecord> loans = loansByIsbn.getOrDefault(book.getIsbn(), List.of());
+            List<Reservation> reservations = reservationsByIsbn.getOrDefault(book.getIsbn(), List.of());
+            owner.bookRepository.save(book);
+            owner.loanRepository.saveAll(loans);
+            owner.reservationRepository.saveAll(reservations);
+            source.bookRepository.deleteByIsbn(book.getIsbn());
+            loans.forEach(loan -> source.loanRepository.deleteById(loan.getRecordId()));
+            reservations.forEach(reservation -> source.reservationRepository.deleteById(reservation.getReservationId()));
+            moved++;
+        }
+        return moved;
+    }
+}
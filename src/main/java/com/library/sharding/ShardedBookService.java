@@ -0,0 +1,129 @@
+package com.library.sharding;
+
+import com.library.models.Book;
+import com.library.repository.CatalogSnapshot;
+import com.library.services.BookService;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Book service over a {@link ShardCluster}: ISBN operations go to the owning
+ * shard, searches and listings scatter to all shards in parallel.
+ */
+class ShardedBookService implements BookService {
+    private final ShardCluster cluster;
+
+    ShardedBookService(ShardCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    public void addBook(Book book) {
+        if (book == null || book.getIsbn() == null || book.getIsbn().trim().isEmpty()) {
+            throw new IllegalArgumentException("Book and ISBN cannot be null or empty");
+        }
+        cluster.onShard(book.getIsbn(), shard -> {
+            shard.bookService.addBook(book);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeBook(String isbn) {
+        if (isbn == null || isbn.trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        cluster.onShard(isbn, shard -> {
+            shard.bookService.removeBook(isbn);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Book> updateBook(String isbn, Book updatedBook) {
+        if (isbn == null || updatedBook == null) {
+            throw new IllegalArgumentException("ISBN and updated book cannot be null");
+        }
+        return cluster.onShard(isbn, shard -> shard.bookService.updateBook(isbn, updatedBook));
+    }
+
+    @Override
+    public Optional<Book> updateBook(String isbn, Book updatedBook, long expectedVersion) {
+        if (isbn == null || updatedBook == null) {
+            throw new IllegalArgumentException("ISBN and updated book cannot be null");
+        }
+        return cluster.onShard(isbn, shard -> shard.bookService.updateBook(isbn, updatedBook, expectedVersion));
+    }
+
+    @Override
+    public Optional<Book> findBookByIsbn(String isbn) {
+        return cluster.onShard(isbn, shard -> shard.bookService.findBookByIsbn(isbn));
+    }
+
+    @Override
+    public void saveBook(Book book) {
+        cluster.onShard(book.getIsbn(), shard -> {
+            shard.bookService.saveBook(book);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean replaceBook(Book book, long expectedVersion) {
+        return cluster.onShard(book.getIsbn(), shard -> shard.bookService.replaceBook(book, expectedVersion));
+    }
+
+    @Override
+    public void holdBook(String isbn, String patronId) {
+        cluster.onShard(isbn, shard -> {
+            shard.bookService.holdBook(isbn, patronId);
+            return null;
+        });
+    }
+
+    @Override
+    public void releaseHold(String isbn) {
+        cluster.onShard(isbn, shard -> {
+            shard.bookService.releaseHold(isbn);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Book> searchBooksByTitle(String title) {
+        return cluster.gather(shard -> shard.bookService.searchBooksByTitle(title));
+    }
+
+    @Override
+    public List<Book> searchBooksByAuthor(String author) {
+        return cluster.gather(shard -> shard.bookService.searchBooksByAuthor(author));
+    }
+
+    @Override
+    public List<Book> searchBooksByIsbn(String isbn) {
+        return cluster.gather(shard -> shard.bookService.searchBooksByIsbn(isbn));
+    }
+
+    @Override
+    public List<Book> getAllBooks() {
+        return cluster.gather(shard -> shard.bookService.getAllBooks());
+    }
+
+    @Override
+    public List<Book> getAvailableBooks() {
+        return cluster.gather(shard -> shard.bookService.getAvailableBooks());
+    }
+
+    @Override
+    public List<Book> getBorrowedBooks() {
+        return cluster.gather(shard -> shard.bookService.getBorrowedBooks());
+    }
+
+    /**
+     * Shards are not versioned together, so the snapshot is a merged copy of all shards.
+     */
+    @Override
+    public CatalogSnapshot openCatalogSnapshot() {
+        return CatalogSnapshot.of(getAllBooks());
+    }
+}
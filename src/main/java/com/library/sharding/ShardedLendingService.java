@@ -0,0 +1,136 @@
+package com.library.sharding;
+
+import com.library.events.LibraryEvent;
+import com.library.models.BorrowRecord;
+import com.library.models.BorrowingHistory;
+import com.library.models.Patron;
+import com.library.patterns.Observer;
+import com.library.patterns.Subject;
+import com.library.services.LendingService;
+import com.library.services.PatronService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lending service over a {@link ShardCluster}. Loans are made on the shard that
+ * owns the book, but a patron's borrowing limit spans all shards, so it is enforced
+ * here with a cluster-wide count of active loans per patron. A slot is reserved
+ * before the shard is asked and released if the shard refuses the loan.
+ * Events raised on the shards are re-published to this service's observers.
+ */
+class ShardedLendingService extends Subject implements LendingService {
+    private final ShardCluster cluster;
+    private final PatronService patronService;
+    private final Map<String, AtomicInteger> activeLoans = new ConcurrentHashMap<>();
+
+    ShardedLendingService(ShardCluster cluster, PatronService patronService) {
+        this.cluster = cluster;
+        this.patronService = patronService;
+    }
+
+    void forwardEventsFrom(Shard shard) {
+        shard.lendingService.addObserver(new Observer() {
+            @Override
+            public void update(LibraryEvent event) {
+                notifyObservers(event);
+            }
+
+            @Override
+            public boolean isInterestedIn(Class<? extends LibraryEvent> eventType) {
+                return hasObservers(eventType);
+            }
+        });
+    }
+
+    @Override
+    public BorrowRecord borrowBook(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        Patron patron = patronService.findPatronById(patronId)
+                .orElseThrow(() -> new IllegalArgumentException("Patron not found: " + patronId));
+        AtomicInteger loans = activeLoans.computeIfAbsent(patronId, id -> new AtomicInteger());
+        if (!tryAcquire(loans, patron.getMaxBooksAllowed())) {
+            throw new IllegalStateException("Patron cannot borrow more books");
+        }
+        try {
+            return cluster.onShard(isbn, shard -> shard.lendingService.borrowBook(patronId, isbn));
+        } catch (RuntimeException e) {
+            loans.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean returnBook(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        boolean returned = cluster.onShard(isbn, shard -> shard.lendingService.returnBook(patronId, isbn));
+        if (returned) {
+            AtomicInteger loans = activeLoans.get(patronId);
+            if (loans != null) {
+                loans.decrementAndGet();
+            }
+        }
+        return returned;
+    }
+
+    @Override
+    public BorrowRecord renewBook(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        return cluster.onShard(isbn, shard -> shard.lendingService.renewBook(patronId, isbn));
+    }
+
+    @Override
+    public List<BorrowRecord> getBorrowingHistory(String patronId) {
+        return cluster.gather(shard -> shard.lendingService.getBorrowingHistory(patronId));
+    }
+
+    /**
+     * Takes a page from every shard and keeps the newest {@code limit} of them.
+     */
+    @Override
+    public List<BorrowRecord> getBorrowingHistory(String patronId, BorrowingHistory.Cursor after, int limit) {
+        return cluster.gather(shard -> shard.lendingService.getBorrowingHistory(patronId, after, limit)).stream()
+                .sorted(BorrowingHistory.NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<BorrowRecord> getAllBorrowRecords() {
+        return cluster.gather(shard -> shard.lendingService.getAllBorrowRecords());
+    }
+
+    @Override
+    public List<BorrowRecord> getOverdueBooks() {
+        return cluster.gather(shard -> shard.lendingService.getOverdueBooks());
+    }
+
+    @Override
+    public List<BorrowRecord> getCurrentBorrowedBooks(String patronId) {
+        return cluster.gather(shard -> shard.lendingService.getCurrentBorrowedBooks(patronId));
+    }
+
+    @Override
+    public double calculateFine(BorrowRecord record) {
+        return cluster.onShard(record.getIsbn(), shard -> shard.lendingService.calculateFine(record));
+    }
+
+    private static boolean tryAcquire(AtomicInteger loans, int limit) {
+        while (true) {
+            int current = loans.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (loans.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.library.sharding;
+
+import com.library.events.LibraryEvent;
+import com.library.models.Reservation;
+import com.library.patterns.Observer;
+import com.library.patterns.Subject;
+import com.library.services.ReservationService;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reservation service over a {@link ShardCluster}. Reservations live with their
+ * book; lookups by reservation ID or patron scatter to all shards.
+ * Events raised on the shards are re-published to this service's observers.
+ */
+class ShardedReservationService extends Subject implements ReservationService {
+    private final ShardCluster cluster;
+
+    ShardedReservationService(ShardCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    void forwardEventsFrom(Shard shard) {
+        shard.reservationService.addObserver(new Observer() {
+            @Override
+            public void update(LibraryEvent event) {
+                notifyObservers(event);
+            }
+
+            @Override
+            public boolean isInterestedIn(Class<? extends LibraryEvent> eventType) {
+                return hasObservers(eventType);
+            }
+        });
+    }
+
+    @Override
+    public Reservation reserveBook(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        return cluster.onShard(isbn, shard -> shard.reservationService.reserveBook(patronId, isbn));
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId) {
+        if (reservationId == null) {
+            throw new IllegalArgumentException("Reservation ID cannot be null");
+        }
+        Optional<Reservation> reservation = findReservationById(reservationId);
+        if (reservation.isEmpty()) {
+            return false;
+        }
+        return cluster.onShard(reservation.get().getIsbn(),
+                shard -> shard.reservationService.cancelReservation(reservationId));
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId, long expectedVersion) {
+        if (reservationId == null) {
+            throw new IllegalArgumentException("Reservation ID cannot be null");
+        }
+        Optional<Reservation> reservation = findReservationById(reservationId);
+        if (reservation.isEmpty()) {
+            return false;
+        }
+        return cluster.onShard(reservation.get().getIsbn(),
+                shard -> shard.reservationService.cancelReservation(reservationId, expectedVersion));
+    }
+
+    @Override
+    public Optional<Reservation> findReservationById(String reservationId) {
+        return cluster.gather(shard -> shard.reservationService.findReservationById(reservationId).stream().toList())
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Reservation> getReservationsByPatron(String patronId) {
+        return cluster.gather(shard -> shard.reservationService.getReservationsByPatron(patronId));
+    }
+
+    @Override
+    public List<Reservation> getReservationsByBook(String isbn) {
+        return cluster.onShard(isbn, shard -> shard.reservationService.getReservationsByBook(isbn));
+    }
+
+    @Override
+    public List<Reservation> getAllReservations() {
+        return cluster.gather(shard -> shard.reservationService.getAllReservations());
+    }
+
+    @Override
+    public void processExpiredReservations() {
+        cluster.gather(shard -> {
+            shard.reservationService.processExpiredReservations();
+            return List.of();
+        });
+    }
+
+    @Override
+    public List<Reservation> getExpiredReservations() {
+        return cluster.gather(shard -> shard.reservationService.getExpiredReservations());
+    }
+
+    @Override
+    public boolean expireReservation(String reservationId) {
+        if (reservationId == null) {
+            throw new IllegalArgumentException("Reservation ID cannot be null");
+        }
+        Optional<Reservation> reservation = findReservationById(reservationId);
+        if (reservation.isEmpty()) {
+            return false;
+        }
+        return cluster.onShard(reservation.get().getIsbn(),
+                shard -> shard.reservationService.expireReservation(reservationId));
+    }
+
+    @Override
+    public void completeReservation(String patronId, String isbn) {
+        if (patronId == null || isbn == null) {
+            throw new IllegalArgumentException("Patron ID and ISBN cannot be null");
+        }
+        cluster.onShard(isbn, shard -> {
+            shard.reservationService.completeReservation(patronId, isbn);
+            return null;
+        });
+    }
+
+    @Override
+    public void notifyBookAvailable(String isbn) {
+        cluster.onShard(isbn, shard -> {
+            shard.reservationService.notifyBookAvailable(isbn);
+            return null;
+        });
+    }
+}
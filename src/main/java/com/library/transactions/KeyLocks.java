@@ -0,0 +1,32 @@
+package com.library.transactions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock per key, created when first needed and dropped when no thread holds
+ * or waits for it, so the table stays as small as the number of keys in use.
+ */
+final class KeyLocks {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users; // guarded by the map's per-key compute
+    }
+
+    void lock(String key) {
+        Entry entry = entries.compute(key, (k, existing) -> {
+            Entry used = existing == null ? new Entry() : existing;
+            used.users++;
+            return used;
+        });
+        entry.lock.lock();
+    }
+
+    void unlock(String key) {
+        entries.get(key).lock.unlock();
+        entries.computeIfPresent(key, (k, entry) -> --entry.users == 0 ? null : entry);
+    }
+}
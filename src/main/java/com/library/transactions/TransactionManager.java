@@ -0,0 +1,170 @@
+package com.library.transactions;
+
+import com.library.persistence.Mutation;
+import com.library.persistence.MutationSink;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Runs a piece of work that spans several services, e.g. a return and the hold it
+ * fulfils, as one transaction.
+ *
+ * <p>A transaction names the keys it touches up front (see {@link #bookKey(String)}
+ * and {@link #patronKey(String)}) and locks them in key order, so two transactions
+ * can never wait for each other. Work on other keys runs in parallel.
+ *
+ * <p>The services' mutations pass through this manager. Inside a transaction they
+ * are collected and, when the work ends, handed to the journal as one
+ * {@linkplain MutationSink#appendGroup(List) group}, before the locks are released.
+ * Recovery therefore sees all of a transaction or none of it. The services change
+ * state as they go, handing each mutation over with how to undo it
+ * ({@link MutationSink#append(Mutation, Runnable)}). If the work fails part way,
+ * its changes are undone newest first, nothing is journaled and the failure is
+ * rethrown. Observers are told of events as they happen, before the group is
+ * durable, so they may hear of a change that is then undone.
+ */
+public class TransactionManager implements MutationSink {
+    private final KeyLocks locks = new KeyLocks();
+    private final ThreadLocal<Transaction> current = new ThreadLocal<>();
+    private volatile MutationSink mutationSink = MutationSink.NONE;
+
+    private static final class Transaction {
+        private final SortedSet<String> keys;
+        private final List<Mutation> mutations = new ArrayList<>();
+        private final List<Runnable> undos = new ArrayList<>();
+
+        private Transaction(SortedSet<String> keys) {
+            this.keys = keys;
+        }
+    }
+
+    public static String bookKey(String isbn) {
+        return "book:" + isbn;
+    }
+
+    public static String patronKey(String patronId) {
+        return "patron:" + patronId;
+    }
+
+    /**
+     * Sets where committed mutations go, e.g. a {@link com.library.persistence.Journal}.
+     */
+    public void setMutationSink(MutationSink mutationSink) {
+        this.mutationSink = mutationSink == null ? MutationSink.NONE : mutationSink;
+    }
+
+    /**
+     * Runs {@code work} holding the locks on {@code keys} and commits its mutations
+     * as one group. Called from within a transaction, the work joins it, which
+     * requires the outer transaction to hold every key already.
+     */
+    public <T> T execute(Collection<String> keys, Supplier<T> work) {
+        if (keys == null || work == null) {
+            throw new IllegalArgumentException("Keys and work cannot be null");
+        }
+        Transaction outer = current.get();
+        if (outer != null) {
+            if (!outer.keys.containsAll(keys)) {
+                throw new IllegalStateException("Nested transaction needs keys its outer transaction does not hold");
+            }
+            return work.get();
+        }
+
+        Transaction transaction = new Transaction(new TreeSet<>(keys));
+        for (String key : transaction.keys) {
+            locks.lock(key);
+        }
+        current.set(transaction);
+        try {
+            T result;
+            try {
+                result = work.get();
+            } catch (RuntimeException | Error e) {
+                rollBack(transaction, e);
+                throw e;
+            }
+            commit(transaction);
+            return result;
+        } finally {
+            current.remove();
+            for (String key : transaction.keys) {
+                locks.unlock(key);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #execute(Collection, Supplier)} for work without a result.
+     */
+    public void run(Collection<String> keys, Runnable work) {
+        execute(keys, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void commit(Transaction transaction) {
+        if (!transaction.mutations.isEmpty()) {
+            mutationSink.appendGroup(transaction.mutations);
+        }
+    }
+
+    /**
+     * Discards the transaction's mutations and undoes its changes, newest first.
+     */
+    private void rollBack(Transaction transaction, Throwable failure) {
+        transaction.mutations.clear();
+        for (int i = transaction.undos.size() - 1; i >= 0; i--) {
+            try {
+                transaction.undos.get(i).run();
+            } catch (RuntimeException undoFailure) {
+                failure.addSuppressed(undoFailure);
+            }
+        }
+    }
+
+    @Override
+    public void append(Mutation mutation) {
+        Transaction transaction = current.get();
+        if (transaction != null) {
+            transaction.mutations.add(mutation);
+        } else {
+            mutationSink.append(mutation);
+        }
+    }
+
+    @Override
+    public void append(Mutation mutation, Runnable undo) {
+        Transaction transaction = current.get();
+        if (transaction != null) {
+            transaction.mutations.add(mutation);
+            transaction.undos.add(undo);
+        } else {
+            mutationSink.append(mutation);
+        }
+    }
+
+    @Override
+    public void appendAll(List<Mutation> mutations) {
+        Transaction transaction = current.get();
+        if (transaction != null) {
+            transaction.mutations.addAll(mutations);
+        } else {
+            mutationSink.appendAll(mutations);
+        }
+    }
+
+    @Override
+    public void appendGroup(List<Mutation> mutations) {
+        Transaction transaction = current.get();
+        if (transaction != null) {
+            transaction.mutations.addAll(mutations);
+        } else {
+            mutationSink.appendGroup(mutations);
+        }
+    }
+}
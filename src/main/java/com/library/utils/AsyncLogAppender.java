@@ -0,0 +1,143 @@
+package com.library.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender backed by a bounded multi-producer ring buffer.
+ * Logging threads claim a slot with a single CAS and return immediately; one
+ * background thread drains the ring in batches and hands them to the sink.
+ * When the ring is full, producers wait for space rather than dropping records.
+ */
+public class AsyncLogAppender {
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final Object sinkLock = new Object();
+    private final Thread consumer;
+    private LogSink sink;
+    private volatile boolean consumerParked;
+    private volatile boolean running = true;
+
+    public AsyncLogAppender(LogSink sink, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.sink = sink;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.consumer = new Thread(this::drainLoop, "library-log-appender");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void append(LogRecord record) {
+        while (!offer(record)) {
+            wakeConsumer();
+            LockSupport.parkNanos(50_000L);
+        }
+        if (consumerParked) {
+            wakeConsumer();
+        }
+    }
+
+    /**
+     * Blocks until every record appended before this call has been written.
+     */
+    public void flush() {
+        long target = tail.get();
+        while (written.get() < target && consumer.isAlive()) {
+            wakeConsumer();
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+
+    public void setSink(LogSink newSink) {
+        flush();
+        LogSink previous;
+        synchronized (sinkLock) {
+            previous = this.sink;
+            this.sink = newSink;
+        }
+        previous.close();
+    }
+
+    public void close() {
+        flush();
+        running = false;
+        wakeConsumer();
+        try {
+            consumer.join(1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (sinkLock) {
+            sink.close();
+        }
+    }
+
+    private boolean offer(LogRecord record) {
+        while (true) {
+            long claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(claimed, claimed + 1)) {
+                slots.lazySet((int) claimed & mask, record);
+                return true;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || head.get() < tail.get()) {
+            drainInto(batch);
+            if (batch.isEmpty()) {
+                consumerParked = true;
+                if (head.get() == tail.get() && running) {
+                    LockSupport.parkNanos(10_000_000L);
+                }
+                consumerParked = false;
+                continue;
+            }
+            synchronized (sinkLock) {
+                try {
+                    sink.write(batch);
+                } catch (RuntimeException e) {
+                    System.err.println("Log sink failed: " + e.getMessage());
+                }
+            }
+            written.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void drainInto(List<LogRecord> batch) {
+        long position = head.get();
+        long available = tail.get();
+        while (position < available && batch.size() < MAX_BATCH_SIZE) {
+            int index = (int) position & mask;
+            LogRecord record = slots.get(index);
+            if (record == null) {
+                // Slot claimed but not yet published by its producer
+                break;
+            }
+            slots.lazySet(index, null);
+            batch.add(record);
+            position++;
+        }
+        head.set(position);
+    }
+
+    private void wakeConsumer() {
+        LockSupport.unpark(consumer);
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Writes records in a compact length-prefixed binary format. Each record is:
+ * <pre>
+ *   int    length of the rest of the record
+ *   byte   level ordinal
+ *   long   timestamp, epoch nanos
+ *   string event type ("log" for plain text records)
+ *   short  field count
+ *   field* (string key, byte value tag, value)
+ * </pre>
+ * Strings are an unsigned short byte length followed by UTF-8 bytes. Value tags are
+ * 0 = null, 1 = long, 2 = double, 3 = boolean, 4 = string.
+ */
+public class BinaryLogSink extends StructuredLogSink {
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_LONG = 1;
+    private static final byte TAG_DOUBLE = 2;
+    private static final byte TAG_BOOLEAN = 3;
+    private static final byte TAG_STRING = 4;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    public BinaryLogSink(Path directory, long maxFileBytes) {
+        super(directory, "events", "bin", maxFileBytes);
+    }
+
+    @Override
+    protected void encode(LogRecord record) {
+        reserve(estimateSize(record));
+        int start = buffer().position();
+        buffer().putInt(0);
+        buffer().put((byte) record.getLevel().ordinal());
+        buffer().putLong(record.getEpochNanos());
+        putString(record.isEvent() ? record.getEventType() : "log");
+        if (record.isEvent()) {
+            buffer().putShort((short) record.getFieldCount());
+            for (int i = 0; i < record.getFieldCount(); i++) {
+                putString(record.getFieldKey(i));
+                putValue(record.getFieldValue(i));
+            }
+        } else {
+            buffer().putShort((short) 1);
+            putString("msg");
+            putValue(record.getMessage());
+        }
+        buffer().putInt(start, buffer().position() - start - Integer.BYTES);
+    }
+
+    private int estimateSize(LogRecord record) {
+        int size = 32 + maxEncodedLength(record.isEvent() ? record.getEventType() : record.getMessage());
+        for (int i = 0; i < record.getFieldCount(); i++) {
+            size += 12 + maxEncodedLength(record.getFieldKey(i)) + maxEncodedLength(record.getFieldValue(i));
+        }
+        return size;
+    }
+
+    private void putValue(Object value) {
+        if (value == null) {
+            buffer().put(TAG_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            buffer().put(TAG_LONG).putLong(((Number) value).longValue());
+        } else if (value instanceof Number number) {
+            buffer().put(TAG_DOUBLE).putDouble(number.doubleValue());
+        } else if (value instanceof Boolean flag) {
+            buffer().put(TAG_BOOLEAN).put((byte) (flag ? 1 : 0));
+        } else {
+            buffer().put(TAG_STRING);
+            putString(value instanceof CharSequence text ? text : String.valueOf(value));
+        }
+    }
+
+    private void putString(CharSequence text) {
+        int lengthPosition = buffer().position();
+        buffer().putShort((short) 0);
+        int start = buffer().position();
+        for (int i = 0; i < text.length() && buffer().position() - start <= MAX_STRING_BYTES - 4; i++) {
+            char c = text.charAt(i);
+            putUtf8Char(c, text, i);
+            if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                i++;
+            }
+        }
+        buffer().putShort(lengthPosition, (short) (buffer().position() - start));
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.utils;
+
+import java.util.List;
+
+/**
+ * Writes log records to standard output, with errors going to standard error.
+ */
+public class ConsoleLogSink implements LogSink {
+    private final LogFormatter formatter = new LogFormatter();
+
+    @Override
+    public void write(List<LogRecord> batch) {
+        StringBuilder out = new StringBuilder();
+        for (LogRecord record : batch) {
+            String line = formatter.format(record);
+            if (record.getLevel() == LogLevel.ERROR) {
+                // Keep stdout and stderr interleaved in the order records were logged
+                flushTo(out);
+                System.err.println(line);
+            } else {
+                out.append(line).append(System.lineSeparator());
+            }
+        }
+        flushTo(out);
+    }
+
+    private void flushTo(StringBuilder out) {
+        if (out.length() > 0) {
+            System.out.print(out);
+            System.out.flush();
+            out.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends formatted log lines to a file, flushing once per batch.
+ */
+public class FileLogSink implements LogSink {
+    private final LogFormatter formatter = new LogFormatter();
+    private final BufferedWriter writer;
+
+    public FileLogSink(Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open log file " + file, e);
+        }
+    }
+
+    @Override
+    public void write(List<LogRecord> batch) {
+        try {
+            for (LogRecord record : batch) {
+                writer.write(formatter.format(record));
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write log batch: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close log file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.utils;
+
+import java.util.Arrays;
+
+/**
+ * Compact, sortable string encoding of 64-bit IDs using Crockford's base32 alphabet.
+ * Every ID encodes to exactly 13 characters, so lexical order matches numeric order.
+ */
+public final class IdCodec {
+    public static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+    }
+
+    private IdCodec() {
+    }
+
+    public static String encode(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("IDs must be non-negative");
+        }
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static long decode(CharSequence text, int offset) {
+        if (text.length() - offset != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Not an encoded ID: " + text);
+        }
+        long id = 0;
+        for (int i = offset; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Not an encoded ID: " + text);
+            }
+            id = (id << 5) | value;
+        }
+        return id;
+    }
+}
@@ -1,25 +1,50 @@
 package com.library.utils;
 
-import java.util.UUID;
-
 /**
  * Utility class for generating unique IDs.
+ * IDs are a type prefix followed by a 13-character {@link IdCodec} encoding of a
+ * 64-bit value from the configured {@link IdSource}. The default source is a
+ * {@link SnowflakeIdSource} whose node ID comes from the {@code library.nodeId}
+ * system property.
  */
 public class IdGenerator {
-    
+    private static volatile IdSource source = new SnowflakeIdSource(Integer.getInteger("library.nodeId", 0));
+
     public static String generateBookId() {
-        return "BOOK-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "BOOK-" + IdCodec.encode(source.nextId());
     }
     
     public static String generatePatronId() {
-        return "PATRON-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "PATRON-" + IdCodec.encode(source.nextId());
     }
     
     public static String generateRecordId() {
-        return "RECORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "RECORD-" + IdCodec.encode(source.nextId());
     }
     
     public static String generateReservationId() {
-        return "RESERVATION-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "RESERVATION-" + IdCodec.encode(source.nextId());
+    }
+
+    /**
+     * Returns the numeric value behind a generated ID, or -1 if the ID was not produced by this class.
+     */
+    public static long parseId(String id) {
+        int separator = id == null ? -1 : id.lastIndexOf('-');
+        if (separator < 0 || id.length() - separator - 1 != IdCodec.ENCODED_LENGTH) {
+            return -1;
+        }
+        try {
+            return IdCodec.decode(id, separator + 1);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    public static void setIdSource(IdSource idSource) {
+        if (idSource == null) {
+            throw new IllegalArgumentException("ID source cannot be null");
+        }
+        source = idSource;
     }
 }
@@ -0,0 +1,8 @@
+package com.library.utils;
+
+/**
+ * Source of unique 64-bit identifiers used by {@link IdGenerator}.
+ */
+public interface IdSource {
+    long nextId();
+}
@@ -0,0 +1,99 @@
+package com.library.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Writes records as newline-delimited JSON, one object per line:
+ * {@code {"ts":<epoch nanos>,"level":"INFO","event":"book.borrowed","fields":{"isbn":"..."}}}.
+ * Plain text records use the event type {@code "log"} and a {@code "msg"} field.
+ */
+public class JsonLogSink extends StructuredLogSink {
+
+    public JsonLogSink(Path directory, long maxFileBytes) {
+        super(directory, "events", "ndjson", maxFileBytes);
+    }
+
+    @Override
+    protected void encode(LogRecord record) {
+        reserve(estimateSize(record));
+        putAscii("{\"ts\":");
+        putDecimal(record.getEpochNanos());
+        putAscii(",\"level\":\"");
+        putAscii(record.getLevel().name());
+        putAscii("\",\"event\":");
+        putString(record.isEvent() ? record.getEventType() : "log");
+        if (!record.isEvent()) {
+            putAscii(",\"msg\":");
+            putString(record.getMessage());
+        }
+        if (record.getFieldCount() > 0) {
+            putAscii(",\"fields\":{");
+            for (int i = 0; i < record.getFieldCount(); i++) {
+                if (i > 0) {
+                    buffer().put((byte) ',');
+                }
+                putString(record.getFieldKey(i));
+                buffer().put((byte) ':');
+                putValue(record.getFieldValue(i));
+            }
+            buffer().put((byte) '}');
+        }
+        putAscii("}\n");
+    }
+
+    private int estimateSize(LogRecord record) {
+        int size = 96 + maxEncodedLength(record.isEvent() ? record.getEventType() : record.getMessage());
+        for (int i = 0; i < record.getFieldCount(); i++) {
+            size += 4 + maxEncodedLength(record.getFieldKey(i)) + maxEncodedLength(record.getFieldValue(i));
+        }
+        return size;
+    }
+
+    private void putValue(Object value) {
+        if (value == null) {
+            putAscii("null");
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            putDecimal(((Number) value).longValue());
+        } else if (value instanceof Boolean || value instanceof Number) {
+            putAscii(value.toString());
+        } else if (value instanceof CharSequence text) {
+            putString(text);
+        } else {
+            putString(String.valueOf(value));
+        }
+    }
+
+    private void putString(CharSequence text) {
+        buffer().put((byte) '"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> putAscii("\\\"");
+                case '\\' -> putAscii("\\\\");
+                case '\n' -> putAscii("\\n");
+                case '\r' -> putAscii("\\r");
+                case '\t' -> putAscii("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        putAscii("\\u00");
+                        buffer().put((byte) Character.forDigit(c >> 4, 16));
+                        buffer().put((byte) Character.forDigit(c & 0xF, 16));
+                    } else {
+                        putUtf8Char(c, text, i);
+                        if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                                && Character.isLowSurrogate(text.charAt(i + 1))) {
+                            i++;
+                        }
+                    }
+                }
+            }
+        }
+        buffer().put((byte) '"');
+    }
+
+    private void putAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer().put((byte) text.charAt(i));
+        }
+    }
+}
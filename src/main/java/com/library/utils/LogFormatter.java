@@ -0,0 +1,43 @@
+package com.library.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Renders log records as text lines.
+ * The formatted timestamp is cached and only recomputed when the second changes.
+ */
+public class LogFormatter {
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    public String format(LogRecord record) {
+        StringBuilder line = new StringBuilder(64);
+        line.append('[').append(timestamp(record.getEpochMillis())).append("] ");
+        if (record.isLabelled()) {
+            line.append(record.getLevel().name()).append(": ");
+        }
+        if (!record.isEvent()) {
+            return line.append(record.getMessage()).toString();
+        }
+        line.append(record.getEventType());
+        for (int i = 0; i < record.getFieldCount(); i++) {
+            line.append(' ').append(record.getFieldKey(i)).append('=').append(record.getFieldValue(i));
+        }
+        return line.toString();
+    }
+
+    private String timestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        if (second != cachedSecond) {
+            cachedTimestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone).format(formatter);
+            cachedSecond = second;
+        }
+        return cachedTimestamp;
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.utils;
+
+/**
+ * Enum representing logging severity levels, in increasing order of severity.
+ */
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARNING,
+    ERROR;
+
+    public boolean isAtLeast(LogLevel threshold) {
+        return compareTo(threshold) >= 0;
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.utils;
+
+/**
+ * A single log entry captured on the calling thread and rendered later by a sink.
+ * Plain records carry a message; structured event records carry an event type and
+ * alternating key/value fields instead.
+ */
+public final class LogRecord {
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    private final LogLevel level;
+    private final long epochNanos;
+    private final String message;
+    private final boolean labelled;
+    private final String eventType;
+    private final Object[] fields;
+
+    public LogRecord(LogLevel level, long epochNanos, String message, boolean labelled) {
+        this(level, epochNanos, message, labelled, null, NO_FIELDS);
+    }
+
+    public LogRecord(LogLevel level, long epochNanos, String eventType, Object[] fields) {
+        this(level, epochNanos, null, true, eventType, fields);
+    }
+
+    private LogRecord(LogLevel level, long epochNanos, String message, boolean labelled,
+                      String eventType, Object[] fields) {
+        if ((fields.length & 1) != 0) {
+            throw new IllegalArgumentException("Event fields must be key/value pairs");
+        }
+        this.level = level;
+        this.epochNanos = epochNanos;
+        this.message = message;
+        this.labelled = labelled;
+        this.eventType = eventType;
+        this.fields = fields;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public long getEpochMillis() {
+        return epochNanos / 1_000_000L;
+    }
+
+    /**
+     * Returns the free-text message, or null for structured event records.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns false for plain {@link Logger#log(String)} lines, which are written without a level label.
+     */
+    public boolean isLabelled() {
+        return labelled;
+    }
+
+    public boolean isEvent() {
+        return eventType != null;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public int getFieldCount() {
+        return fields.length / 2;
+    }
+
+    public String getFieldKey(int index) {
+        return String.valueOf(fields[index * 2]);
+    }
+
+    public Object getFieldValue(int index) {
+        return fields[index * 2 + 1];
+    }
+}
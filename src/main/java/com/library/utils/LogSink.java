@@ -0,0 +1,14 @@
+package com.library.utils;
+
+import java.util.List;
+
+/**
+ * Destination for log records. Sinks receive records in batches from the
+ * asynchronous appender thread, so implementations need not be thread-safe.
+ */
+public interface LogSink {
+    void write(List<LogRecord> batch);
+
+    default void close() {
+    }
+}
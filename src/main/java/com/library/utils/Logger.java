@@ -1,29 +1,141 @@
 package com.library.utils;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.util.function.Supplier;
 
 /**
  * Simple logging utility for the library management system.
+ *
+ * <p>Records below the configured level are discarded before any message is built,
+ * and the {@link Supplier} overloads defer string construction until a record is
+ * known to be needed. Accepted records are handed to an asynchronous ring-buffer
+ * appender, so callers never block on console or file I/O. Structured events logged
+ * through {@link #logEvent} can be written as JSON or binary by installing a
+ * {@link JsonLogSink} or {@link BinaryLogSink}.
  */
 public class Logger {
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_CAPACITY = 8192;
+    // Wall-clock anchor so timestamps get nanosecond resolution without allocating an Instant
+    private static final long EPOCH_NANOS_OFFSET = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+    private static volatile LogLevel level = LogLevel.valueOf(
+            System.getProperty("library.log.level", LogLevel.INFO.name()).toUpperCase());
+    private static final AsyncLogAppender appender = new AsyncLogAppender(new ConsoleLogSink(), BUFFER_CAPACITY);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(appender::close, "library-log-shutdown"));
+    }
 
     public static void log(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        System.out.println("[" + timestamp + "] " + message);
+        if (isEnabled(LogLevel.INFO)) {
+            appender.append(new LogRecord(LogLevel.INFO, currentEpochNanos(), message, false));
+        }
+    }
+
+    public static void log(Supplier<String> message) {
+        if (isEnabled(LogLevel.INFO)) {
+            log(message.get());
+        }
     }
 
     public static void logError(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        System.err.println("[" + timestamp + "] ERROR: " + message);
+        write(LogLevel.ERROR, message);
+    }
+
+    public static void logError(Supplier<String> message) {
+        if (isEnabled(LogLevel.ERROR)) {
+            write(LogLevel.ERROR, message.get());
+        }
     }
 
     public static void logInfo(String message) {
-        log("INFO: " + message);
+        write(LogLevel.INFO, message);
+    }
+
+    public static void logInfo(Supplier<String> message) {
+        if (isEnabled(LogLevel.INFO)) {
+            write(LogLevel.INFO, message.get());
+        }
     }
 
     public static void logWarning(String message) {
-        log("WARNING: " + message);
+        write(LogLevel.WARNING, message);
+    }
+
+    public static void logWarning(Supplier<String> message) {
+        if (isEnabled(LogLevel.WARNING)) {
+            write(LogLevel.WARNING, message.get());
+        }
+    }
+
+    public static void logDebug(String message) {
+        write(LogLevel.DEBUG, message);
+    }
+
+    public static void logDebug(Supplier<String> message) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            write(LogLevel.DEBUG, message.get());
+        }
+    }
+
+    /**
+     * Logs a structured event at INFO level. Fields are alternating keys and values,
+     * e.g. {@code logEvent("book.borrowed", "isbn", isbn, "patronId", patronId)}.
+     */
+    public static void logEvent(String eventType, Object... keyValues) {
+        logEvent(LogLevel.INFO, eventType, keyValues);
+    }
+
+    public static void logEvent(LogLevel eventLevel, String eventType, Object... keyValues) {
+        if (isEnabled(eventLevel)) {
+            appender.append(new LogRecord(eventLevel, currentEpochNanos(), eventType, keyValues));
+        }
+    }
+
+    public static boolean isEnabled(LogLevel candidate) {
+        return candidate.isAtLeast(level);
+    }
+
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    public static void setLevel(LogLevel newLevel) {
+        if (newLevel == null) {
+            throw new IllegalArgumentException("Log level cannot be null");
+        }
+        level = newLevel;
+    }
+
+    /**
+     * Replaces the destination of log records, e.g. with a {@link FileLogSink}.
+     * Records already queued are written to the previous sink first.
+     */
+    public static void setSink(LogSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Log sink cannot be null");
+        }
+        appender.setSink(sink);
+    }
+
+    public static void logToFile(Path file) {
+        setSink(new FileLogSink(file));
+    }
+
+    /**
+     * Blocks until all records logged so far have been written.
+     */
+    public static void flush() {
+        appender.flush();
+    }
+
+    private static long currentEpochNanos() {
+        return EPOCH_NANOS_OFFSET + System.nanoTime();
+    }
+
+    private static void write(LogLevel recordLevel, String message) {
+        if (isEnabled(recordLevel)) {
+            appender.append(new LogRecord(recordLevel, currentEpochNanos(), message, true));
+        }
     }
 }
@@ -0,0 +1,201 @@
+package com.library.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Base class for sinks that encode records straight into a reusable direct buffer
+ * and write it through a {@link FileChannel}. Output is split into numbered files
+ * ({@code <baseName>-000001.<extension>}, ...) that rotate once they reach the size limit.
+ */
+public abstract class StructuredLogSink implements LogSink {
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private final Path directory;
+    private final String baseName;
+    private final String extension;
+    private final long maxFileBytes;
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private long fileBytes;
+    private int fileIndex;
+
+    protected StructuredLogSink(Path directory, String baseName, String extension, long maxFileBytes) {
+        if (maxFileBytes <= 0) {
+            throw new IllegalArgumentException("Maximum file size must be positive");
+        }
+        this.directory = directory;
+        this.baseName = baseName;
+        this.extension = extension;
+        this.maxFileBytes = maxFileBytes;
+        this.buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+        try {
+            Files.createDirectories(directory);
+            this.fileIndex = findLastFileIndex();
+            openNextFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open structured log in " + directory, e);
+        }
+    }
+
+    /**
+     * Encodes one record into {@link #buffer()}. Implementations call
+     * {@link #reserve(int)} first with an upper bound of the encoded size.
+     */
+    protected abstract void encode(LogRecord record);
+
+    @Override
+    public void write(List<LogRecord> batch) {
+        try {
+            for (LogRecord record : batch) {
+                encode(record);
+            }
+            drainBuffer();
+            if (fileBytes >= maxFileBytes) {
+                rotate();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write structured log batch: " + e.getMessage());
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            drainBuffer();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close structured log: " + e.getMessage());
+        }
+    }
+
+    protected ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Makes room for at least {@code bytes} more bytes, writing out pending
+     * records first and growing the buffer only for unusually large records.
+     */
+    protected void reserve(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        try {
+            drainBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+        }
+    }
+
+    protected void putUtf8(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            putUtf8Char(text.charAt(i), text, i);
+            if (Character.isHighSurrogate(text.charAt(i)) && i + 1 < text.length()) {
+                i++;
+            }
+        }
+    }
+
+    protected void putUtf8Char(char c, CharSequence text, int index) {
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12)));
+            buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+        }
+    }
+
+    protected void putDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            putUtf8("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Upper bound of the encoded size of a field value, used for {@link #reserve(int)}.
+     */
+    protected static int maxEncodedLength(Object value) {
+        if (value instanceof CharSequence text) {
+            return text.length() * 6;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return 20;
+        }
+        return String.valueOf(value).length() * 6;
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileBytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+        openNextFile();
+    }
+
+    private void openNextFile() throws IOException {
+        fileIndex++;
+        Path file = directory.resolve(String.format("%s-%06d.%s", baseName, fileIndex, extension));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileBytes = channel.size();
+    }
+
+    private int findLastFileIndex() throws IOException {
+        int last = 0;
+        String prefix = baseName + "-";
+        String suffix = "." + extension;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String index = name.substring(prefix.length(), name.length() - suffix.length());
+                try {
+                    last = Math.max(last, Integer.parseInt(index));
+                } catch (NumberFormatException ignored) {
+                    // Not one of our numbered files
+                }
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.utils;
+
+import java.util.List;
+
+/**
+ * Sends every batch to several sinks, e.g. the console and a structured event file.
+ */
+public class TeeLogSink implements LogSink {
+    private final LogSink[] sinks;
+
+    public TeeLogSink(LogSink... sinks) {
+        this.sinks = sinks.clone();
+    }
+
+    @Override
+    public void write(List<LogRecord> batch) {
+        for (LogSink sink : sinks) {
+            sink.write(batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (LogSink sink : sinks) {
+            sink.close();
+        }
+    }
+}